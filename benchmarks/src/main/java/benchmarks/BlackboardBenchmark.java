@@ -0,0 +1,73 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import renderer.Blackboard;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Beam generation of the blackboard: placing it in front of a ray and constructing the rays of its beam, for the
+ * glossy and matte surfaces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlackboardBenchmark {
+    private static final int RAYS = 256;
+
+    /**
+     * The density of the beam
+     */
+    @Param({"9", "17", "33"})
+    public int density;
+
+    private Blackboard blackboard;
+    private Ray[] rays;
+    private int next;
+
+    /**
+     * Builds the blackboard and rays of random directions.
+     */
+    @Setup
+    public void setup() {
+        blackboard = new Blackboard(2).setDensityBeam(density);
+        Random random = new Random(1);
+        rays = new Ray[RAYS];
+        for (int i = 0; i < RAYS; i++)
+            rays[i] = new Ray(new Point(0, 0, 0),
+                    new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian() - 3));
+        next = 0;
+    }
+
+    /**
+     * Constructs the beam of the next ray.
+     *
+     * @return The rays of the beam.
+     */
+    @Benchmark
+    public List<Ray> calculateBeam() {
+        Ray ray = rays[next];
+        next = (next + 1) & (RAYS - 1);
+        return ray.calculateBeam(blackboard);
+    }
+
+    /**
+     * Places the blackboard in front of the next ray, without constructing the rays.
+     *
+     * @return The placed blackboard.
+     */
+    @Benchmark
+    public Blackboard.Board place() {
+        Ray ray = rays[next];
+        next = (next + 1) & (RAYS - 1);
+        return blackboard.place(ray);
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import geometries.*;
+import geometries.Intersectable.GeoPoint;
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Intersection throughput of the primitives. Every operation intersects the next ray of a fixed set of rays from
+ * around the camera position towards the primitive, about half of them hit it and half pass by, so both the hit
+ * and the miss paths are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+    private static final int RAYS = 1024;
+
+    /**
+     * The intersected primitive
+     */
+    @Param({"sphere", "triangle", "polygon", "plane", "cylinder", "tube", "geometries"})
+    public String geometry;
+
+    private Intersectable intersectable;
+    private Ray[] rays;
+    private int next;
+
+    /**
+     * Builds the primitive and the rays. The primitives are about a unit in size around the point (0,0,-10).
+     */
+    @Setup
+    public void setup() {
+        intersectable = switch (geometry) {
+            case "sphere" -> sphere();
+            case "triangle" -> triangle();
+            case "polygon" -> polygon();
+            case "plane" -> new Plane(new Point(0, 0, -10), new Vector(0.1, 0.2, 1));
+            case "cylinder" -> cylinder();
+            case "tube" -> new Tube(new Ray(new Point(0, -1, -10), new Vector(0, 1, 0.2)), 1);
+            case "geometries" -> new Geometries(sphere(), triangle(), polygon(), cylinder());
+            default -> throw new IllegalArgumentException("Unknown geometry " + geometry);
+        };
+        Random random = new Random(1);
+        rays = new Ray[RAYS];
+        for (int i = 0; i < RAYS; i++) {
+            Point origin = new Point(random.nextGaussian() * 0.1, random.nextGaussian() * 0.1, 0);
+            Point target = new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, -10);
+            rays[i] = new Ray(origin, target.subtract(origin));
+        }
+        next = 0;
+    }
+
+    private static Sphere sphere() {
+        return new Sphere(new Point(0, 0, -10), 1);
+    }
+
+    private static Triangle triangle() {
+        return new Triangle(new Point(-1.5, -1.5, -10), new Point(1.5, -1.5, -10), new Point(0, 1.5, -11));
+    }
+
+    private static Polygon polygon() {
+        return new Polygon(new Point(-1, -1, -10), new Point(1, -1, -10), new Point(1.5, 1, -10.5),
+                new Point(-1, 1, -10.5));
+    }
+
+    private static Cylinder cylinder() {
+        return new Cylinder(2, new Ray(new Point(0, -1, -10), new Vector(0, 1, 0.2)), 1);
+    }
+
+    /**
+     * Finds all the intersections of the next ray.
+     *
+     * @return The intersections.
+     */
+    @Benchmark
+    public List<GeoPoint> findGeoIntersections() {
+        Ray ray = rays[next];
+        next = (next + 1) & (RAYS - 1);
+        return intersectable.findGeoIntersections(ray);
+    }
+
+    /**
+     * Finds the closest intersection of the next ray, as the ray tracer does.
+     *
+     * @return The closest intersection.
+     */
+    @Benchmark
+    public GeoPoint findClosestGeoIntersection() {
+        Ray ray = rays[next];
+        next = (next + 1) & (RAYS - 1);
+        return intersectable.findClosestGeoIntersection(ray);
+    }
+}
@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the JMH command line options, and writes their results as JSON to jmh-result.json
+ * unless another result file or format is given, so the results of the runs can be kept and compared over time.
+ */
+public final class Main {
+    private Main() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args The JMH command line options, -h for their list.
+     * @throws RunnerException            If a benchmark fails.
+     * @throws CommandLineOptionException If the options are wrong.
+     * @throws IOException                If the help can't be printed.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        if (options.getResultFormat().hasValue() || options.getResult().hasValue()) builder.parent(options);
+        else builder.parent(options).resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        new Runner(builder.build()).run();
+    }
+}
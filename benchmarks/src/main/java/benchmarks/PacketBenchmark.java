@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Color;
+import primitives.Ray;
+import primitives.RayPacket;
+import renderer.Camera;
+import renderer.RayTracerBasic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary ray packets against single rays over the bounding volume hierarchy of the teapot scene. An operation
+ * traces the primary rays of the next square of 8x8 pixels of the image - as a single packet, as packets of 4x4
+ * pixels, or each ray alone - so the operations per second of the modes are directly comparable, and 64 times
+ * them are the rays per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PacketBenchmark {
+    private static final int SQUARE = 8;
+
+    /**
+     * The side of the packets, 0 for single rays
+     */
+    @Param({"0", "4", "8"})
+    public int side;
+
+    private Camera camera;
+    private RayTracerBasic rayTracer;
+    private int nX;
+    private int nY;
+    private int square;
+
+    /**
+     * Builds the scene with its hierarchy and its ray tracer.
+     */
+    @Setup
+    public void setup() {
+        Scenes.Shot shot = Scenes.teapot();
+        camera = shot.camera();
+        rayTracer = new RayTracerBasic(shot.scene().setIsAABB(false).setIsBVH(true));
+        nX = shot.nX();
+        nY = shot.nY();
+        square = 0;
+    }
+
+    /**
+     * Traces the rays of the next square of pixels.
+     *
+     * @return The colors of the last ray or packet of the square.
+     */
+    @Benchmark
+    public Color[] traceSquare() {
+        int squaresX = nX / SQUARE;
+        int x0 = square % squaresX * SQUARE;
+        int y0 = square / squaresX * SQUARE;
+        if (++square == squaresX * (nY / SQUARE)) square = 0;
+        Color[] colors = null;
+        if (side == 0) {
+            colors = new Color[1];
+            for (int i = y0; i < y0 + SQUARE; ++i)
+                for (int j = x0; j < x0 + SQUARE; ++j)
+                    colors[0] = rayTracer.traceRay(camera.constructRay(nX, nY, j, i));
+            return colors;
+        }
+        for (int y = y0; y < y0 + SQUARE; y += side)
+            for (int x = x0; x < x0 + SQUARE; x += side) {
+                Ray[] rays = new Ray[side * side];
+                for (int r = 0; r < rays.length; ++r)
+                    rays[r] = camera.constructRay(nX, nY, x + r % side, y + r / side);
+                colors = rayTracer.tracePacket(new RayPacket(rays), r -> {
+                });
+            }
+        return colors;
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Color;
+import renderer.Camera;
+import renderer.RayTracerBasic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full scene throughput of the ray tracer: a primary ray per operation, constructed by the camera and traced with
+ * all its shading, shadows, reflections and refractions, so the operations per second are the rays per second.
+ * The rays go over the pixels of the image of the test in rows, so the measurement covers the whole image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SceneBenchmark {
+    /**
+     * The name of the scene
+     */
+    @Param({"teapot", "allEffects"})
+    public String scene;
+
+    private Camera camera;
+    private RayTracerBasic rayTracer;
+    private int nX;
+    private int nY;
+    private int pixel;
+
+    /**
+     * Builds the scene and its ray tracer.
+     */
+    @Setup
+    public void setup() {
+        Scenes.Shot shot = Scenes.shot(scene);
+        camera = shot.camera();
+        rayTracer = new RayTracerBasic(shot.scene());
+        nX = shot.nX();
+        nY = shot.nY();
+        pixel = 0;
+    }
+
+    /**
+     * Traces the ray of the next pixel.
+     *
+     * @return The color of the pixel.
+     */
+    @Benchmark
+    public Color traceRay() {
+        int i = pixel / nX;
+        int j = pixel % nX;
+        if (++pixel == nX * nY) pixel = 0;
+        return rayTracer.traceRay(camera.constructRay(nX, nY, j, i));
+    }
+}
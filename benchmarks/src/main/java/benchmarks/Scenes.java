@@ -0,0 +1,119 @@
+package benchmarks;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.Camera;
+import scene.Scene;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.awt.Color.*;
+
+/**
+ * The Scenes class builds the scenes of the rendering tests for the benchmarks, each with the camera of its test.
+ */
+final class Scenes {
+    /**
+     * A scene with the camera it is rendered by.
+     *
+     * @param scene  The scene.
+     * @param camera The camera, without a ray tracer and an image writer.
+     * @param nX     The amount of pixels by width of the image of the test.
+     * @param nY     The amount of pixels by height of the image of the test.
+     */
+    record Shot(Scene scene, Camera camera, int nX, int nY) {
+    }
+
+    private Scenes() {
+    }
+
+    /**
+     * Builds a scene by its name.
+     *
+     * @param name The name of the scene: teapot or allEffects.
+     * @return The scene with its camera.
+     */
+    static Shot shot(String name) {
+        return switch (name) {
+            case "teapot" -> teapot();
+            case "allEffects" -> allEffects();
+            default -> throw new IllegalArgumentException("Unknown scene " + name);
+        };
+    }
+
+    /**
+     * Builds the scene of renderer.TeaPotTest: the triangles of the teapot model are read from the teapot.obj
+     * resource, which has the points and the triangles of the test in their order.
+     *
+     * @return The scene with its camera.
+     */
+    static Shot teapot() {
+        Color color = new Color(200, 0, 0);
+        Material material = new Material().setKd(0.5).setKs(0.5).setShininess(60);
+        Scene scene = new Scene("Test scene");
+        List<Point> points = new ArrayList<>();
+        try (InputStream in = Scenes.class.getResourceAsStream("/teapot.obj");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] tokens = line.split(" ");
+                if (tokens[0].equals("v"))
+                    points.add(new Point(Double.parseDouble(tokens[1]), Double.parseDouble(tokens[2]),
+                            Double.parseDouble(tokens[3])));
+                else if (tokens[0].equals("f"))
+                    scene.geometries.add(new Triangle(points.get(Integer.parseInt(tokens[1]) - 1),
+                            points.get(Integer.parseInt(tokens[2]) - 1), points.get(Integer.parseInt(tokens[3]) - 1))
+                            .setEmission(color).setMaterial(material));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+        scene.setIsAABB(true);
+        Camera camera = new Camera(new Point(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, 1, 0))
+                .setVPDistance(1000).setVPSize(200, 200);
+        return new Shot(scene, camera, 800, 800);
+    }
+
+    /**
+     * Builds the scene of renderer.allEffectsTest, with the camera of its first image.
+     *
+     * @return The scene with its camera.
+     */
+    static Shot allEffects() {
+        Scene scene = new Scene("Test scene");
+        scene.geometries.add(
+                new Triangle(new Point(0, 0, -115), new Point(0, 75, -75),
+                        new Point(-75, 0, -75)).setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKs(0.5).setShininess(60).setKr(0.2)),
+                new Plane(new Point(0, 0, -115), new Point(10, 0, -115), new Point(0, -10, -115)).setMaterial(new Material().setKs(0.8).setKd(0.1).setShininess(60).setKr(0.5)).setEmission(new Color(20, 20, 20)),
+                new Triangle(new Point(0, 0, -115), new Point(0, 75, -75),
+                        new Point(75, 0, -75)).setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKs(0.5).setShininess(60).setKr(0.2)),
+                new Triangle(new Point(0, 0, -115), new Point(-30, -120, -75),
+                        new Point(75, 0, -75)).setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKs(0.5).setShininess(60).setKr(0.2)),
+                new Sphere(new Point(0, 0, -88), 20).setEmission(new Color(GRAY)).setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setKr(0.95)),
+                new Polygon(new Point(-59, -62, -94), new Point(-59, -38, -94), new Point(-41, -38, -94), new Point(-41, -62, -94)).setEmission(new Color(magenta)),
+                new Sphere(new Point(-50, -50, -94), 15).setEmission(new Color(BLUE)).setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setKt(0.75)),
+                new Cylinder(15, new Ray(new Point(-50, -50, -90), new Vector(0, 0, 1)), 6).setEmission(new Color(darkGray)).setMaterial(new Material().setKs(0.5).setKd(0.5).setShininess(60).setKr(0.2)),
+                new Tube(new Ray(new Point(-50, -100, -115), new Vector(1, 1, 0)), 6).setEmission(new Color(darkGray)).setMaterial(new Material().setKs(0.5).setKd(0.5).setShininess(60).setKr(0.2)),
+                new Triangle(new Point(-59, -62, -94), new Point(-59, -38, -94), new Point(-55, -55, -107)).setEmission(new Color(magenta)).setMaterial(new Material().setKd(0.7).setKs(0.2).setShininess(30).setKt(0.9)),
+                new Triangle(new Point(-59, -38, -94), new Point(-41, -38, -94), new Point(-55, -55, -107)).setEmission(new Color(magenta)).setMaterial(new Material().setKd(0.7).setKs(0.2).setShininess(30).setKt(0.9)),
+                new Triangle(new Point(-41, -38, -94), new Point(-41, -62, -94), new Point(-55, -55, -107)).setEmission(new Color(magenta)).setMaterial(new Material().setKd(0.7).setKs(0.2).setShininess(30).setKt(0.9)),
+                new Triangle(new Point(-41, -62, -94), new Point(-59, -62, -94), new Point(-55, -55, -107)).setEmission(new Color(magenta)).setMaterial(new Material().setKd(0.7).setKs(0.5).setShininess(30).setKt(0.9))
+        );
+        scene.lights.add(new SpotLight(new Color(cyan), new Point(-100, -100, 900), new Vector(1, 1, -6))
+                .setKl(0.0000004).setKq(0.000000006));
+        scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        Camera camera = new Camera(new Point(-300, -600, 350), new Vector(0.3, 0.6, -0.45), new Vector(-2, 1, 0))
+                .setVPSize(150, 150).setVPDistance(1000).rotateLeft(90);
+        return new Shot(scene, camera, 500, 500);
+    }
+}
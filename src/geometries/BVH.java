@@ -0,0 +1,410 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The BVH class is a bounding volume hierarchy over a set of intersectable objects.
+ * The hierarchy is a binary tree of bounding boxes built with the binned surface area heuristic (SAH),
+ * so a ray only tests the objects whose boxes it crosses - roughly a logarithmic amount of them.
+ * Unbounded objects (planes, tubes) can't be placed in the tree, they are kept aside and always tested.
+ */
+public class BVH extends Intersectable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The bounded objects, ordered so each leaf of the tree holds a contiguous range
+     */
+    private final Intersectable[] primitives;
+    /**
+     * The unbounded objects, tested for every ray
+     */
+    private final Intersectable[] unbounded;
+    /**
+     * The tree of the boxes of the bounded objects
+     */
+    private final BoxTree tree;
+
+    /**
+     * Builds the hierarchy over the given objects. Nested geometries collections are flattened,
+     * the boxes of all the objects are constructed.
+     *
+     * @param geometries The objects to build the hierarchy over.
+     */
+    public BVH(List<Intersectable> geometries) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> others = new LinkedList<>();
+        flatten(geometries, bounded, others);
+        unbounded = others.toArray(new Intersectable[0]);
+
+        int n = bounded.size();
+        double[] bounds = new double[n * 6];
+        for (int i = 0; i < n; ++i) {
+            Box b = bounded.get(i).box;
+            for (int axis = 0; axis < 3; ++axis) {
+                bounds[i * 6 + axis] = b.getMin(axis);
+                bounds[i * 6 + 3 + axis] = b.getMax(axis);
+            }
+        }
+        tree = new BoxTree(bounds);
+
+        primitives = new Intersectable[n];
+        for (int i = 0; i < n; ++i)
+            primitives[i] = bounded.get(tree.order[i]);
+        constructBox();
+    }
+
+    /**
+     * Splits the objects into bounded and unbounded ones, opening nested collections.
+     *
+     * @param geometries The objects to split.
+     * @param bounded    The list of the bounded objects.
+     * @param unbounded  The list of the unbounded objects.
+     */
+    private static void flatten(List<Intersectable> geometries, List<Intersectable> bounded, List<Intersectable> unbounded) {
+        for (Intersectable g : geometries) {
+            if (g instanceof Geometries collection) {
+                flatten(collection.geometries, bounded, unbounded);
+                continue;
+            }
+            g.constructBox();
+            if (g.box == null)
+                unbounded.add(g);
+            else
+                bounded.add(g);
+        }
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable g : unbounded) {
+            g.countTest();
+            List<GeoPoint> points = g.findGeoIntersectionsHelper(ray, maxDistance);
+            if (points != null) {
+                if (intersections == null) intersections = new LinkedList<>();
+                intersections.addAll(points);
+            }
+        }
+        if (primitives.length == 0) return intersections;
+
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = 1 / dir.getX(), iy = 1 / dir.getY(), iz = 1 / dir.getZ();
+        int[] stack = new int[tree.stackSize()];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (tree.enter(node, ox, oy, oz, ix, iy, iz, maxDistance) == Double.POSITIVE_INFINITY) continue;
+            int count = tree.nodeCount[node];
+            if (count == 0) {
+                stack[top++] = tree.nodeOffset[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i) {
+                primitives[i].countTest();
+                List<GeoPoint> points = primitives[i].findGeoIntersectionsHelper(ray, maxDistance);
+                if (points != null) {
+                    if (intersections == null) intersections = new LinkedList<>();
+                    intersections.addAll(points);
+                }
+            }
+        }
+        return intersections;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        GeoPoint closest = null;
+        for (Intersectable g : unbounded) {
+            g.countTest();
+            GeoPoint gp = g.findClosestGeoIntersectionHelper(ray, maxDistance);
+            if (gp != null) {
+                double distance = gp.getDistance(ray);
+                if (closest == null || distance < maxDistance) {
+                    closest = gp;
+                    maxDistance = distance;
+                }
+            }
+        }
+        return primitives.length == 0 ? closest : findClosest(0, ray, maxDistance, closest);
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the objects of a subtree that is closer than a given one.
+     *
+     * @param root        The root node of the subtree.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance for intersection - the distance of the given intersection, if any.
+     * @param closest     The closest intersection found so far, null if there is none.
+     * @return The closest intersection, null if there is none.
+     */
+    private GeoPoint findClosest(int root, Ray ray, double maxDistance, GeoPoint closest) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = 1 / dir.getX(), iy = 1 / dir.getY(), iz = 1 / dir.getZ();
+        // front to back traversal: the nearer child is visited first, and nodes that are entered
+        // farther than the closest intersection found so far are skipped
+        int[] stack = new int[tree.stackSize()];
+        double[] entries = new double[tree.stackSize()];
+        int top = 0;
+        double rootEntry = tree.enter(root, ox, oy, oz, ix, iy, iz, maxDistance);
+        if (rootEntry == Double.POSITIVE_INFINITY) return closest;
+        stack[top] = root;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > maxDistance) continue;
+            int count = tree.nodeCount[node];
+            if (count == 0) {
+                int left = node + 1;
+                int right = tree.nodeOffset[node];
+                double tLeft = tree.enter(left, ox, oy, oz, ix, iy, iz, maxDistance);
+                double tRight = tree.enter(right, ox, oy, oz, ix, iy, iz, maxDistance);
+                if (tLeft <= tRight) {
+                    if (tRight != Double.POSITIVE_INFINITY) {
+                        stack[top] = right;
+                        entries[top++] = tRight;
+                    }
+                    if (tLeft != Double.POSITIVE_INFINITY) {
+                        stack[top] = left;
+                        entries[top++] = tLeft;
+                    }
+                } else {
+                    if (tLeft != Double.POSITIVE_INFINITY) {
+                        stack[top] = left;
+                        entries[top++] = tLeft;
+                    }
+                    stack[top] = right;
+                    entries[top++] = tRight;
+                }
+                continue;
+            }
+            for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i) {
+                primitives[i].countTest();
+                GeoPoint gp = primitives[i].findClosestGeoIntersectionHelper(ray, maxDistance);
+                if (gp != null) {
+                    double distance = gp.getDistance(ray);
+                    if (closest == null || distance < maxDistance) {
+                        closest = gp;
+                        maxDistance = distance;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersections of a packet of rays by a single traversal of the tree. A node is first
+     * tested for the whole packet by the ranges of its rays, and only if it is not culled so, each ray that is
+     * still active is tested against it. The children are visited nearer first by the general direction of the
+     * packet. A ray that is left alone in a node continues down the subtree by the traversal of a single ray.
+     *
+     * @param packet The rays to find the intersections with.
+     * @return The closest GeoPoint of each ray by the order of the rays, null for a ray with no intersection.
+     */
+    @Override
+    public GeoPoint[] findClosestGeoIntersections(RayPacket packet) {
+        int size = packet.size();
+        GeoPoint[] closest = new GeoPoint[size];
+        double[] maxDistance = new double[size];
+        for (int r = 0; r < size; ++r) {
+            Ray ray = packet.getRay(r);
+            maxDistance[r] = Double.POSITIVE_INFINITY;
+            for (Intersectable g : unbounded) {
+                g.countTest();
+                GeoPoint gp = g.findClosestGeoIntersectionHelper(ray, maxDistance[r]);
+                if (gp != null) {
+                    double distance = gp.getDistance(ray);
+                    if (closest[r] == null || distance < maxDistance[r]) {
+                        closest[r] = gp;
+                        maxDistance[r] = distance;
+                    }
+                }
+            }
+        }
+        if (primitives.length == 0) return closest;
+
+        // the rays a node is to be tested for are the bits of its mask
+        int[] stack = new int[tree.stackSize()];
+        long[] masks = new long[tree.stackSize()];
+        int top = 0;
+        stack[top] = 0;
+        masks[top++] = size == RayPacket.MAX_SIZE ? -1L : (1L << size) - 1;
+        while (top > 0) {
+            int node = stack[--top];
+            long active = masks[top];
+            // the packet is culled at once when its first ray misses the node and the ranges of the rest miss too
+            if (!enters(node, packet, Long.numberOfTrailingZeros(active), maxDistance)) {
+                active &= active - 1;
+                if (active == 0 || tree.missesAll(node, packet, farthest(active, maxDistance))) continue;
+                while (active != 0 && !enters(node, packet, Long.numberOfTrailingZeros(active), maxDistance))
+                    active &= active - 1;
+                if (active == 0) continue;
+            }
+            // the first ray hits the node: an inner node is entered by the rays from it on without testing them,
+            // a leaf only by the rays that hit it
+            if (tree.nodeCount[node] > 0) {
+                long rest = active & active - 1;
+                active &= -active;
+                for (; rest != 0; rest &= rest - 1) {
+                    int r = Long.numberOfTrailingZeros(rest);
+                    if (enters(node, packet, r, maxDistance)) active |= 1L << r;
+                }
+            }
+            if (Long.bitCount(active) == 1) {
+                int r = Long.numberOfTrailingZeros(active);
+                closest[r] = findClosest(node, packet.getRay(r), maxDistance[r], closest[r]);
+                if (closest[r] != null) maxDistance[r] = closest[r].getDistance(packet.getRay(r));
+                continue;
+            }
+            int count = tree.nodeCount[node];
+            if (count == 0) {
+                int left = node + 1;
+                int right = tree.nodeOffset[node];
+                boolean leftFirst = nearerFirst(left, right, packet);
+                stack[top] = leftFirst ? right : left;
+                masks[top++] = active;
+                stack[top] = leftFirst ? left : right;
+                masks[top++] = active;
+                continue;
+            }
+            for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i)
+                for (long m = active; m != 0; m &= m - 1) {
+                    int r = Long.numberOfTrailingZeros(m);
+                    Ray ray = packet.getRay(r);
+                    primitives[i].countTest();
+                    GeoPoint gp = primitives[i].findClosestGeoIntersectionHelper(ray, maxDistance[r]);
+                    if (gp != null) {
+                        double distance = gp.getDistance(ray);
+                        if (closest[r] == null || distance < maxDistance[r]) {
+                            closest[r] = gp;
+                            maxDistance[r] = distance;
+                        }
+                    }
+                }
+        }
+        return closest;
+    }
+
+    /**
+     * Tells whether a ray of a packet enters a node box within its maximum distance.
+     *
+     * @param node        The node index.
+     * @param packet      The ray packet.
+     * @param ray         The index of the ray in the packet.
+     * @param maxDistance The maximum distances of the rays.
+     * @return true if the ray enters the box.
+     */
+    private boolean enters(int node, RayPacket packet, int ray, double[] maxDistance) {
+        return tree.enter(node, packet.getOrigin(ray, 0), packet.getOrigin(ray, 1), packet.getOrigin(ray, 2),
+                packet.getInverse(ray, 0), packet.getInverse(ray, 1), packet.getInverse(ray, 2), maxDistance[ray])
+                != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Finds the largest maximum distance of some rays of a packet.
+     *
+     * @param mask        The rays, as the bits of the mask.
+     * @param maxDistance The maximum distances of the rays.
+     * @return The largest maximum distance.
+     */
+    private static double farthest(long mask, double[] maxDistance) {
+        double farthest = 0;
+        for (long m = mask; m != 0; m &= m - 1)
+            farthest = Math.max(farthest, maxDistance[Long.numberOfTrailingZeros(m)]);
+        return farthest;
+    }
+
+    /**
+     * Tells whether the left child of a node is nearer to a packet than the right one, by the general direction
+     * of the packet on the axis the centers of the children are the farthest apart on.
+     *
+     * @param left   The left child.
+     * @param right  The right child.
+     * @param packet The ray packet.
+     * @return true if the left child is to be visited first.
+     */
+    private boolean nearerFirst(int left, int right, RayPacket packet) {
+        int axis = 0;
+        double separation = 0;
+        for (int a = 0; a < 3; ++a) {
+            // twice the distance between the centers, enough for comparing
+            double d = tree.nodeBounds[right * 6 + a] + tree.nodeBounds[right * 6 + 3 + a]
+                    - tree.nodeBounds[left * 6 + a] - tree.nodeBounds[left * 6 + 3 + a];
+            if (Math.abs(d) > Math.abs(separation)) {
+                axis = a;
+                separation = d;
+            }
+        }
+        return separation * packet.getDirection(axis) >= 0;
+    }
+
+    @Override
+    protected Double3 findTransmittanceHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr) {
+        for (Intersectable g : unbounded) {
+            g.countTest();
+            ktr = g.findTransmittanceHelper(ray, maxDistance, ktr, minKtr);
+            if (ktr.lowerThan(minKtr)) return Double3.ZERO;
+        }
+        if (primitives.length == 0) return ktr;
+
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double ix = 1 / dir.getX(), iy = 1 / dir.getY(), iz = 1 / dir.getZ();
+        // the order of the occluders does not matter, the first one that blocks the light ends the search
+        int[] stack = new int[tree.stackSize()];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (tree.enter(node, ox, oy, oz, ix, iy, iz, maxDistance) == Double.POSITIVE_INFINITY) continue;
+            int count = tree.nodeCount[node];
+            if (count == 0) {
+                stack[top++] = tree.nodeOffset[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i) {
+                primitives[i].countTest();
+                ktr = primitives[i].findTransmittanceHelper(ray, maxDistance, ktr, minKtr);
+                if (ktr.lowerThan(minKtr)) return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+    @Override
+    void countTest() {
+        // the tests of the objects are counted
+    }
+
+    @Override
+    public void constructBox() {
+        if (unbounded.length > 0 || primitives.length == 0) {
+            box = null;
+            return;
+        }
+        box = tree.rootBox();
+    }
+
+    @Override
+    public boolean isIntersectBox(Ray ray, double maxDistance) {
+        return box == null ? unbounded.length > 0 : box.intersects(ray, maxDistance);
+    }
+}
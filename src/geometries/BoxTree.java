@@ -0,0 +1,387 @@
+package geometries;
+
+import primitives.Counters;
+import primitives.RayPacket;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * The BoxTree class is a binary tree of bounding boxes over a set of primitives given only by their boxes,
+ * built with the binned surface area heuristic (SAH). It holds no primitives itself - a leaf refers to a contiguous
+ * range of the {@link #order} array, which holds the indices of the primitives in the order of the leaves.
+ * The tree is kept in flat arrays in depth first order: the left child of a node is the next node.
+ * It is the shared core of the hierarchies over objects ({@link BVH}) and over the triangles of a {@link Mesh}.
+ */
+final class BoxTree implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximal amount of primitives in a leaf that is made without checking the SAH cost
+     */
+    private static final int MIN_LEAF_SIZE = 2;
+    /**
+     * Maximal amount of primitives in a leaf
+     */
+    private static final int MAX_LEAF_SIZE = 8;
+    /**
+     * Amount of bins for the SAH split search on each axis
+     */
+    private static final int BINS = 16;
+    /**
+     * Cost of traversing a node relative to the cost of a primitive intersection
+     */
+    private static final double TRAVERSAL_COST = 1;
+    /**
+     * Padding of the node boxes, avoids missing hits on the faces of flat boxes due to rounding
+     */
+    private static final double EPS = 1e-7;
+
+    /**
+     * Indices of the primitives, ordered so each leaf holds a contiguous range
+     */
+    final int[] order;
+    /**
+     * Boxes of the nodes - 6 numbers per node: min x, y, z and max x, y, z
+     */
+    final double[] nodeBounds;
+    /**
+     * Index of the right child of an inner node, or the index (in the order array) of the first primitive of a leaf
+     */
+    final int[] nodeOffset;
+    /**
+     * Amount of primitives in a leaf, 0 for an inner node
+     */
+    final int[] nodeCount;
+    private int nodesCount = 0;
+    /**
+     * Size of the traversal stack - the depth of the tree plus one
+     */
+    private int stackSize = 1;
+
+    /**
+     * Builds the tree over primitives given by their boxes.
+     *
+     * @param bounds The boxes of the primitives - 6 numbers per primitive: min x, y, z and max x, y, z.
+     */
+    BoxTree(double[] bounds) {
+        int n = bounds.length / 6;
+        double[] centroids = new double[n * 3];
+        order = new int[n];
+        for (int i = 0; i < n; ++i) {
+            for (int axis = 0; axis < 3; ++axis)
+                centroids[i * 3 + axis] = (bounds[i * 6 + axis] + bounds[i * 6 + 3 + axis]) / 2;
+            order[i] = i;
+        }
+
+        int capacity = Math.max(1, 2 * n - 1);
+        nodeBounds = new double[capacity * 6];
+        nodeOffset = new int[capacity];
+        nodeCount = new int[capacity];
+        if (n > 0) build(0, n, bounds, centroids, 1);
+    }
+
+    /**
+     * Checks whether the tree has no primitives.
+     *
+     * @return true if the tree is empty.
+     */
+    boolean isEmpty() {
+        return order.length == 0;
+    }
+
+    /**
+     * Returns the size of the stack needed for the traversal of the tree.
+     *
+     * @return The depth of the tree plus one.
+     */
+    int stackSize() {
+        return stackSize;
+    }
+
+    /**
+     * Returns the box of the root node (slightly padded), only for a non-empty tree.
+     *
+     * @return The bounding box of all the primitives.
+     */
+    Intersectable.Box rootBox() {
+        return new Intersectable.Box(nodeBounds[0], nodeBounds[1], nodeBounds[2],
+                nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+    }
+
+    /**
+     * Builds the subtree of the primitives in the range [start, end) of the order array.
+     *
+     * @param start     The first primitive of the range.
+     * @param end       The end of the range (excluded).
+     * @param bounds    The boxes of the primitives.
+     * @param centroids The centers of the boxes of the primitives.
+     * @param depth     The depth of the subtree's root node.
+     * @return The index of the subtree's root node.
+     */
+    private int build(int start, int end, double[] bounds, double[] centroids, int depth) {
+        int node = nodesCount++;
+        stackSize = Math.max(stackSize, depth + 1);
+        double[] cMin = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] cMax = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        int nb = node * 6;
+        for (int axis = 0; axis < 3; ++axis) {
+            nodeBounds[nb + axis] = Double.POSITIVE_INFINITY;
+            nodeBounds[nb + 3 + axis] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = start; i < end; ++i) {
+            int p = order[i];
+            for (int axis = 0; axis < 3; ++axis) {
+                nodeBounds[nb + axis] = Math.min(nodeBounds[nb + axis], bounds[p * 6 + axis] - EPS);
+                nodeBounds[nb + 3 + axis] = Math.max(nodeBounds[nb + 3 + axis], bounds[p * 6 + 3 + axis] + EPS);
+                cMin[axis] = Math.min(cMin[axis], centroids[p * 3 + axis]);
+                cMax[axis] = Math.max(cMax[axis], centroids[p * 3 + axis]);
+            }
+        }
+
+        int count = end - start;
+        if (count <= MIN_LEAF_SIZE) return makeLeaf(node, start, count);
+
+        // binned SAH: find the axis and the bin border with the cheapest split
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = 0;
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = cMax[axis] - cMin[axis];
+            if (extent <= 0) continue;
+            int[] binCount = new int[BINS];
+            double[] binBounds = new double[BINS * 6];
+            for (int b = 0; b < BINS; ++b) resetBounds(binBounds, b);
+            for (int i = start; i < end; ++i) {
+                int p = order[i];
+                int b = binOf(centroids[p * 3 + axis], cMin[axis], extent);
+                ++binCount[b];
+                growBounds(binBounds, b, bounds, p);
+            }
+            // areas and counts of all the bins right of each border
+            double[] rightArea = new double[BINS];
+            int[] rightCount = new int[BINS];
+            double[] acc = new double[6];
+            resetBounds(acc, 0);
+            int accCount = 0;
+            for (int b = BINS - 1; b > 0; --b) {
+                growBounds(acc, 0, binBounds, b);
+                accCount += binCount[b];
+                rightArea[b] = area(acc, 0);
+                rightCount[b] = accCount;
+            }
+            resetBounds(acc, 0);
+            accCount = 0;
+            for (int b = 0; b < BINS - 1; ++b) {
+                growBounds(acc, 0, binBounds, b);
+                accCount += binCount[b];
+                if (accCount == 0 || rightCount[b + 1] == 0) continue;
+                double cost = area(acc, 0) * accCount + rightArea[b + 1] * rightCount[b + 1];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        int mid;
+        if (bestAxis < 0) {
+            // all the centers are in the same point - split the range in the middle
+            if (count <= MAX_LEAF_SIZE) return makeLeaf(node, start, count);
+            mid = start + count / 2;
+        } else {
+            double nodeArea = area(nodeBounds, node);
+            double splitCost = TRAVERSAL_COST + (nodeArea > 0 ? bestCost / nodeArea : count);
+            if (splitCost >= count && count <= MAX_LEAF_SIZE) return makeLeaf(node, start, count);
+            double extent = cMax[bestAxis] - cMin[bestAxis];
+            // partition the range: the primitives of the bins up to the best border go first
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                if (binOf(centroids[order[i] * 3 + bestAxis], cMin[bestAxis], extent) <= bestBin)
+                    ++i;
+                else {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            mid = i;
+        }
+
+        build(start, mid, bounds, centroids, depth + 1);
+        nodeOffset[node] = build(mid, end, bounds, centroids, depth + 1);
+        nodeCount[node] = 0;
+        return node;
+    }
+
+    /**
+     * Makes a node a leaf of the primitives in a range.
+     *
+     * @param node  The node index.
+     * @param start The first primitive of the range.
+     * @param count The amount of primitives.
+     * @return The node index.
+     */
+    private int makeLeaf(int node, int start, int count) {
+        nodeOffset[node] = start;
+        nodeCount[node] = count;
+        return node;
+    }
+
+    /**
+     * Calculates the bin of a center coordinate.
+     *
+     * @param c      The center coordinate.
+     * @param min    The minimal center coordinate in the node.
+     * @param extent The extent of the center coordinates in the node.
+     * @return The bin index.
+     */
+    private static int binOf(double c, double min, double extent) {
+        return Math.min(BINS - 1, (int) ((c - min) / extent * BINS));
+    }
+
+    /**
+     * Sets a box in a boxes array to an empty box.
+     *
+     * @param boxes The boxes array - 6 numbers per box.
+     * @param i     The box index.
+     */
+    private static void resetBounds(double[] boxes, int i) {
+        for (int axis = 0; axis < 3; ++axis) {
+            boxes[i * 6 + axis] = Double.POSITIVE_INFINITY;
+            boxes[i * 6 + 3 + axis] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Grows a box in a boxes array to contain a box of another boxes array.
+     *
+     * @param boxes The boxes array of the growing box.
+     * @param i     The growing box index.
+     * @param other The boxes array of the contained box.
+     * @param j     The contained box index.
+     */
+    private static void growBounds(double[] boxes, int i, double[] other, int j) {
+        for (int axis = 0; axis < 3; ++axis) {
+            boxes[i * 6 + axis] = Math.min(boxes[i * 6 + axis], other[j * 6 + axis]);
+            boxes[i * 6 + 3 + axis] = Math.max(boxes[i * 6 + 3 + axis], other[j * 6 + 3 + axis]);
+        }
+    }
+
+    /**
+     * Calculates the surface area of a box in a boxes array.
+     *
+     * @param boxes The boxes array.
+     * @param i     The box index.
+     * @return The surface area, 0 for an empty box.
+     */
+    private static double area(double[] boxes, int i) {
+        double dx = boxes[i * 6 + 3] - boxes[i * 6];
+        double dy = boxes[i * 6 + 4] - boxes[i * 6 + 1];
+        double dz = boxes[i * 6 + 5] - boxes[i * 6 + 2];
+        return dx < 0 || dy < 0 || dz < 0 ? 0 : 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Tells whether a point is in a node box.
+     *
+     * @param node The node index.
+     * @param x    The x coordinate of the point.
+     * @param y    The y coordinate of the point.
+     * @param z    The z coordinate of the point.
+     * @return true if the point is in the box, including its faces.
+     */
+    boolean contains(int node, double x, double y, double z) {
+        int nb = node * 6;
+        return x >= nodeBounds[nb] && x <= nodeBounds[nb + 3] && y >= nodeBounds[nb + 1] && y <= nodeBounds[nb + 4]
+                && z >= nodeBounds[nb + 2] && z <= nodeBounds[nb + 5];
+    }
+
+    /**
+     * Calculates the distance along a ray to the entry into a node box.
+     * The ray is given by its head and the inverse of its direction coordinates.
+     *
+     * @param node        The node index.
+     * @param ox          The x coordinate of the ray head.
+     * @param oy          The y coordinate of the ray head.
+     * @param oz          The z coordinate of the ray head.
+     * @param ix          The inverse of the x coordinate of the ray direction.
+     * @param iy          The inverse of the y coordinate of the ray direction.
+     * @param iz          The inverse of the z coordinate of the ray direction.
+     * @param maxDistance The maximum distance for intersection.
+     * @return The entry distance (negative if the head is inside the box),
+     * or positive infinity if the ray misses the box within the maximum distance.
+     */
+    double enter(int node, double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        int nb = node * 6;
+        double tMin = Double.NEGATIVE_INFINITY;
+        double tMax = maxDistance;
+        double t1 = (nodeBounds[nb] - ox) * ix;
+        double t2 = (nodeBounds[nb + 3] - ox) * ix;
+        // comparisons with NaN (a ray parallel to a slab, starting on its side) are false, so the slab is ignored
+        if (t1 > t2) {
+            double tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        t1 = (nodeBounds[nb + 1] - oy) * iy;
+        t2 = (nodeBounds[nb + 4] - oy) * iy;
+        if (t1 > t2) {
+            double tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        t1 = (nodeBounds[nb + 2] - oz) * iz;
+        t2 = (nodeBounds[nb + 5] - oz) * iz;
+        if (t1 > t2) {
+            double tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        boolean hit = tMin <= tMax && tMax >= 0;
+        Counters.countBoxes(1, hit ? 0 : 1);
+        return hit ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Tells whether all the rays of a packet miss a node box, by the ranges of the heads and of the inverse
+     * directions of the rays (interval arithmetic): the latest entry any ray may have into a slab is compared
+     * with the earliest exit any ray may have. It is conservative - a packet that is not culled may still miss
+     * the box with every ray. The slabs of an axis the rays of the packet differ in direction on, or are parallel
+     * to, cull nothing.
+     *
+     * @param node        The node index.
+     * @param packet      The ray packet.
+     * @param maxDistance The maximum distance for intersection of all the rays.
+     * @return true if no ray of the packet can hit the box within the maximum distance.
+     */
+    boolean missesAll(int node, RayPacket packet, double maxDistance) {
+        int nb = node * 6;
+        double tMin = Double.NEGATIVE_INFINITY;
+        double tMax = maxDistance;
+        for (int axis = 0; axis < 3; ++axis) {
+            double iMin = packet.getMinInverse(axis), iMax = packet.getMaxInverse(axis);
+            if (!(iMin > 0 || iMax < 0) || Double.isInfinite(iMin) || Double.isInfinite(iMax)) continue;
+            // the rays enter the slab on its low side if they go up the axis, and on its high side otherwise
+            double near = iMin > 0 ? nodeBounds[nb + axis] : nodeBounds[nb + 3 + axis];
+            double far = iMin > 0 ? nodeBounds[nb + 3 + axis] : nodeBounds[nb + axis];
+            double oMin = packet.getMinOrigin(axis), oMax = packet.getMaxOrigin(axis);
+            tMin = Math.max(tMin, Math.min(Math.min((near - oMin) * iMin, (near - oMin) * iMax),
+                    Math.min((near - oMax) * iMin, (near - oMax) * iMax)));
+            tMax = Math.min(tMax, Math.max(Math.max((far - oMin) * iMin, (far - oMin) * iMax),
+                    Math.max((far - oMax) * iMin, (far - oMax) * iMax)));
+        }
+        boolean missed = tMin > tMax || tMax < 0;
+        Counters.countBoxes(1, missed ? 1 : 0);
+        return missed;
+    }
+}
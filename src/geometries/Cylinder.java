@@ -5,16 +5,25 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 /**
  * The `Cylinder` class represents a cylinder in 3D space, defined by a central `Ray` axis, a radius, and a height.
- * A cylinder is a type of `Tube` object that has a finite height and no end caps.
+ * A cylinder is a type of `Tube` object that has a finite height and is closed by its two bases.
  */
 public class Cylinder extends Tube {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     final private double height;
+    /**
+     * The center of the bottom base and the axis direction in scalars, for the intersections
+     */
+    final private double baseX, baseY, baseZ, axisX, axisY, axisZ;
 
     /**
      * Constructs a new `Cylinder` object with the specified height, central `Ray` axis, and radius.
@@ -26,6 +35,14 @@ public class Cylinder extends Tube {
     public Cylinder(double h, Ray axisray, double r) {
         super(axisray, r);
         height = h;
+        Point base = axisray.getP0();
+        Vector axis = axisray.getDir();
+        baseX = base.getX();
+        baseY = base.getY();
+        baseZ = base.getZ();
+        axisX = axis.getX();
+        axisY = axis.getY();
+        axisZ = axis.getZ();
     }
 
     /**
@@ -90,147 +107,122 @@ public class Cylinder extends Tube {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        if (axisRay.getDir().equals(ray.getDir())) {
-            if (axisRay.getP0().equals(ray.getP0())) {
-                return Util.alignZero(height - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(height))) : null;
-            }
-            Vector delta = ray.getP0().subtract(axisRay.getP0());
-            double t = Util.alignZero(delta.dotProduct(axisRay.getDir()));
-            double distance = Util.alignZero(Math.sqrt(delta.lengthSquared() - t * t));
-            if (distance < radius && t < 0) {
-                if (Util.alignZero(-t - maxDistance) > 0) return null;
-                else if (Util.alignZero(-t - maxDistance) <= 0 && Util.alignZero(-t + height - maxDistance) > 0)
-                    return List.of(new GeoPoint(this, ray.getPoint(-t)));
-                else {
-                    return List.of(new GeoPoint(this, ray.getPoint(-t)), new GeoPoint(this, ray.getPoint(-t + height)));
-                }
-            } else if (distance < radius && t > 0 && t < height)
-                return (Util.alignZero(height - t - maxDistance) <= 0) ? List.of(new GeoPoint(this, ray.getPoint(height - t))) : null;
-            else if (distance < radius && t >= height) return null;
-            else {
-                return null;
-            }
-        } else if (axisRay.getDir().equals(ray.getDir().scale(-1))) {
-            if (axisRay.getP0().equals(ray.getP0())) return null;
-            Vector delta = ray.getP0().subtract(axisRay.getP0());
-            double t = Util.alignZero(delta.dotProduct(axisRay.getDir()));
-            double distance = Util.alignZero(Math.sqrt(delta.lengthSquared() - t * t));
-            if (distance < radius && t < 0) return null;
-            else if (distance < radius && t > 0 && t < height)
-                return Util.alignZero(-t - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(-t))) : null;
-            else if (distance < radius && t > height) {
-                if (Util.alignZero(t - height - maxDistance) > 0) return null;
-                else if (Util.alignZero(t - height - maxDistance) <= 0 && Util.alignZero(t - maxDistance) > 0)
-                    return List.of(new GeoPoint(this, ray.getPoint(t - height)));
-                else {
-                    return List.of(new GeoPoint(this, ray.getPoint(t)), new GeoPoint(this, ray.getPoint(t - height)));
-                }
-            } else {
-                return null;
+        double t1 = findDistance(ray, maxDistance, 0);
+        if (Double.isNaN(t1)) return null;
+        double t2 = findDistance(ray, maxDistance, t1);
+        return Double.isNaN(t2) ? List.of(new GeoPoint(this, ray.getPoint(t1), t1))
+                : List.of(new GeoPoint(this, ray.getPoint(t1), t1), new GeoPoint(this, ray.getPoint(t2), t2));
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = findDistance(ray, maxDistance, 0);
+        return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t), t);
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the cylinder - its side or its bases - that is farther than a
+     * given distance and not farther than the maximum distance. The ray is taken relative to the center of the
+     * bottom base: its coordinate along the axis is measured from the plane of the bottom base, whose offset along
+     * the axis is precomputed, and the side is solved by the components perpendicular to the axis. The edges of the
+     * bases (the rims) are not part of the cylinder, as in {@link Tube} a tangent ray does not intersect the side.
+     *
+     * @param ray         The ray to intersect with the cylinder.
+     * @param maxDistance The maximum distance for intersection.
+     * @param after       The distance the intersection must be farther than, 0 for the closest one.
+     * @return The distance of the intersection along the ray, or NaN if there is none.
+     */
+    private double findDistance(Ray ray, double maxDistance, double after) {
+        // the ray head relative to the bottom base center and the ray direction, in scalars to avoid allocations
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX() - baseX;
+        double oy = p0.getY() - baseY;
+        double oz = p0.getZ() - baseZ;
+        double dx = dir.getX();
+        double dy = dir.getY();
+        double dz = dir.getZ();
+        // the coordinates along the axis
+        double oAxis = ox * axisX + oy * axisY + oz * axisZ;
+        double dAxis = dx * axisX + dy * axisY + dz * axisZ;
+
+        double closest = Double.NaN;
+        // the side: |o + t*d|^2 - (oAxis + t*dAxis)^2 = r^2, the perpendicular components on the radius
+        double a = alignZero(1 - dAxis * dAxis);
+        if (a > 0) {
+            double b = ox * dx + oy * dy + oz * dz - oAxis * dAxis;
+            double c = ox * ox + oy * oy + oz * oz - oAxis * oAxis - radius2;
+            double discriminant = alignZero(b * b - a * c);
+            if (discriminant > 0) {
+                double root = Math.sqrt(discriminant);
+                closest = closer(closest, (-b - root) / a, oAxis, dAxis, maxDistance, after);
+                closest = closer(closest, (-b + root) / a, oAxis, dAxis, maxDistance, after);
             }
         }
-        // Check intersection with the bottom base
-        GeoPoint geoPointBaseTop = null;
-        GeoPoint geoPointBaseBottom = null;
-        Point baseCenter = axisRay.getP0();
-        Point upperCenter = baseCenter.add(axisRay.getDir().scale(height));
-        Plane lowwer = new Plane(baseCenter, axisRay.getDir());
-        Plane upper = new Plane(upperCenter, axisRay.getDir());
-        List<Point> intersection1 = lowwer.findIntersections(ray);
-        List<Point> intersection2 = upper.findIntersections(ray);
-        if (intersection1 != null && intersection1.get(0).distance(baseCenter) < radius)
-            geoPointBaseBottom = new GeoPoint(this, intersection1.get(0));
-        if (intersection2 != null && intersection2.get(0).distance(upperCenter) < radius)
-            geoPointBaseTop = new GeoPoint(this, intersection2.get(0));
-        List<GeoPoint> list1 = super.findGeoIntersectionsHelper(ray, maxDistance);
-        if (geoPointBaseTop == null && geoPointBaseBottom == null) {
-            if (list1 == null) return null;
-            if (list1.size() == 1) {
-                Point p = list1.get(0).point;
-                boolean in = inCylinder(p);
-                if (in) {
-                    return list1;
-                }
-                return null;
-            } else if (list1.size() == 2) {
-                Point p1 = list1.get(0).point;
-                Point p2 = list1.get(1).point;
-                boolean intersect1 = inCylinder(p1);
-                boolean intersect2 = inCylinder(p2);
-                if (intersect1 && intersect2) return list1;
-                if (!intersect1 && intersect2) return List.of(new GeoPoint(this, p2));
-                if (intersect1 && !intersect2) return List.of(new GeoPoint(this, p1));
-                if (!intersect1 && !intersect2) return null;
-            }
-            return null;
-        } else if (geoPointBaseTop != null && geoPointBaseBottom == null) {
-            if (list1 == null) return List.of(geoPointBaseTop);
-            if (list1.size() == 1) {
-                Point p = list1.get(0).point;
-                boolean in = inCylinder(p);
-                if (in) {
-                    return List.of(list1.get(0), geoPointBaseTop);
-                }
-                return null;
-            } else if (list1.size() == 2) {
-                Point p1 = list1.get(0).point;
-                Point p2 = list1.get(1).point;
-                boolean intersect1 = inCylinder(p1);
-                boolean intersect2 = inCylinder(p2);
-                if (intersect1 && intersect2) {
-                    return List.of(list1.get(0), list1.get(1), geoPointBaseTop);
-                }
-                if (!intersect1 && intersect2) return List.of(new GeoPoint(this, p2), geoPointBaseTop);
-                if (intersect1 && !intersect2) return List.of(new GeoPoint(this, p1), geoPointBaseTop);
-                if (!intersect1 && !intersect2) return List.of(geoPointBaseTop);
-            }
-            return null;
-        } else if (geoPointBaseTop == null && geoPointBaseBottom != null) {
-            if (list1 == null) return List.of(geoPointBaseBottom);
-            if (list1.size() == 1) {
-                Point p = list1.get(0).point;
-                boolean in = inCylinder(p);
-                if (in) {
-                    return List.of(list1.get(0), geoPointBaseBottom);
-                }
-                return null;
-            } else if (list1.size() == 2) {
-                Point p1 = list1.get(0).point;
-                Point p2 = list1.get(1).point;
-                boolean intersect1 = inCylinder(p1);
-                boolean intersect2 = inCylinder(p2);
-                if (intersect1 && intersect2) {
-                    return List.of(list1.get(0), list1.get(1), geoPointBaseBottom);
-                }
-                if (!intersect1 && intersect2) return List.of(new GeoPoint(this, p2), geoPointBaseBottom);
-                if (intersect1 && !intersect2) return List.of(new GeoPoint(this, p1), geoPointBaseBottom);
-                if (!intersect1 && !intersect2) return List.of(geoPointBaseBottom);
-            }
-            return null;
-        } else {
-            if (list1 == null) return List.of(geoPointBaseTop, geoPointBaseBottom);
-            if (list1.size() == 1) {
-                Point p = list1.get(0).point;
-                boolean in = inCylinder(p);
-                if (in) {
-                    return List.of(list1.get(0), geoPointBaseBottom, geoPointBaseTop);
-                }
-                return null;
-            } else if (list1.size() == 2) {
-                Point p1 = list1.get(0).point;
-                Point p2 = list1.get(1).point;
-                boolean intersect1 = inCylinder(p1);
-                boolean intersect2 = inCylinder(p2);
-                if (intersect1 && intersect2) {
-                    return List.of(list1.get(0), list1.get(1), geoPointBaseBottom, geoPointBaseTop);
-                }
-                if (!intersect1 && intersect2)
-                    return List.of(new GeoPoint(this, p2), geoPointBaseTop, geoPointBaseBottom);
-                if (intersect1 && !intersect2)
-                    return List.of(new GeoPoint(this, p1), geoPointBaseTop, geoPointBaseBottom);
-                if (!intersect1 && !intersect2) return List.of(geoPointBaseTop, geoPointBaseBottom);
-            }
-            return null;
+        // the bases: the planes at 0 and at the height along the axis, inside the radius
+        if (!isZero(dAxis)) {
+            closest = closerBase(closest, -oAxis / dAxis, ox, oy, oz, dx, dy, dz, 0, maxDistance, after);
+            closest = closerBase(closest, (height - oAxis) / dAxis, ox, oy, oz, dx, dy, dz, height, maxDistance, after);
         }
+        return closest;
+    }
+
+    /**
+     * Chooses the closer of the current intersection and a candidate intersection with the side of the cylinder.
+     * The candidate is taken only if it is in the distance range and between the bases.
+     *
+     * @param closest     The distance of the current intersection, or NaN if there is none.
+     * @param t           The distance of the candidate intersection.
+     * @param oAxis       The coordinate of the ray head along the axis.
+     * @param dAxis       The component of the ray direction along the axis.
+     * @param maxDistance The maximum distance for intersection.
+     * @param after       The distance the intersection must be farther than.
+     * @return The distance of the closer intersection, or NaN if there is none.
+     */
+    private double closer(double closest, double t, double oAxis, double dAxis, double maxDistance, double after) {
+        if (!inRange(t, maxDistance, after)) return closest;
+        double h = oAxis + t * dAxis;
+        if (alignZero(h) <= 0 || alignZero(h - height) >= 0) return closest;
+        return Double.isNaN(closest) || t < closest ? t : closest;
+    }
+
+    /**
+     * Chooses the closer of the current intersection and a candidate intersection with the plane of a base.
+     * The candidate is taken only if it is in the distance range and inside the radius of the base.
+     *
+     * @param closest     The distance of the current intersection, or NaN if there is none.
+     * @param t           The distance of the candidate intersection.
+     * @param ox          The x of the ray head relative to the bottom base center.
+     * @param oy          The y of the ray head relative to the bottom base center.
+     * @param oz          The z of the ray head relative to the bottom base center.
+     * @param dx          The x of the ray direction.
+     * @param dy          The y of the ray direction.
+     * @param dz          The z of the ray direction.
+     * @param h           The coordinate of the base along the axis.
+     * @param maxDistance The maximum distance for intersection.
+     * @param after       The distance the intersection must be farther than.
+     * @return The distance of the closer intersection, or NaN if there is none.
+     */
+    private double closerBase(double closest, double t, double ox, double oy, double oz, double dx, double dy,
+                              double dz, double h, double maxDistance, double after) {
+        if (!inRange(t, maxDistance, after)) return closest;
+        double px = ox + t * dx;
+        double py = oy + t * dy;
+        double pz = oz + t * dz;
+        if (alignZero(px * px + py * py + pz * pz - h * h - radius2) >= 0) return closest;
+        return Double.isNaN(closest) || t < closest ? t : closest;
+    }
+
+    /**
+     * Checks whether a distance along a ray is farther than a given distance and not farther than the maximum
+     * distance.
+     *
+     * @param t           The distance along the ray.
+     * @param maxDistance The maximum distance for intersection.
+     * @param after       The distance the intersection must be farther than.
+     * @return true if the distance is in the range, false otherwise
+     */
+    private static boolean inRange(double t, double maxDistance, double after) {
+        return alignZero(t - after) > 0 && alignZero(t - maxDistance) <= 0;
     }
 }
@@ -1,8 +1,14 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Ray;
+import primitives.RayPacket;
 import scene.Scene;
 
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -10,14 +16,40 @@ import java.util.List;
  * The Geometries class represents a collection of intersectable objects.
  * It implements the Intersectable interface and provides methods to add new geometries to the collection
  * and find intersections of a given Ray with all the geometries in the collection.
+ * <p>
+ * The box of a collection is the union of the boxes of its bounded geometries, so a hierarchy of collections culls
+ * whole groups of geometries. The unbounded geometries (planes, tubes, and collections that hold them) are kept aside
+ * and tested for every ray, and a collection that holds any of them is unbounded itself - its parent always tests it,
+ * and it tests the union box of its bounded geometries before them.
  */
 public class Geometries extends Intersectable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
 
     /**
      * A list that holds all the geometries in the collection.
      */
     List<Intersectable> geometries = new LinkedList<>();
 
+    /**
+     * The split of the geometries by their boxes, null until the box of the collection is constructed. It is
+     * replaced as a whole, so the render threads that read it once always see a complete split.
+     */
+    private volatile Split split = null;
+
+    /**
+     * The split of the geometries of a collection by their boxes.
+     *
+     * @param bounded    The geometries that have a bounding box.
+     * @param unbounded  The geometries that have no bounding box, tested for every ray.
+     * @param boundedBox The union of the boxes of the bounded geometries, null if there are none.
+     */
+    private record Split(Intersectable[] bounded, Intersectable[] unbounded, Box boundedBox) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+
     /**
      * Constructs a new empty Geometries collection.
      */
@@ -34,9 +66,47 @@ public class Geometries extends Intersectable {
     }
 
 
+    /**
+     * Constructs the boxes of the geometries and the union box of the bounded ones, splitting the geometries into
+     * bounded and unbounded ones. The collection has a box only if all its geometries are bounded.
+     */
     @Override
     public void constructBox() {
-        return ;
+        constructSplit();
+    }
+
+    /**
+     * Constructs the boxes of the geometries and the split of the geometries by them, and publishes the split.
+     *
+     * @return The split.
+     */
+    private Split constructSplit() {
+        List<Intersectable> withBox = new ArrayList<>();
+        List<Intersectable> withoutBox = new ArrayList<>();
+        Box boundedBox = null;
+        for (Intersectable g : geometries) {
+            g.constructBox();
+            if (g.box != null) {
+                withBox.add(g);
+                boundedBox = boundedBox == null ? g.box : boundedBox.union(g.box);
+            } else if (!(g instanceof Geometries collection && collection.geometries.isEmpty()))
+                withoutBox.add(g);
+        }
+        Split constructed = new Split(withBox.toArray(new Intersectable[0]), withoutBox.toArray(new Intersectable[0]),
+                boundedBox);
+        box = withoutBox.isEmpty() ? boundedBox : null;
+        split = constructed;
+        return constructed;
+    }
+
+    /**
+     * Forgets the split of the geometries and the boxes after the collection changed,
+     * they are constructed again by the next box test. The boxes of the collections holding this one are not
+     * updated, {@link #setBoxes()} of the outermost collection constructs them again.
+     */
+    private void resetBox() {
+        split = null;
+        box = null;
     }
 
     /**
@@ -46,11 +116,43 @@ public class Geometries extends Intersectable {
      */
     public void add(Intersectable... geometries) {
         this.geometries.addAll(List.of(geometries));
+        resetBox();
+    }
+
+    /**
+     * Tells whether the bounded geometries are to be tested for a ray. When the collection has a box, the ray
+     * has already passed it; otherwise the union box of the bounded geometries is tested here, once for all of them.
+     *
+     * @param split       The split of the geometries.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance for intersection.
+     * @return false if the ray misses the union box of the bounded geometries.
+     */
+    private static boolean testBounded(Split split, Ray ray, double maxDistance) {
+        return split.unbounded.length == 0
+                || split.boundedBox != null && split.boundedBox.intersects(ray, maxDistance);
     }
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> intersects = null;
+        Split split = this.split;
+        if (!ray.isAABB || split == null) return findGeoIntersections(geometries, ray, maxDistance, null);
+        List<GeoPoint> intersects = findGeoIntersections(Arrays.asList(split.unbounded), ray, maxDistance, null);
+        return testBounded(split, ray, maxDistance)
+                ? findGeoIntersections(Arrays.asList(split.bounded), ray, maxDistance, intersects) : intersects;
+    }
+
+    /**
+     * Adds the intersections of a ray with some geometries to a list of intersections.
+     *
+     * @param geometries  The geometries.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance for intersection.
+     * @param intersects  The list of intersections, null if there are none yet.
+     * @return The list of intersections, null if there are none.
+     */
+    private static List<GeoPoint> findGeoIntersections(Iterable<Intersectable> geometries, Ray ray,
+                                                       double maxDistance, List<GeoPoint> intersects) {
         for (Intersectable i : geometries) {
             List<GeoPoint> geometryIntersects = i.findGeoIntersections(ray, maxDistance);
             if (geometryIntersects != null) {
@@ -64,21 +166,121 @@ public class Geometries extends Intersectable {
     }
 
     @Override
-    public boolean isIntersectBox(Ray ray, double maxDistance) {
-        for(Intersectable g:geometries){
-            if(g.isIntersectBox(ray, maxDistance))return true;
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Split split = this.split;
+        if (!ray.isAABB || split == null) return findClosest(geometries, ray, maxDistance, null);
+        GeoPoint closest = findClosest(Arrays.asList(split.unbounded), ray, maxDistance, null);
+        if (closest != null) maxDistance = closest.getDistance(ray);
+        return testBounded(split, ray, maxDistance)
+                ? findClosest(Arrays.asList(split.bounded), ray, maxDistance, closest) : closest;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with some geometries that is closer than a given one.
+     *
+     * @param geometries  The geometries.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance for intersection - the distance of the given intersection, if any.
+     * @param closest     The closest intersection found so far, null if there is none.
+     * @return The closest intersection, null if there is none.
+     */
+    private static GeoPoint findClosest(Iterable<Intersectable> geometries, Ray ray, double maxDistance,
+                                        GeoPoint closest) {
+        for (Intersectable i : geometries) {
+            GeoPoint gp = i.findClosestGeoIntersection(ray, maxDistance);
+            if (gp != null) {
+                double distance = gp.getDistance(ray);
+                // on equal distances the first found intersection is kept
+                if (closest == null || distance < maxDistance) {
+                    closest = gp;
+                    maxDistance = distance;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersection of the collection with every ray of a packet. A collection that was replaced by
+     * its hierarchy passes the packet to the hierarchy, other collections find the intersection of each ray alone.
+     *
+     * @param packet The rays to find the intersections with.
+     * @return The closest GeoPoint of each ray by the order of the rays, null for a ray with no intersection.
+     */
+    @Override
+    public GeoPoint[] findClosestGeoIntersections(RayPacket packet) {
+        return geometries.size() == 1 && geometries.get(0) instanceof BVH bvh
+                ? bvh.findClosestGeoIntersections(packet) : super.findClosestGeoIntersections(packet);
+    }
+
+    @Override
+    protected Double3 findTransmittanceHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr) {
+        Split split = this.split;
+        if (!ray.isAABB || split == null) return findTransmittance(geometries, ray, maxDistance, ktr, minKtr);
+        ktr = findTransmittance(Arrays.asList(split.unbounded), ray, maxDistance, ktr, minKtr);
+        return ktr == Double3.ZERO || !testBounded(split, ray, maxDistance) ? ktr
+                : findTransmittance(Arrays.asList(split.bounded), ray, maxDistance, ktr, minKtr);
+    }
+
+    /**
+     * Calculates the transmittance of some geometries along a ray.
+     *
+     * @param geometries  The geometries.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance for intersection.
+     * @param ktr         The transmittance accumulated before these geometries.
+     * @param minKtr      The minimal transmittance that is still taken into account.
+     * @return The accumulated transmittance, or Double3.ZERO if it dropped below the minimum.
+     */
+    private static Double3 findTransmittance(Iterable<Intersectable> geometries, Ray ray, double maxDistance,
+                                             Double3 ktr, double minKtr) {
+        for (Intersectable i : geometries) {
+            ktr = i.findTransmittance(ray, maxDistance, ktr, minKtr);
+            if (ktr.lowerThan(minKtr)) return Double3.ZERO;
         }
-        return  false ;
+        return ktr;
+    }
+
+    @Override
+    void countTest() {
+        // the tests of the geometries are counted
+    }
+
+    /**
+     * Checks the box of the collection. A collection with unbounded geometries is always tested, its bounded
+     * geometries are culled by their union box in the search itself.
+     *
+     * @param ray         The ray to check for intersection.
+     * @param maxDistance The maximum distance for intersection.
+     * @return true if the ray may intersect the geometries.
+     */
+    @Override
+    public boolean isIntersectBox(Ray ray, double maxDistance) {
+        Split split = this.split;
+        if (split == null) split = constructSplit();
+        if (split.unbounded.length > 0) return true;
+        return split.boundedBox != null && split.boundedBox.intersects(ray, maxDistance);
     }
+
     /**
      * Sets up bounding boxes for the geometries.
      * This method constructs bounding boxes for each geometry in the collection
-     * of geometries. The bounding boxes are used for various geometric calculations
-     * such as intersection tests and spatial optimizations.
+     * of geometries, and the union boxes of the nested collections. The bounding boxes are used for various
+     * geometric calculations such as intersection tests and spatial optimizations.
      */
     public void setBoxes(){
-        for(Intersectable g:geometries){
-            g.constructBox();
-        }
+        constructBox();
+    }
+
+    /**
+     * Replaces the flat list of geometries with a bounding volume hierarchy (BVH) built over them.
+     * Nested collections are flattened into the hierarchy. Calling it again has no effect.
+     */
+    public void buildBVH() {
+        if (geometries.size() == 1 && geometries.get(0) instanceof BVH) return;
+        BVH bvh = new BVH(geometries);
+        geometries = new LinkedList<>();
+        geometries.add(bvh);
+        resetBox();
     }
 }
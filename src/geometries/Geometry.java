@@ -2,11 +2,16 @@ package geometries;
 
 import primitives.*;
 
+import java.io.Serial;
+
 /**
  * The abstract class Geometry represents a geometry object.
  */
 
 public abstract class Geometry extends Intersectable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private Color emission = Color.BLACK;
     private Material material = new Material();
 
@@ -51,6 +56,14 @@ public abstract class Geometry extends Intersectable {
         return this;
     }
 
+    @Override
+    protected Double3 findTransmittanceHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr) {
+        // when a single intersection is enough to block the light, any intersection will do
+        if (ktr.product(material.kT).lowerThan(minKtr))
+            return findClosestGeoIntersectionHelper(ray, maxDistance) == null ? ktr : Double3.ZERO;
+        return super.findTransmittanceHelper(ray, maxDistance, ktr, minKtr);
+    }
+
     /**
      * Computes the normal vector at the specified point on the surface of the geometry object.
      *
@@ -1,15 +1,24 @@
 package geometries;
 
+import primitives.Counters;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.RayPacket;
 import primitives.Util;
+import primitives.Vector;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * The abstract class Intersectable represents intersectable objects.
  */
-public abstract class Intersectable {
+public abstract class Intersectable implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * The bounding box (AABB) of the geometry.
      */
@@ -45,17 +54,122 @@ public abstract class Intersectable {
      * @return A list of GeoPoint objects representing the intersections, or null if no intersections were found.
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
-        if (ray.isAABB) {
-            return (!isIntersectBox(ray, maxDistance)) ? null : findGeoIntersectionsHelper(ray, maxDistance);
-        }
+        if (ray.isAABB && !isIntersectBox(ray, maxDistance)) return null;
+        countTest();
         return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
+    /**
+     * Finds the closest intersection of the geometry with the given ray up to the specified maximum distance.
+     *
+     * @param ray         The ray to find the intersection with.
+     * @param maxDistance The maximum distance for intersection.
+     * @return The closest GeoPoint, or null if no intersection was found.
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        if (ray.isAABB && !isIntersectBox(ray, maxDistance)) return null;
+        countTest();
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * Finds the closest intersection of the geometry with the given ray.
+     *
+     * @param ray The ray to find the intersection with.
+     * @return The closest GeoPoint, or null if no intersection was found.
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest intersection of the geometry with every ray of a packet.
+     * The default implementation finds the closest intersection of each ray alone,
+     * a bounding volume hierarchy traverses its tree once for the whole packet.
+     *
+     * @param packet The rays to find the intersections with.
+     * @return The closest GeoPoint of each ray by the order of the rays, null for a ray with no intersection.
+     */
+    public GeoPoint[] findClosestGeoIntersections(RayPacket packet) {
+        GeoPoint[] closest = new GeoPoint[packet.size()];
+        for (int r = 0; r < closest.length; ++r)
+            closest[r] = findClosestGeoIntersection(packet.getRay(r));
+        return closest;
+    }
+
+    /**
+     * Helper method for finding the closest intersection of a ray with the geometry.
+     * The default implementation chooses the closest of all the intersections,
+     * composite geometries override it to narrow the search as closer intersections are found.
+     *
+     * @param ray         The ray to intersect with the geometry.
+     * @param maxDistance The maximum distance for intersection.
+     * @return The closest GeoPoint, or null if no intersection was found.
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        return ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
+    }
+
+    /**
+     * Calculates the transmittance of the geometry along a ray - the product of the transmission coefficients (kT)
+     * of all the intersections up to the specified maximum distance, starting from a given transmittance.
+     * The search stops as soon as the transmittance drops below the given minimum,
+     * so an opaque geometry ends the search on its first intersection.
+     *
+     * @param ray         The ray to find the occluding intersections with.
+     * @param maxDistance The maximum distance for intersection.
+     * @param ktr         The transmittance accumulated before this geometry.
+     * @param minKtr      The minimal transmittance that is still taken into account.
+     * @return The accumulated transmittance, or Double3.ZERO if it dropped below the minimum.
+     */
+    public final Double3 findTransmittance(Ray ray, double maxDistance, Double3 ktr, double minKtr) {
+        if (ray.isAABB && !isIntersectBox(ray, maxDistance)) return ktr;
+        countTest();
+        return findTransmittanceHelper(ray, maxDistance, ktr, minKtr);
+    }
+
+    /**
+     * Counts a test of a ray against the geometry in the render statistics, if they are collected.
+     * Composite geometries count the tests of their parts instead.
+     */
+    void countTest() {
+        Counters.countPrimitives(1);
+    }
+
+    /**
+     * Helper method for calculating the transmittance of the geometry along a ray.
+     * The default implementation goes over all the intersections.
+     *
+     * @param ray         The ray to find the occluding intersections with.
+     * @param maxDistance The maximum distance for intersection.
+     * @param ktr         The transmittance accumulated before this geometry.
+     * @param minKtr      The minimal transmittance that is still taken into account.
+     * @return The accumulated transmittance, or Double3.ZERO if it dropped below the minimum.
+     */
+    protected Double3 findTransmittanceHelper(Ray ray, double maxDistance, Double3 ktr, double minKtr) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        if (intersections == null) return ktr;
+        for (GeoPoint gp : intersections) {
+            ktr = ktr.product(gp.geometry.getMaterial().kT);
+            if (ktr.lowerThan(minKtr)) return Double3.ZERO;
+        }
+        return ktr;
+    }
+
     /**
      * Constructs the bounding box (AABB) of the geometry.
      */
     public abstract void constructBox();
 
+    /**
+     * Returns the bounding box (AABB) of the geometry.
+     *
+     * @return The bounding box, or null if it was not constructed or the geometry is unbounded.
+     */
+    public Box getBox() {
+        return box;
+    }
+
 
     /**
          * Helper method for finding the geometric intersections of a ray with the geometry.
@@ -79,7 +193,10 @@ public abstract class Intersectable {
         /**
          * Represents an Axis-Aligned Bounding Box (AABB).
          */
-        public static class Box {
+        public static class Box implements Serializable {
+            @Serial
+            private static final long serialVersionUID = 1L;
+
             private final double minX;
             private final double minY;
             private final double minZ;
@@ -129,23 +246,80 @@ public abstract class Intersectable {
                 double tmin = Math.max(Math.max(Math.min(txmin, txmax), Math.min(tymin, tymax)), Math.min(tzmin, tzmax));
                 double tmax = Math.min(Math.min(Math.max(txmin, txmax), Math.max(tymin, tymax)), Math.max(tzmin, tzmax));
 
-                // if tmax < 0, ray (line) is intersecting AABB, but the whole AABB is behind us
-                if (tmax < 0 || tmin > maxDistance) {
-                    return false;
-                }
-                // if tmin > tmax, ray doesn't intersect AABB
-                return !(tmin > tmax);
+                // if tmax < 0, ray (line) is intersecting AABB, but the whole AABB is behind us,
+                // and if tmin > tmax, ray doesn't intersect AABB
+                boolean hit = tmax >= 0 && tmin <= maxDistance && !(tmin > tmax);
+                Counters.countBoxes(1, hit ? 0 : 1);
+                return hit;
+            }
+
+            /**
+             * Returns the minimal coordinate of the box on the given axis.
+             *
+             * @param axis The axis index: 0 for x, 1 for y and 2 for z.
+             * @return The minimal coordinate on the axis.
+             */
+            public double getMin(int axis) {
+                return axis == 0 ? minX : axis == 1 ? minY : minZ;
+            }
+
+            /**
+             * Returns the maximal coordinate of the box on the given axis.
+             *
+             * @param axis The axis index: 0 for x, 1 for y and 2 for z.
+             * @return The maximal coordinate on the axis.
+             */
+            public double getMax(int axis) {
+                return axis == 0 ? maxX : axis == 1 ? maxY : maxZ;
+            }
+
+            /**
+             * Constructs the smallest box containing both this box and another box.
+             *
+             * @param other The other box.
+             * @return The union box.
+             */
+            public Box union(Box other) {
+                return new Box(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                        Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+            }
+
+            /**
+             * Calculates the surface area of the box.
+             *
+             * @return The surface area of the box.
+             */
+            public double surfaceArea() {
+                double dx = maxX - minX;
+                double dy = maxY - minY;
+                double dz = maxZ - minZ;
+                return 2 * (dx * dy + dy * dz + dz * dx);
             }
 
         }
 
 
     /**
-     * Representation of a geometric intersection point.
+     * Representation of a geometric intersection point. Besides the geometry and the point, the intersector fills
+     * in what it knows about the hit for free - the distance along the ray, and for flat geometries the normal -
+     * so the closest hit is chosen and the point is shaded without recalculating them.
      */
     public static class GeoPoint {
         public Geometry geometry;
         public Point point;
+        /**
+         * The distance of the point along the ray that intersected the geometry, NaN if it is not known
+         */
+        public double t = Double.NaN;
+        /**
+         * The surface coordinates of the point, NaN if the geometry does not give them - the barycentric coordinates
+         * of the second and the third vertices for the triangles of a mesh
+         */
+        public double u = Double.NaN, v = Double.NaN;
+        /**
+         * The normal of the geometry at the point, null until it is known
+         */
+        private Vector normal;
 
         /**
          * Constructs a GeoPoint object with the specified geometry and point.
@@ -158,6 +332,51 @@ public abstract class Intersectable {
             this.point = point;
         }
 
+        /**
+         * Constructs a GeoPoint object of an intersection with a ray.
+         *
+         * @param geometry The geometry object
+         * @param point    The intersection point
+         * @param t        The distance of the point along the ray
+         */
+        public GeoPoint(Geometry geometry, Point point, double t) {
+            this(geometry, point);
+            this.t = t;
+        }
+
+        /**
+         * Constructs a GeoPoint object of an intersection with a ray, where the normal of the geometry is known.
+         *
+         * @param geometry The geometry object
+         * @param point    The intersection point
+         * @param t        The distance of the point along the ray
+         * @param normal   The normal of the geometry at the point
+         */
+        public GeoPoint(Geometry geometry, Point point, double t, Vector normal) {
+            this(geometry, point, t);
+            this.normal = normal;
+        }
+
+        /**
+         * Returns the distance of the point from the head of the ray that intersected the geometry.
+         *
+         * @param ray The ray that intersected the geometry.
+         * @return The distance along the ray, calculated from the point if the intersector did not give it.
+         */
+        public double getDistance(Ray ray) {
+            return Double.isNaN(t) ? ray.getP0().distance(point) : t;
+        }
+
+        /**
+         * Returns the normal of the geometry at the point. It is calculated by the geometry on the first call if
+         * the intersector did not give it, and kept.
+         *
+         * @return The normal of the geometry at the point.
+         */
+        public Vector getNormal() {
+            if (normal == null) normal = geometry.getNormal(point);
+            return normal;
+        }
 
         @Override
         public boolean equals(Object obj) {
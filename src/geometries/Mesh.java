@@ -0,0 +1,447 @@
+package geometries;
+
+import primitives.*;
+
+import java.io.Serial;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * The Mesh class represents a triangle mesh with shared vertices.
+ * The vertices and the triangles are kept in flat arrays (3 coordinates per vertex and 3 vertex indices
+ * per triangle) instead of a Triangle object per face, and the triangles are organized in a bounding volume
+ * hierarchy of their own, so the mesh takes part in the scene as a single intersectable geometry.
+ * All the faces share the material and the emission of the mesh. An intersection with the mesh refers to a
+ * lightweight {@link Face} that gives the normal of the intersected triangle.
+ */
+public class Mesh extends Geometry {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The coordinates of the vertices - x, y, z of each vertex
+     */
+    private final double[] vertices;
+    /**
+     * The vertex indices of the triangles - 3 per triangle
+     */
+    private final int[] indices;
+    /**
+     * The hierarchy of the triangles' boxes
+     */
+    private final BoxTree tree;
+    /**
+     * The tolerance of a point on a triangle, for finding the triangle of a point - of the distance of the point from
+     * the plane of the triangle and of its barycentric coordinates
+     */
+    private static final double FACE_DISTANCE = 1e-7;
+
+    /**
+     * A single triangle of the mesh, as referred to by the intersections with the mesh.
+     * It is created per intersection and takes its material and emission from the mesh.
+     */
+    public class Face extends Geometry {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        /**
+         * Constructs a face of the mesh.
+         *
+         * @param index The index of the triangle in the mesh.
+         */
+        private Face(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the triangle in the mesh.
+         *
+         * @return The index of the triangle.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the mesh of the face.
+         *
+         * @return The mesh.
+         */
+        public Mesh getMesh() {
+            return Mesh.this;
+        }
+
+        @Override
+        public Material getMaterial() {
+            return Mesh.this.getMaterial();
+        }
+
+        @Override
+        public Color getEmission() {
+            return Mesh.this.getEmission();
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return getFaceNormal(index);
+        }
+
+        @Override
+        public void constructBox() {
+            double[] bounds = new double[6];
+            triangleBounds(index, bounds, 0);
+            box = new Box(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        }
+
+        @Override
+        public boolean isIntersectBox(Ray ray, double maxDistance) {
+            if (box == null) constructBox();
+            return box.intersects(ray, maxDistance);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            double t = intersect(index, p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(),
+                    maxDistance);
+            return t == Double.POSITIVE_INFINITY ? null : List.of(hit(index, ray, t));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Face other && getMesh() == other.getMesh() && index == other.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Mesh.this) * 31 + index;
+        }
+
+        @Override
+        public String toString() {
+            return "Face{" + "index=" + index + "}";
+        }
+    }
+
+    /**
+     * Constructs a mesh of the given vertices and triangles. The arrays are used as they are, not copied.
+     *
+     * @param vertices The coordinates of the vertices - x, y, z of each vertex.
+     * @param indices  The vertex indices of the triangles - 3 per triangle, the normal of a triangle is according
+     *                 to the right hand rule on its vertices order.
+     * @throws IllegalArgumentException if the arrays lengths are not multiples of 3,
+     *                                  or a triangle refers to a vertex that does not exist
+     */
+    public Mesh(double[] vertices, int[] indices) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Mesh vertices must have 3 coordinates each");
+        if (indices.length % 3 != 0)
+            throw new IllegalArgumentException("Mesh triangles must have 3 vertices each");
+        int verticesCount = vertices.length / 3;
+        for (int index : indices)
+            if (index < 0 || index >= verticesCount)
+                throw new IllegalArgumentException("Mesh triangle refers to a vertex that does not exist");
+        this.vertices = vertices;
+        this.indices = indices;
+
+        int trianglesCount = indices.length / 3;
+        double[] bounds = new double[trianglesCount * 6];
+        for (int i = 0; i < trianglesCount; ++i)
+            triangleBounds(i, bounds, i * 6);
+        tree = new BoxTree(bounds);
+        constructBox();
+    }
+
+    /**
+     * Returns the amount of vertices in the mesh.
+     *
+     * @return The amount of vertices.
+     */
+    public int getVerticesCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Returns the amount of triangles in the mesh.
+     *
+     * @return The amount of triangles.
+     */
+    public int getTrianglesCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * Calculates the normal of a triangle of the mesh.
+     *
+     * @param triangle The index of the triangle.
+     * @return The unit normal of the triangle.
+     */
+    public Vector getFaceNormal(int triangle) {
+        int a = indices[triangle * 3] * 3, b = indices[triangle * 3 + 1] * 3, c = indices[triangle * 3 + 2] * 3;
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    /**
+     * Returns the normal of the triangle of the mesh the point is on. The intersections with the mesh refer to its
+     * faces and take the normal from them, this finds the triangle by the boxes of the triangles first.
+     * A point on an edge gets the normal of one of the triangles of the edge.
+     *
+     * @param point The point on the surface of the mesh
+     * @return The unit normal of the triangle of the point.
+     * @throws IllegalArgumentException if the point is not on the mesh
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        int face = -1;
+        if (!tree.isEmpty()) {
+            double x = point.getX(), y = point.getY(), z = point.getZ();
+            double nearest = FACE_DISTANCE;
+            double[] uv = new double[2];
+            int[] stack = new int[tree.stackSize()];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (!tree.contains(node, x, y, z)) continue;
+                int count = tree.nodeCount[node];
+                if (count == 0) {
+                    stack[top++] = tree.nodeOffset[node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i) {
+                    int triangle = tree.order[i];
+                    double distance = barycentric(triangle, point, uv);
+                    if (distance <= nearest && uv[0] >= -FACE_DISTANCE && uv[1] >= -FACE_DISTANCE
+                            && uv[0] + uv[1] <= 1 + FACE_DISTANCE) {
+                        face = triangle;
+                        nearest = distance;
+                    }
+                }
+            }
+        }
+        if (face < 0) throw new IllegalArgumentException("The point " + point + " is not on the mesh");
+        return getFaceNormal(face);
+    }
+
+    /**
+     * Writes the box of a triangle into a boxes array.
+     *
+     * @param triangle The index of the triangle.
+     * @param bounds   The boxes array - min x, y, z and max x, y, z of each box.
+     * @param offset   The position of the box in the array.
+     */
+    private void triangleBounds(int triangle, double[] bounds, int offset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            double a = vertices[indices[triangle * 3] * 3 + axis];
+            double b = vertices[indices[triangle * 3 + 1] * 3 + axis];
+            double c = vertices[indices[triangle * 3 + 2] * 3 + axis];
+            bounds[offset + axis] = Math.min(a, Math.min(b, c));
+            bounds[offset + 3 + axis] = Math.max(a, Math.max(b, c));
+        }
+    }
+
+    /**
+     * Intersects a ray with a triangle of the mesh using the Möller–Trumbore algorithm.
+     * Like the Triangle geometry, a ray that passes through an edge or a vertex misses the triangle.
+     *
+     * @param triangle    The index of the triangle.
+     * @param ox          The x coordinate of the ray head.
+     * @param oy          The y coordinate of the ray head.
+     * @param oz          The z coordinate of the ray head.
+     * @param dx          The x coordinate of the ray direction.
+     * @param dy          The y coordinate of the ray direction.
+     * @param dz          The z coordinate of the ray direction.
+     * @param maxDistance The maximum distance for intersection.
+     * @return The distance to the intersection, or positive infinity if there is none.
+     */
+    private double intersect(int triangle, double ox, double oy, double oz, double dx, double dy, double dz,
+                             double maxDistance) {
+        int a = indices[triangle * 3] * 3, b = indices[triangle * 3 + 1] * 3, c = indices[triangle * 3 + 2] * 3;
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double e1x = vertices[b] - ax, e1y = vertices[b + 1] - ay, e1z = vertices[b + 2] - az;
+        double e2x = vertices[c] - ax, e2y = vertices[c + 1] - ay, e2z = vertices[c + 2] - az;
+
+        // p = dir x e2, the determinant is zero when the ray is parallel to the triangle
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) return Double.POSITIVE_INFINITY;
+        double inv = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = alignZero((sx * px + sy * py + sz * pz) * inv);
+        if (u <= 0 || alignZero(u - 1) >= 0) return Double.POSITIVE_INFINITY;
+
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * inv);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.POSITIVE_INFINITY;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Makes the intersection of a ray with a triangle of the mesh, with its distance and the barycentric coordinates
+     * of the point in the triangle.
+     *
+     * @param triangle The index of the triangle.
+     * @param ray      The ray.
+     * @param t        The distance of the intersection along the ray.
+     * @return The intersection, referring to the face of the triangle.
+     */
+    private GeoPoint hit(int triangle, Ray ray, double t) {
+        Point point = ray.getPoint(t);
+        GeoPoint hit = new GeoPoint(new Face(triangle), point, t);
+        double[] uv = new double[2];
+        barycentric(triangle, point, uv);
+        hit.u = uv[0];
+        hit.v = uv[1];
+        return hit;
+    }
+
+    /**
+     * Calculates the barycentric coordinates of the projection of a point on the plane of a triangle of the mesh.
+     *
+     * @param triangle The index of the triangle.
+     * @param point    The point.
+     * @param uv       The array the coordinates of the second and the third vertices are written to.
+     * @return The distance of the point from the plane of the triangle.
+     */
+    private double barycentric(int triangle, Point point, double[] uv) {
+        // the point is a + u * (b - a) + v * (c - a), kept in scalars to avoid allocating
+        int a = indices[triangle * 3] * 3, b = indices[triangle * 3 + 1] * 3, c = indices[triangle * 3 + 2] * 3;
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1];
+        double e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1];
+        double e2z = vertices[c + 2] - vertices[a + 2];
+        double px = point.getX() - vertices[a], py = point.getY() - vertices[a + 1], pz = point.getZ() - vertices[a + 2];
+        // solved by Cramer's rule on the dot products of the point with the two edges
+        double d11 = e1x * e1x + e1y * e1y + e1z * e1z, d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double p1 = px * e1x + py * e1y + pz * e1z, p2 = px * e2x + py * e2y + pz * e2z;
+        double det = d11 * d22 - d12 * d12;
+        uv[0] = (d22 * p1 - d12 * p2) / det;
+        uv[1] = (d11 * p2 - d12 * p1) / det;
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        return Math.abs(px * nx + py * ny + pz * nz) / Math.sqrt(nx * nx + ny * ny + nz * nz);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        if (tree.isEmpty()) return null;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+        List<GeoPoint> intersections = null;
+        int[] stack = new int[tree.stackSize()];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (tree.enter(node, ox, oy, oz, ix, iy, iz, maxDistance) == Double.POSITIVE_INFINITY) continue;
+            int count = tree.nodeCount[node];
+            if (count == 0) {
+                stack[top++] = tree.nodeOffset[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            Counters.countPrimitives(count);
+            for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i) {
+                int triangle = tree.order[i];
+                double t = intersect(triangle, ox, oy, oz, dx, dy, dz, maxDistance);
+                if (t != Double.POSITIVE_INFINITY) {
+                    if (intersections == null) intersections = new LinkedList<>();
+                    intersections.add(hit(triangle, ray, t));
+                }
+            }
+        }
+        return intersections;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        if (tree.isEmpty()) return null;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+        // front to back traversal, the nodes that are entered farther than the closest hit so far are skipped
+        int closest = -1;
+        double closestT = maxDistance;
+        int[] stack = new int[tree.stackSize()];
+        double[] entries = new double[tree.stackSize()];
+        int top = 0;
+        double rootEntry = tree.enter(0, ox, oy, oz, ix, iy, iz, maxDistance);
+        if (rootEntry == Double.POSITIVE_INFINITY) return null;
+        stack[top] = 0;
+        entries[top++] = rootEntry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > closestT) continue;
+            int count = tree.nodeCount[node];
+            if (count == 0) {
+                int left = node + 1;
+                int right = tree.nodeOffset[node];
+                double tLeft = tree.enter(left, ox, oy, oz, ix, iy, iz, closestT);
+                double tRight = tree.enter(right, ox, oy, oz, ix, iy, iz, closestT);
+                int near = tLeft <= tRight ? left : right;
+                int far = near == left ? right : left;
+                double tNear = Math.min(tLeft, tRight);
+                double tFar = Math.max(tLeft, tRight);
+                if (tFar != Double.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entries[top++] = tFar;
+                }
+                if (tNear != Double.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entries[top++] = tNear;
+                }
+                continue;
+            }
+            Counters.countPrimitives(count);
+            for (int i = tree.nodeOffset[node], end = i + count; i < end; ++i) {
+                int triangle = tree.order[i];
+                double t = intersect(triangle, ox, oy, oz, dx, dy, dz, closestT);
+                if (t < closestT || closest < 0 && t != Double.POSITIVE_INFINITY) {
+                    closest = triangle;
+                    closestT = t;
+                }
+            }
+        }
+        return closest < 0 ? null : hit(closest, ray, closestT);
+    }
+
+    @Override
+    void countTest() {
+        // the tests of the triangles are counted
+    }
+
+    @Override
+    public void constructBox() {
+        box = tree.isEmpty() ? null : tree.rootBox();
+    }
+
+    @Override
+    public boolean isIntersectBox(Ray ray, double maxDistance) {
+        return box != null && box.intersects(ray, maxDistance);
+    }
+
+    @Override
+    public String toString() {
+        return "Mesh{" + "vertices=" + getVerticesCount() + ", triangles=" + getTrianglesCount() + "}";
+    }
+}
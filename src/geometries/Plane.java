@@ -5,6 +5,7 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -15,6 +16,9 @@ import static primitives.Util.isZero;
  * It is defined by a point and a normal vector or three non-collinear points.
  */
 public class Plane extends Geometry {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     final private Point q0;
     final private Vector normal;
 
@@ -69,11 +73,19 @@ public class Plane extends Geometry {
     @Override
     protected List<GeoPoint>
     findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        GeoPoint intersection = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return intersection == null ? null : List.of(intersection);
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
         if (q0.equals(ray.getP0())) return null;
         double nv = normal.dotProduct(ray.getDir());
         if (isZero(nv)) return null;
-        double t = alignZero(normal.dotProduct(q0.subtract(ray.getP0())) / nv);
-        return t > 0 && Util.alignZero(t - maxDistance) <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t))) : null;
+        Point p0 = ray.getP0();
+        double t = alignZero((normal.getX() * (q0.getX() - p0.getX()) + normal.getY() * (q0.getY() - p0.getY())
+                + normal.getZ() * (q0.getZ() - p0.getZ())) / nv);
+        return t > 0 && Util.alignZero(t - maxDistance) <= 0 ? new GeoPoint(this, ray.getPoint(t), t, normal) : null;
     }
 
     @Override
@@ -2,12 +2,12 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
-import primitives.Util;
 import primitives.Vector;
 
-import java.util.ArrayList;
+import java.io.Serial;
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 /**
@@ -17,6 +17,9 @@ import static primitives.Util.isZero;
  * @author Dan
  */
 public class Polygon extends Geometry {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * List of polygon's vertices
      */
@@ -55,6 +58,15 @@ public class Polygon extends Geometry {
      */
     protected final Plane plane;
     private final int size;
+    /**
+     * The unit normal of the plane and the first vertex, in scalars for the intersections
+     */
+    private final double normalX, normalY, normalZ, q0X, q0Y, q0Z;
+    /**
+     * The edges data for the intersections, 6 numbers per edge: the edge start vertex and the unit normal of the edge
+     * in the plane of the polygon, pointing inside the polygon
+     */
+    private final double[] edges;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -88,9 +100,28 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(vertices[0], vertices[1], vertices[2]);
+        Vector n = plane.getNormal();
+        normalX = n.getX();
+        normalY = n.getY();
+        normalZ = n.getZ();
+        q0X = vertices[0].getX();
+        q0Y = vertices[0].getY();
+        q0Z = vertices[0].getZ();
+        // the first three vertices turn counterclockwise around the normal, so n x edge points inside on every edge
+        // of a convex polygon
+        edges = new double[size * 6];
+        for (int i = 0; i < size; ++i) {
+            Point start = vertices[i];
+            Vector inside = n.crossProduct(vertices[(i + 1) % size].subtract(start)).normalize();
+            edges[i * 6] = start.getX();
+            edges[i * 6 + 1] = start.getY();
+            edges[i * 6 + 2] = start.getZ();
+            edges[i * 6 + 3] = inside.getX();
+            edges[i * 6 + 4] = inside.getY();
+            edges[i * 6 + 5] = inside.getZ();
+        }
         if (size == 3) return; // no need for more tests for a Triangle
 
-        Vector n = plane.getNormal();
         // Subtracting any subsequent points will throw an IllegalArgumentException
         // because of Zero Vector if they are in the same point
         Vector edge1 = vertices[vertices.length - 1].subtract(vertices[vertices.length - 2]);
@@ -121,40 +152,40 @@ public class Polygon extends Geometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        // If the ray intersects the polygon's plane, return the intersection points
-        List<GeoPoint> points = plane.findGeoIntersectionsHelper(ray, maxDistance);
-        if (points == null) return null;
+        GeoPoint intersection = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return intersection == null ? null : List.of(intersection);
+    }
 
-        // Get the starting point of the ray
+    /**
+     * Finds the intersection of a ray with the polygon. The ray is intersected with the plane of the polygon, and
+     * the intersection point is tested against the precomputed edges: it is inside the polygon if it is inside
+     * every edge by their normals in the plane. The points on the edges and on the vertices are not on the polygon.
+     * No vectors are allocated until an intersection is found.
+     *
+     * @param ray         The ray to intersect with the polygon.
+     * @param maxDistance The maximum distance for intersection.
+     * @return The intersection, or null if there is none.
+     */
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
         Point p0 = ray.getP0();
-
-        // Create a list of vectors from the starting point to each vertex of the polygon
-        List<Vector> vectors = new ArrayList<>(size);
-        for (Point vertex : vertices) {
-            vectors.add(vertex.subtract(p0));
-        }
-        double priv = 1;
-        // Loop over each vertex of the polygon
-        for (int i = 0; i < vertices.size(); i++) {
-            // Calculate the normal vector to the plane of the triangle formed by the ray and two edges of the polygon
-            Vector n = vectors.get(i).crossProduct(vectors.get((i + 1) % size)).normalize();
-
-            // Calculate the dot product between the ray's direction vector and the normal vector
-            double dotProduct = Util.alignZero(ray.getDir().dotProduct(n));
-
-            //on edge or vertex
-            if (dotProduct == 0) return null;
-
-            // If the dot product is with different sign than the other , then the ray is going away from the polygon
-            if (dotProduct * priv < 0)
-                if (i != 0)
-                    return null;
-
-            priv = dotProduct;
-        }
-
-        points.get(0).geometry = this;
-        return points;
+        Vector dir = ray.getDir();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double nv = normalX * dx + normalY * dy + normalZ * dz;
+        if (isZero(nv)) return null;
+        double x0 = p0.getX(), y0 = p0.getY(), z0 = p0.getZ();
+        double t = alignZero((normalX * (q0X - x0) + normalY * (q0Y - y0) + normalZ * (q0Z - z0)) / nv);
+        if (t <= 0 || alignZero(t - maxDistance) > 0) return null;
+
+        double x = x0 + dx * t, y = y0 + dy * t, z = z0 + dz * t;
+        // the distances from the edges are taken relative to the distance of the point from the ray head, as the
+        // angles of the rays, so the edges are excluded alike from near and far
+        double scale = 1 / t;
+        for (int i = 0; i < edges.length; i += 6)
+            if (alignZero(((x - edges[i]) * edges[i + 3] + (y - edges[i + 1]) * edges[i + 4]
+                    + (z - edges[i + 2]) * edges[i + 5]) * scale) <= 0)
+                return null;
+        return new GeoPoint(this, ray.getPoint(t), t, plane.getNormal());
     }
 
     @Override
@@ -1,9 +1,14 @@
 package geometries;
 
+import java.io.Serial;
+
 /**
  * The abstract class RadialGeometry represents a geometry object with a radial size.
  */
 public abstract class RadialGeometry extends Geometry {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * The radius of the radial geometry object.
      */
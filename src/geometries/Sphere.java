@@ -5,6 +5,7 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -14,6 +15,9 @@ import static primitives.Util.alignZero;
  * It extends the `RadialGeometry` class and inherits its properties.
  */
 public class Sphere extends RadialGeometry {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     final private Point center;
 
     /**
@@ -68,13 +72,18 @@ public class Sphere extends RadialGeometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        if (center.equals(ray.getP0())) return List.of(new GeoPoint(this, ray.getPoint(radius)));
-
-        Vector u = center.subtract(ray.getP0());
-        double tm = alignZero(u.dotProduct(ray.getDir()));
+        if (center.equals(ray.getP0())) return List.of(new GeoPoint(this, ray.getPoint(radius), radius));
+
+        // u = center - p0 is kept in scalars to avoid allocating a vector per test
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ux = center.getX() - p0.getX();
+        double uy = center.getY() - p0.getY();
+        double uz = center.getZ() - p0.getZ();
+        double tm = alignZero(ux * dir.getX() + uy * dir.getY() + uz * dir.getZ());
         if (tm < 0) return null;
 
-        double d2 = alignZero(u.dotProduct(u) - tm * tm);
+        double d2 = alignZero(ux * ux + uy * uy + uz * uz - tm * tm);
         double th2 = radius2 - d2;
         if (alignZero(th2) <= 0) return null;
         double th = alignZero(Math.sqrt(th2));
@@ -89,10 +98,38 @@ public class Sphere extends RadialGeometry {
         double t2D = Util.alignZero(t2 - maxDistance);
         if (t2D <= 0)
             return t1 <= 0 ? //
-                    List.of(new GeoPoint(this, ray.getPoint(t2))) : //
-                    List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+                    List.of(new GeoPoint(this, ray.getPoint(t2), t2)) : //
+                    List.of(new GeoPoint(this, ray.getPoint(t1), t1), new GeoPoint(this, ray.getPoint(t2), t2));
 
         return t1 <= 0 ? null : //
-                List.of(new GeoPoint(this, ray.getPoint(t1)));
+                List.of(new GeoPoint(this, ray.getPoint(t1), t1));
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        if (center.equals(ray.getP0())) return new GeoPoint(this, ray.getPoint(radius), radius);
+
+        // u = center - p0 is kept in scalars to avoid allocating a vector per test
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ux = center.getX() - p0.getX();
+        double uy = center.getY() - p0.getY();
+        double uz = center.getZ() - p0.getZ();
+        double tm = alignZero(ux * dir.getX() + uy * dir.getY() + uz * dir.getZ());
+        if (tm < 0) return null;
+
+        double d2 = alignZero(ux * ux + uy * uy + uz * uz - tm * tm);
+        double th2 = radius2 - d2;
+        if (alignZero(th2) <= 0) return null;
+        double th = alignZero(Math.sqrt(th2));
+
+        double t2 = alignZero(tm + th);
+        if (t2 <= 0) return null;
+        double t1 = alignZero(tm - th);
+        if (Util.alignZero(t1 - maxDistance) > 0) return null;
+
+        // the nearer intersection is in front of the ray head - it is the closest one
+        if (t1 > 0) return new GeoPoint(this, ray.getPoint(t1), t1);
+        return Util.alignZero(t2 - maxDistance) <= 0 ? new GeoPoint(this, ray.getPoint(t2), t2) : null;
     }
 }
@@ -1,18 +1,18 @@
 package geometries;
 
 import primitives.Point;
-import primitives.Ray;
 import primitives.Vector;
 
-import java.util.List;
-
-import static primitives.Util.alignZero;
+import java.io.Serial;
 
 /**
  * The Triangle class is a polygon with three vertices.
- * It extends the Polygon class and inherits its properties.
+ * It extends the Polygon class and inherits its properties, including the intersection by the precomputed edges.
  */
 public class Triangle extends Polygon {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
 
     /**
      * Constructs a Triangle object with three vertices.
@@ -35,34 +35,6 @@ public class Triangle extends Polygon {
         return super.getNormal(point);
     }
 
-
-
-    @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> points = plane.findGeoIntersectionsHelper(ray, maxDistance);
-        if (points == null) return null;
-
-        Point p0 = ray.getP0();
-        Vector dir = ray.getDir();
-        Vector v1 = vertices.get(0).subtract(p0);
-        Vector v2 = vertices.get(1).subtract(p0);
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double t1 = alignZero(dir.dotProduct(n1));
-        if (t1 == 0) return null;
-
-        Vector v3 = vertices.get(2).subtract(p0);
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double t2 = alignZero(dir.dotProduct(n2));
-        if (t1 * t2 <= 0) return null;
-
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double t3 = alignZero(dir.dotProduct(n3));
-        if (t1 * t3 <= 0) return null;
-
-        points.get(0).geometry = this;
-        return points;
-    }
-
     @Override
     public String toString() {
         return "Triangle{" + "vertices=" + vertices + ", plane=" + plane + "}";
@@ -5,6 +5,7 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.io.Serial;
 import java.util.List;
 
 /**
@@ -12,6 +13,9 @@ import java.util.List;
  * A tube is a type of `RadialGeometry` object that has no end caps.
  */
 public class Tube extends RadialGeometry {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
 
     /**
      * The central axis `Ray` of the tube.
@@ -68,6 +72,50 @@ public class Tube extends RadialGeometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double[] distances = findDistances(ray);
+        if (distances == null) return null;
+        if (distances.length == 1)
+            return inRange(distances[0], maxDistance)
+                    ? List.of(new GeoPoint(this, ray.getPoint(distances[0]), distances[0])) : null;
+
+        double t1 = distances[0];
+        double t2 = distances[1];
+        boolean in1 = inRange(t1, maxDistance);
+        boolean in2 = inRange(t2, maxDistance);
+        if (!in1 && !in2) return null;
+        if (!in2) return List.of(new GeoPoint(this, ray.getPoint(t1), t1));
+        if (!in1) return List.of(new GeoPoint(this, ray.getPoint(t2), t2));
+        return List.of(new GeoPoint(this, ray.getPoint(t1), t1), new GeoPoint(this, ray.getPoint(t2), t2));
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double[] distances = findDistances(ray);
+        if (distances == null) return null;
+        double closest = Double.POSITIVE_INFINITY;
+        for (double t : distances)
+            if (inRange(t, maxDistance) && t < closest) closest = t;
+        return closest == Double.POSITIVE_INFINITY ? null : new GeoPoint(this, ray.getPoint(closest), closest);
+    }
+
+    /**
+     * Checks whether a distance along a ray is in front of the ray head and not farther than the maximum distance.
+     *
+     * @param t           The distance along the ray.
+     * @param maxDistance The maximum distance for intersection.
+     * @return true if the distance is in the range, false otherwise
+     */
+    private static boolean inRange(double t, double maxDistance) {
+        return t > 0 && Util.alignZero(t - maxDistance) <= 0;
+    }
+
+    /**
+     * Finds the distances along a ray to the intersections of its line with the tube.
+     *
+     * @param ray The ray to intersect with the tube.
+     * @return The distances (one or two, in any direction of the line), or null if the line does not cross the tube
+     */
+    private double[] findDistances(Ray ray) {
         Vector v = ray.getDir();
         Vector vTube = axisRay.getDir();
         Point p0 = ray.getP0();
@@ -80,10 +128,8 @@ public class Tube extends RadialGeometry {
             firstV = v.subtract(vTube.scale(v.dotProduct(vTube)));
         }
         double a = Util.alignZero(firstV.lengthSquared());
-        if (p0.equals(q0)) {
-            Point p = ray.getPoint(Util.alignZero(radius / Util.alignZero(v.subtract(vTube.scale(v.dotProduct(vTube))).length())));
-            return (p.distance(p0) <= maxDistance) ? List.of(new GeoPoint(this, p)) : null;
-        }
+        if (p0.equals(q0))
+            return new double[]{Util.alignZero(radius / Util.alignZero(v.subtract(vTube.scale(v.dotProduct(vTube))).length()))};
         Vector deltaP = p0.subtract(q0);
         Vector secondV;
         double b;
@@ -106,19 +152,9 @@ public class Tube extends RadialGeometry {
 
         double discriminant = Util.alignZero(b * b - 4 * a * c);
         if (discriminant <= 0) return null;
-        else {
-            double t1 = Util.alignZero(((-b) + Math.sqrt(discriminant)) / (2 * a));
-            double t2 = Util.alignZero(((-b) - Math.sqrt(discriminant)) / (2 * a));
-            double t1D = Util.alignZero(t1 - maxDistance);
-            double t2D = Util.alignZero(t2 - maxDistance);
-            Point p1 = ray.getPoint(t1);
-            Point p2 = ray.getPoint(t2);
-            if ((t1 <= 0 || t1D > 0) && (t2D > 0 || t2 <= 0)) return null;
-            else if (t1 > 0 && t1D <= 0 && (t2 <= 0 || t2D > 0)) return List.of(new GeoPoint(this, p1));
-            else if (t2 > 0 && t2D <= 0 && (t1 <= 0 || t1D > 0)) return List.of(new GeoPoint(this, p2));
-            return List.of(new GeoPoint(this, p1), new GeoPoint(this, p2));
-        }
-
+        double t1 = Util.alignZero(((-b) + Math.sqrt(discriminant)) / (2 * a));
+        double t2 = Util.alignZero(((-b) - Math.sqrt(discriminant)) / (2 * a));
+        return new double[]{t1, t2};
     }
 
 
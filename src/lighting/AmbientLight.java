@@ -4,10 +4,15 @@ import primitives.Color;
 import primitives.Double3;
 import primitives.Util;
 
+import java.io.Serial;
+
 /**
  * Represents ambient light in a scene.
  */
 public class AmbientLight extends Light {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * A constant representing no ambient light, with an intensity of Color.BLACK and scaling factor of Double3.ZERO.
      */
@@ -4,10 +4,15 @@ import primitives.Color;
 import primitives.Point;
 import primitives.Vector;
 
+import java.io.Serial;
+
 /**
  * This class represents a directional light source in a scene.
  */
 public class DirectionalLight extends Light implements LightSource {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final Vector direction;
 
     /**
@@ -2,10 +2,16 @@ package lighting;
 
 import primitives.Color;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * This abstract class represents a light source in a scene.
  */
-abstract class Light {
+abstract class Light implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * The intensity color of the light.
      */
@@ -5,10 +5,15 @@ import primitives.Point;
 import primitives.Util;
 import primitives.Vector;
 
+import java.io.Serial;
+
 /**
  * This class represents a point light source in a scene.
  */
 public class PointLight extends Light implements LightSource {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final Point position;
     private double kC = 1, kL = 0, kQ = 0;
 
@@ -64,7 +69,11 @@ public class PointLight extends Light implements LightSource {
 
     @Override
     public Vector getL(Point p) {
-        return p.subtract(position).normalize();
+        double dx = p.getX() - position.getX();
+        double dy = p.getY() - position.getY();
+        double dz = p.getZ() - position.getZ();
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return new Vector(dx / length, dy / length, dz / length);
     }
 
     @Override
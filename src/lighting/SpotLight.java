@@ -6,12 +6,17 @@ import primitives.Vector;
 
 import static primitives.Util.alignZero;
 
+import java.io.Serial;
+
 /**
  * This class represents a spotlight in a scene.
  * <p>
  * A spotlight is a type of point light that emits light in a specific direction within a narrow beam.
  */
 public class SpotLight extends PointLight {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final Vector direction;
     /**
      * The narrowness of the beam/
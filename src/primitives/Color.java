@@ -1,5 +1,8 @@
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Wrapper class for java.jwt.Color The constructors operate with any
  * non-negative RGB values. The colors are maintained without upper limit of
@@ -8,7 +11,10 @@ package primitives;
  *
  * @author Dan Zilberstein
  */
-public class Color {
+public class Color implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Black color = (0,0,0)
      */
@@ -62,6 +68,33 @@ public class Color {
         rgb = new Double3(other.getRed(), other.getGreen(), other.getBlue());
     }
 
+    /**
+     * Red component getter, without the upper limit of 255
+     *
+     * @return the red component
+     */
+    public double getRed() {
+        return rgb.d1;
+    }
+
+    /**
+     * Green component getter, without the upper limit of 255
+     *
+     * @return the green component
+     */
+    public double getGreen() {
+        return rgb.d2;
+    }
+
+    /**
+     * Blue component getter, without the upper limit of 255
+     *
+     * @return the blue component
+     */
+    public double getBlue() {
+        return rgb.d3;
+    }
+
     /**
      * Color getter - returns the color after converting it into java.awt.Color
      * object During the conversion any component bigger than 255 is set to 255
@@ -139,6 +172,18 @@ public class Color {
         return new Color(rgb.d1 / k.d1, rgb.d2 / k.d2, rgb.d3 / k.d3);
     }
 
+    /**
+     * Calculates the difference between this color and another color - the largest difference between
+     * their components
+     *
+     * @param other the other color
+     * @return the largest absolute difference of the rgb components
+     */
+    public double difference(Color other) {
+        return Math.max(Math.abs(rgb.d1 - other.rgb.d1),
+                Math.max(Math.abs(rgb.d2 - other.rgb.d2), Math.abs(rgb.d3 - other.rgb.d3)));
+    }
+
     @Override
     public String toString() {
         return "rgb:" + rgb;
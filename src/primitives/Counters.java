@@ -0,0 +1,115 @@
+package primitives;
+
+/**
+ * The render statistics counters of a thread. The counters are plain fields of an object per thread, so counting
+ * needs no synchronization, and the renderer merges them when a piece of work (a tile) is done.
+ * <p>
+ * Counting is off unless a rendering that collects statistics is running, and then {@link #get()} returns null,
+ * so a counting site costs a single check. Loops that test many triangles count them once per loop.
+ */
+public final class Counters {
+    private static final ThreadLocal<Counters> current = ThreadLocal.withInitial(Counters::new);
+    /**
+     * The amount of the running renderings that collect statistics
+     */
+    private static int users = 0;
+    private static volatile boolean enabled = false;
+
+    /**
+     * The rays traced from the camera
+     */
+    public long primaryRays;
+    /**
+     * The rays traced from a point to a light source
+     */
+    public long shadowRays;
+    /**
+     * The reflected rays traced, including the rays of the glossy beams
+     */
+    public long reflectionRays;
+    /**
+     * The refracted rays traced, including the rays of the matte beams
+     */
+    public long refractionRays;
+    /**
+     * The tests of a ray against a single primitive (a geometry or a triangle of a mesh)
+     */
+    public long primitiveTests;
+    /**
+     * The tests of a ray against a bounding box
+     */
+    public long boxTests;
+    /**
+     * The tests of a ray against a bounding box that the ray missed
+     */
+    public long boxRejections;
+    /**
+     * The points whose color was calculated
+     */
+    public long shadedPoints;
+    /**
+     * The sum of the recursion depths of the points whose color was calculated, 1 for the points seen by the camera
+     */
+    public long depthSum;
+
+    private Counters() {
+    }
+
+    /**
+     * Returns the counters of the current thread if statistics are collected.
+     *
+     * @return The counters of the thread, or null if no statistics are collected.
+     */
+    public static Counters get() {
+        return enabled ? current.get() : null;
+    }
+
+    /**
+     * Starts collecting statistics, for a rendering. The collection goes on until every rendering that started it
+     * has stopped it.
+     */
+    public static synchronized void start() {
+        ++users;
+        enabled = true;
+    }
+
+    /**
+     * Stops collecting statistics, for a rendering that started it.
+     */
+    public static synchronized void stop() {
+        if (users > 0) --users;
+        enabled = users > 0;
+    }
+
+    /**
+     * Counts tests of rays against primitives, if statistics are collected.
+     *
+     * @param tests The amount of tests.
+     */
+    public static void countPrimitives(long tests) {
+        Counters counters = get();
+        if (counters != null) counters.primitiveTests += tests;
+    }
+
+    /**
+     * Counts tests of rays against bounding boxes, if statistics are collected.
+     *
+     * @param tests      The amount of tests.
+     * @param rejections The amount of tests whose ray missed the box.
+     */
+    public static void countBoxes(long tests, long rejections) {
+        Counters counters = get();
+        if (counters == null) return;
+        counters.boxTests += tests;
+        counters.boxRejections += rejections;
+    }
+
+    /**
+     * Zeroes all the counters.
+     */
+    public void reset() {
+        primaryRays = shadowRays = reflectionRays = refractionRays = 0;
+        primitiveTests = boxTests = boxRejections = 0;
+        shadedPoints = depthSum = 0;
+    }
+}
@@ -3,6 +3,9 @@
  */
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 import static primitives.Util.isZero;
 
 /**
@@ -10,7 +13,10 @@ import static primitives.Util.isZero;
  *
  * @author Dan Zilberstein
  */
-public class Double3 {
+public class Double3 implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Zero triad (0,0,0)
      */
@@ -2,12 +2,18 @@ package primitives;
 
 import renderer.Blackboard;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * Represents the material properties of a geometry, including diffuse and specular reflection coefficients
  * <p>
  * and the shininess factor for specular reflection.
  */
-public class Material {
+public class Material implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Diffuse reflection coefficient.
      */
@@ -1,9 +1,15 @@
 package primitives;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 /**
  * The Point class represents a point in 3D space.
  */
-public class Point {
+public class Point implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * The 3D coordinates of this Point object.
      * package-friendly field
@@ -3,7 +3,9 @@ package primitives;
 import geometries.Intersectable.GeoPoint;
 import renderer.Blackboard;
 
-import java.util.LinkedList;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 import static primitives.Util.isZero;
@@ -11,7 +13,10 @@ import static primitives.Util.isZero;
 /**
  * The Ray class represents a ray in 3D space. A ray is defined by a starting point and a direction.
  */
-public class Ray {
+public class Ray implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Flag indicating whether Axis-Aligned Bounding Box (AABB) optimization is enabled.
      */
@@ -29,7 +34,7 @@ public class Ray {
      */
     public Ray(Point p, Vector v) {
         p0 = p;
-        dir = v.normalize();
+        dir = isZero(v.lengthSquared() - 1) ? v : v.normalize();
     }
 
     /**
@@ -40,9 +45,14 @@ public class Ray {
      * @param n The normal vector to the ray's plane.
      */
     public Ray(Point p, Vector v, Vector n) {
-        Vector epsVector = n.scale(n.dotProduct(v) > 0 ? DELTA : -DELTA);
-        p0 = isZero(v.dotProduct(n)) ? p : p.add(epsVector);
-        dir = v.normalize();
+        double nv = n.dotProduct(v);
+        if (isZero(nv))
+            p0 = p;
+        else {
+            double eps = nv > 0 ? DELTA : -DELTA;
+            p0 = new Point(p.xyz.d1 + n.xyz.d1 * eps, p.xyz.d2 + n.xyz.d2 * eps, p.xyz.d3 + n.xyz.d3 * eps);
+        }
+        dir = isZero(v.lengthSquared() - 1) ? v : v.normalize();
     }
 
     /**
@@ -77,7 +87,8 @@ public class Ray {
      * @return A point on the ray according to the parameter t
      */
     public Point getPoint(double t) {
-        return isZero(t) ? p0 : p0.add(dir.scale(t));
+        return isZero(t) ? p0
+                : new Point(p0.xyz.d1 + dir.xyz.d1 * t, p0.xyz.d2 + dir.xyz.d2 * t, p0.xyz.d3 + dir.xyz.d3 * t);
     }
 
     @Override
@@ -109,7 +120,7 @@ public class Ray {
         GeoPoint closest = null;
         double min = Double.POSITIVE_INFINITY;
         for (GeoPoint gp : geoPointList) {
-            double dist = p0.distance(gp.point);
+            double dist = gp.getDistance(this);
             if (min > dist) {
                 closest = gp;
                 min = dist;
@@ -133,11 +144,10 @@ public class Ray {
      * @return a list of rays representing the calculated beams
      */
     public List<Ray> calculateBeam(Blackboard blackboard) {
-        List<Ray> rays = new LinkedList<>();
-        List<Point> points = blackboard.setRays(this);
-        for (Point point : points) {
-            rays.add(new Ray(p0, point.subtract(p0)));
-        }
+        Blackboard.Board board = blackboard.place(this);
+        List<Ray> rays = new ArrayList<>(board.size());
+        for (int i = 0; i < board.size(); i++)
+            rays.add(board.constructRay(i));
         return rays;
     }
 
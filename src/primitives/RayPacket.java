@@ -0,0 +1,161 @@
+package primitives;
+
+/**
+ * A packet of coherent rays - such as the primary rays of a square of neighbouring pixels - that are traced together
+ * through a bounding volume hierarchy. Besides the rays, the packet keeps the heads and the inverses of the
+ * directions of the rays on plain coordinates, and their ranges over the whole packet: a box that the ranges show to
+ * be missed by all the rays is culled for the packet by a single test.
+ */
+public class RayPacket {
+    /**
+     * The largest amount of rays in a packet, so the active rays of a packet fit in the bits of a long
+     */
+    public static final int MAX_SIZE = 64;
+
+    private final Ray[] rays;
+    /**
+     * The coordinates of the heads of the rays - x, y, z of each ray
+     */
+    private final double[] origins;
+    /**
+     * The inverses of the direction coordinates of the rays - 1/x, 1/y, 1/z of each ray
+     */
+    private final double[] inverses;
+    private final double[] minOrigin = new double[3];
+    private final double[] maxOrigin = new double[3];
+    private final double[] minInverse = new double[3];
+    private final double[] maxInverse = new double[3];
+    /**
+     * The sum of the directions of the rays
+     */
+    private final double[] direction = new double[3];
+
+    /**
+     * Constructs a packet of rays.
+     *
+     * @param rays The rays, used as they are.
+     * @throws IllegalArgumentException if there are no rays or more than {@value #MAX_SIZE}
+     */
+    public RayPacket(Ray... rays) {
+        if (rays.length == 0 || rays.length > MAX_SIZE)
+            throw new IllegalArgumentException("A ray packet must have 1 to " + MAX_SIZE + " rays");
+        this.rays = rays;
+        origins = new double[rays.length * 3];
+        inverses = new double[rays.length * 3];
+        for (int axis = 0; axis < 3; ++axis) {
+            minOrigin[axis] = minInverse[axis] = Double.POSITIVE_INFINITY;
+            maxOrigin[axis] = maxInverse[axis] = Double.NEGATIVE_INFINITY;
+        }
+        for (int r = 0; r < rays.length; ++r) {
+            Point p0 = rays[r].getP0();
+            Vector dir = rays[r].getDir();
+            origins[r * 3] = p0.getX();
+            origins[r * 3 + 1] = p0.getY();
+            origins[r * 3 + 2] = p0.getZ();
+            inverses[r * 3] = 1 / dir.getX();
+            inverses[r * 3 + 1] = 1 / dir.getY();
+            inverses[r * 3 + 2] = 1 / dir.getZ();
+            direction[0] += dir.getX();
+            direction[1] += dir.getY();
+            direction[2] += dir.getZ();
+            for (int axis = 0; axis < 3; ++axis) {
+                minOrigin[axis] = Math.min(minOrigin[axis], origins[r * 3 + axis]);
+                maxOrigin[axis] = Math.max(maxOrigin[axis], origins[r * 3 + axis]);
+                minInverse[axis] = Math.min(minInverse[axis], inverses[r * 3 + axis]);
+                maxInverse[axis] = Math.max(maxInverse[axis], inverses[r * 3 + axis]);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of rays in the packet.
+     *
+     * @return The amount of rays.
+     */
+    public int size() {
+        return rays.length;
+    }
+
+    /**
+     * Returns a ray of the packet.
+     *
+     * @param ray The index of the ray.
+     * @return The ray.
+     */
+    public Ray getRay(int ray) {
+        return rays[ray];
+    }
+
+    /**
+     * Returns a coordinate of the head of a ray of the packet.
+     *
+     * @param ray  The index of the ray.
+     * @param axis The axis of the coordinate - 0 for x, 1 for y, 2 for z.
+     * @return The coordinate.
+     */
+    public double getOrigin(int ray, int axis) {
+        return origins[ray * 3 + axis];
+    }
+
+    /**
+     * Returns the inverse of a direction coordinate of a ray of the packet.
+     *
+     * @param ray  The index of the ray.
+     * @param axis The axis of the coordinate - 0 for x, 1 for y, 2 for z.
+     * @return The inverse of the coordinate, infinite if the ray is parallel to the axis.
+     */
+    public double getInverse(int ray, int axis) {
+        return inverses[ray * 3 + axis];
+    }
+
+    /**
+     * Returns the smallest coordinate of the heads of the rays of the packet on an axis.
+     *
+     * @param axis The axis - 0 for x, 1 for y, 2 for z.
+     * @return The smallest coordinate.
+     */
+    public double getMinOrigin(int axis) {
+        return minOrigin[axis];
+    }
+
+    /**
+     * Returns the largest coordinate of the heads of the rays of the packet on an axis.
+     *
+     * @param axis The axis - 0 for x, 1 for y, 2 for z.
+     * @return The largest coordinate.
+     */
+    public double getMaxOrigin(int axis) {
+        return maxOrigin[axis];
+    }
+
+    /**
+     * Returns the smallest inverse of the direction coordinates of the rays of the packet on an axis.
+     *
+     * @param axis The axis - 0 for x, 1 for y, 2 for z.
+     * @return The smallest inverse.
+     */
+    public double getMinInverse(int axis) {
+        return minInverse[axis];
+    }
+
+    /**
+     * Returns the largest inverse of the direction coordinates of the rays of the packet on an axis.
+     *
+     * @param axis The axis - 0 for x, 1 for y, 2 for z.
+     * @return The largest inverse.
+     */
+    public double getMaxInverse(int axis) {
+        return maxInverse[axis];
+    }
+
+    /**
+     * Returns a coordinate of the sum of the directions of the rays of the packet - its sign tells the general
+     * direction of the packet on the axis.
+     *
+     * @param axis The axis - 0 for x, 1 for y, 2 for z.
+     * @return The coordinate of the sum of the directions.
+     */
+    public double getDirection(int axis) {
+        return direction[axis];
+    }
+}
@@ -1,9 +1,16 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
+import java.io.Serial;
+
 /**
  * The Vector class represents a vector in 3D space. A vctor is defined by 3 coordinates.
  */
 public class Vector extends Point {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     /**
      * Vector for the X axis
      */
@@ -31,7 +38,7 @@ public class Vector extends Point {
      */
     public Vector(double d1, double d2, double d3) {
         super(d1, d2, d3);
-        if (xyz.equals(Double3.ZERO)) throw new IllegalArgumentException("vector cannot be zero");
+        if (isZero(d1) && isZero(d2) && isZero(d3)) throw new IllegalArgumentException("vector cannot be zero");
     }
 
     /**
@@ -43,7 +50,8 @@ public class Vector extends Point {
      */
     Vector(Double3 coordinates) {
         super(coordinates);
-        if (xyz.equals(Double3.ZERO)) throw new IllegalArgumentException("vector cannot be zero");
+        if (isZero(xyz.d1) && isZero(xyz.d2) && isZero(xyz.d3))
+            throw new IllegalArgumentException("vector cannot be zero");
     }
 
     /**
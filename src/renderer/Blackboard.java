@@ -4,33 +4,31 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.LinkedList;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-
-import static primitives.Util.isZero;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Blackboard class represents a virtual blackboard used in rendering.
  * It is responsible for managing the placement and properties of rays on the blackboard.
+ * <p>
+ * The points of the blackboard are taken from a jittered grid pattern on the unit disk, which is computed once
+ * for every density and shared by all the blackboards of that density. Placing the blackboard in front of a ray
+ * only transforms the pattern to the basis of the ray, so a blackboard may serve several render threads.
  */
-public class Blackboard {
-    private static final Random random = new Random();
+public class Blackboard implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
 
     /**
-     * The center point of the blackboard.
+     * The patterns of the densities computed so far
      */
-    private Point pC;
-
-    /**
-     * The upward direction vector on the blackboard.
-     */
-    private Vector vUp;
-
-    /**
-     * The right direction vector on the blackboard.
-     */
-    private Vector vRight;
+    private static final Map<Integer, double[]> patterns = new ConcurrentHashMap<>();
 
     /**
      * The width of the blackboard. Default value is 0.
@@ -47,10 +45,10 @@ public class Blackboard {
      */
     private static final double distance = 3;
 
-    private int relative = (int) (densityBeam * Math.sqrt(1.27324));
-    private double align = (relative - 1) / 2d;
-    private double rG;
-    private double halfRG;
+    /**
+     * The pattern of the density, as pairs of coordinates on the unit disk
+     */
+    private double[] pattern = pattern(densityBeam);
 
     /**
      * Constructs a blackboard with the specified width.
@@ -59,8 +57,6 @@ public class Blackboard {
      */
     public Blackboard(double kB) {
         width = kB;
-        rG = width / relative;
-        halfRG = rG / 2;
     }
 
     /**
@@ -80,10 +76,7 @@ public class Blackboard {
      */
     public Blackboard setDensityBeam(int densityBeam) {
         this.densityBeam = densityBeam;
-        relative = (int) (densityBeam * Math.sqrt(1.27324));
-        align = (relative - 1) / 2d;
-        rG = width / relative;
-        halfRG = rG / 2;
+        pattern = pattern(densityBeam);
         return this;
     }
 
@@ -104,11 +97,42 @@ public class Blackboard {
      */
     public Blackboard setWidth(double width) {
         this.width = width;
-        rG = width / relative;
-        halfRG = rG / 2;
         return this;
     }
 
+    /**
+     * Gets the pattern of a density, computing it on its first use. The disk of the blackboard is covered by a grid
+     * of about density x density cells of equal area, and a point is taken at a random place in every cell whose
+     * point falls inside the disk. The random generator is seeded by the density, so the pattern is the same on
+     * every run.
+     *
+     * @param density The density of rays in the beam.
+     * @return The pattern, as pairs of coordinates on the unit disk.
+     */
+    private static double[] pattern(int density) {
+        return patterns.computeIfAbsent(density, d -> {
+            if (d <= 1) return new double[]{0, 0};
+            // the grid covers the square around the disk, so it has 4/pi more cells than the disk
+            int relative = (int) (d * Math.sqrt(1.27324));
+            double align = (relative - 1) / 2d;
+            double cell = 2d / relative;
+            Random random = new Random(d);
+            double[] points = new double[2 * relative * relative];
+            int size = 0;
+            for (int i = 0; i < relative; i++) {
+                for (int j = 0; j < relative; j++) {
+                    double x = (j - align + random.nextDouble() - 0.5) * cell;
+                    double y = -(i - align) * cell + (random.nextDouble() - 0.5) * cell;
+                    if (x * x + y * y < 1) {
+                        points[size++] = x;
+                        points[size++] = y;
+                    }
+                }
+            }
+            return Arrays.copyOf(points, size);
+        });
+    }
+
     /**
      * Sets the rays for the given ray.
      *
@@ -116,44 +140,138 @@ public class Blackboard {
      * @return The list of points representing the rays.
      */
     public List<Point> setRays(Ray ray) {
+        Board board = place(ray);
+        List<Point> points = new ArrayList<>(board.size());
+        for (int i = 0; i < board.size(); i++)
+            points.add(board.getPoint(i));
+        return points;
+    }
+
+    /**
+     * Places the blackboard in front of the given ray, perpendicular to it.
+     *
+     * @param ray The ray the blackboard is placed for.
+     * @return The placed blackboard.
+     */
+    public Board place(Ray ray) {
         Vector vRay = ray.getDir();
-        Point pRay = ray.getP0();
-        pC = pRay.add(vRay.scale(distance));
+        Point pC = ray.getP0().add(vRay.scale(distance));
 
+        Vector vUp;
         if (vRay.equals(Vector.Z) || vRay.equals(Vector.MINUS_Z))
             vUp = Vector.Y;
         else
             vUp = new Vector(-vRay.getY(), vRay.getX(), 0).normalize();
 
-        this.vRight = vRay.crossProduct(vUp);
-        return constructGrid(ray);
+        return new Board(ray.getP0(), pC, vUp, vRay.crossProduct(vUp), width / 2, pattern);
     }
 
     /**
-     * Constructs a grid of points along the given ray.
-     *
-     * @param ray the ray to construct the grid along
-     * @return a list of points forming the grid
+     * The blackboard placed in front of a ray. Its rays are either the rays through the points of the pattern of its
+     * density, or rays through any points of the square [-1,1]x[-1,1] mapped on the disk, so a beam may be sampled
+     * on a regular grid of the square, at any resolution.
      */
-    private List<Point> constructGrid(Ray ray) {
-        if (width == 0 || densityBeam <= 1)
-            return List.of(ray.getP0().add(ray.getDir()));
-
-        List<Point> points = new LinkedList<>();
-        for (int i = 0; i < relative; i++) {
-            for (int j = 0; j < relative; j++) {
-                double randomX = random.nextDouble() * rG - halfRG;
-                double randomY = random.nextDouble() * rG - halfRG;
-                double yI = -(i - align) * rG + randomY;
-                double xJ = (j - align) * rG + randomX;
-
-                Point pIJ = pC;
-                if (!isZero(xJ)) pIJ = pIJ.add(vRight.scale(xJ));
-                if (!isZero(yI)) pIJ = pIJ.add(vUp.scale(yI));
-                if (pIJ.distance(pC) < width / 2) points.add(pIJ);
+    public static class Board {
+        private final Point p0;
+        private final Point pC;
+        private final Vector vUp;
+        private final Vector vRight;
+        private final double radius;
+        private final double[] pattern;
+
+        /**
+         * Constructs a placed blackboard.
+         *
+         * @param p0     The head of the rays of the beam.
+         * @param pC     The center point of the blackboard.
+         * @param vUp    The upward direction vector on the blackboard.
+         * @param vRight The right direction vector on the blackboard.
+         * @param radius  The radius of the blackboard.
+         * @param pattern The pattern of the density of the blackboard.
+         */
+        private Board(Point p0, Point pC, Vector vUp, Vector vRight, double radius, double[] pattern) {
+            this.p0 = p0;
+            this.pC = pC;
+            this.vUp = vUp;
+            this.vRight = vRight;
+            this.radius = radius;
+            this.pattern = pattern;
+        }
+
+        /**
+         * Gets the amount of points of the pattern of the blackboard.
+         *
+         * @return The amount of points.
+         */
+        public int size() {
+            return radius == 0 ? 1 : pattern.length / 2;
+        }
+
+        /**
+         * Gets a point of the pattern on the placed blackboard.
+         *
+         * @param index The index of the point, lower than {@link #size()}.
+         * @return The point.
+         */
+        public Point getPoint(int index) {
+            if (radius == 0) return pC;
+            double right = radius * pattern[2 * index];
+            double up = radius * pattern[2 * index + 1];
+            return new Point(pC.getX() + vRight.getX() * right + vUp.getX() * up,
+                    pC.getY() + vRight.getY() * right + vUp.getY() * up,
+                    pC.getZ() + vRight.getZ() * right + vUp.getZ() * up);
+        }
+
+        /**
+         * Constructs the ray of the beam through a point of the pattern.
+         *
+         * @param index The index of the point, lower than {@link #size()}.
+         * @return The ray from the head of the beam through the point.
+         */
+        public Ray constructRay(int index) {
+            return radius == 0 ? constructDiskRay(0, 0) : constructDiskRay(pattern[2 * index], pattern[2 * index + 1]);
+        }
+
+        /**
+         * Constructs the ray of the beam through a point of the blackboard. The square is mapped on the disk by the
+         * concentric mapping of Shirley and Chiu, which keeps the areas, so equal cells of the square are equal parts
+         * of the beam and the corners of the square are on the rim of the disk.
+         *
+         * @param x The horizontal coordinate in the square, between -1 and 1.
+         * @param y The vertical coordinate in the square, between -1 and 1.
+         * @return The ray from the head of the beam through the point of the blackboard.
+         */
+        public Ray constructRay(double x, double y) {
+            double r;
+            double angle;
+            if (x == 0 && y == 0) {
+                r = 0;
+                angle = 0;
+            } else if (Math.abs(x) > Math.abs(y)) {
+                r = x;
+                angle = Math.PI / 4 * (y / x);
+            } else {
+                r = y;
+                angle = Math.PI / 2 - Math.PI / 4 * (x / y);
             }
+            return constructDiskRay(r * Math.cos(angle), r * Math.sin(angle));
+        }
+
+        /**
+         * Constructs the ray of the beam through a point of the disk.
+         *
+         * @param x The coordinate of the point along the right direction, in radii of the blackboard.
+         * @param y The coordinate of the point along the up direction, in radii of the blackboard.
+         * @return The ray from the head of the beam through the point of the blackboard.
+         */
+        private Ray constructDiskRay(double x, double y) {
+            double right = radius * x;
+            double up = radius * y;
+            return new Ray(p0, new Vector(
+                    pC.getX() + vRight.getX() * right + vUp.getX() * up - p0.getX(),
+                    pC.getY() + vRight.getY() * right + vUp.getY() * up - p0.getY(),
+                    pC.getZ() + vRight.getZ() * right + vUp.getZ() * up - p0.getZ()));
         }
-        return points;
     }
 
 }
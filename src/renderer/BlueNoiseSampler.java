@@ -0,0 +1,71 @@
+package renderer;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A sampler of blue noise sets: points that are spread evenly without any regular structure. A set of every size
+ * is made once by Mitchell's best candidate algorithm on the torus, and the sets of the seeds are its rotations
+ * modulo 1, which keep the distances between the points on the torus.
+ */
+public class BlueNoiseSampler implements Sampler, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The amount of candidates of every point is this factor times the amount of points taken so far
+     */
+    private static final int CANDIDATES = 10;
+
+    /**
+     * The sets of the sizes made so far
+     */
+    private static final Map<Integer, double[]> sets = new ConcurrentHashMap<>();
+
+    @Override
+    public void sample(double[] points, int count, long seed) {
+        double[] set = sets.computeIfAbsent(count, BlueNoiseSampler::bestCandidates);
+        double dx = SampleContext.fraction(SampleContext.hash(seed));
+        double dy = SampleContext.fraction(SampleContext.hash(seed + 1));
+        for (int i = 0; i < count; i++) {
+            points[2 * i] = HaltonSampler.rotate(set[2 * i], dx);
+            points[2 * i + 1] = HaltonSampler.rotate(set[2 * i + 1], dy);
+        }
+    }
+
+    /**
+     * Makes a blue noise set by Mitchell's best candidate algorithm: every point is the candidate that is the
+     * farthest from the points taken before it.
+     *
+     * @param count The amount of points.
+     * @return The coordinates of the points.
+     */
+    private static double[] bestCandidates(int count) {
+        Random random = new Random(count);
+        double[] set = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            double best = -1;
+            for (int c = 0; c < CANDIDATES * i + 1; c++) {
+                double x = random.nextDouble();
+                double y = random.nextDouble();
+                double nearest = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < i && nearest > best; j++) {
+                    double dx = Math.abs(x - set[2 * j]);
+                    double dy = Math.abs(y - set[2 * j + 1]);
+                    dx = Math.min(dx, 1 - dx);
+                    dy = Math.min(dy, 1 - dy);
+                    nearest = Math.min(nearest, dx * dx + dy * dy);
+                }
+                if (nearest > best) {
+                    best = nearest;
+                    set[2 * i] = x;
+                    set[2 * i + 1] = y;
+                }
+            }
+        }
+        return set;
+    }
+}
@@ -2,8 +2,16 @@ package renderer;
 
 import primitives.*;
 
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static primitives.Util.isZero;
 
@@ -11,7 +19,10 @@ import static primitives.Util.isZero;
  * The Camera class represents a camera in a 3D space.
  * The camera is defined by its position and orientation.
  */
-public class Camera {
+public class Camera implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private final Point p0;
     private final Vector vTo;
     private Vector vUp;
@@ -19,8 +30,34 @@ public class Camera {
     private double width;
     private double height;
     private double distance;
-    private ImageWriter imageWriter;
+    private transient ImageWriter imageWriter;
     private RayTracerBase rayTracer;
+    private int threadsCount = 0;
+    private int tileSize = 32;
+    private double printInterval = 0;
+    private int adaptiveLevel = 0;
+    private double adaptiveThreshold = 10;
+    private long timeBudget = 0;
+    private double convergenceThreshold = 0;
+    private int maxSamples = 64;
+    private long previewInterval = 0;
+    private transient TileCache tileCache = null;
+    private boolean renderStats = false;
+    private boolean pixelTimes = false;
+    private int packetSide = 0;
+
+    /**
+     * The step between the pixels of the first and coarsest preview of the progressive rendering
+     */
+    private static final int COARSE_STEP = 16;
+    /**
+     * The least amount of samples of a converged pixel in the progressive rendering
+     */
+    private static final int MIN_PROGRESSIVE_SAMPLES = 8;
+    /**
+     * The sampler of the points of the samples in the pixels in the progressive rendering
+     */
+    private static final Sampler PIXEL_SAMPLER = new HaltonSampler();
 
     /**
      * Constructs a camera with the specified position, target, and up vectors.
@@ -94,6 +131,15 @@ public class Camera {
         return vRight;
     }
 
+    /**
+     * Returns the image writer of the camera.
+     *
+     * @return The image writer, or null if it is not set
+     */
+    public ImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
     /**
      * Returns the width of the viewport.
      *
@@ -155,16 +201,39 @@ public class Camera {
      * @return A new Ray object representing the ray passing through the specified pixel in the viewport
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
+        return constructRay(nX, nY, (double) j, (double) i);
+    }
+
+    /**
+     * Constructs a new ray from the camera's position through a point of the viewport given in pixel units.
+     * The center of the pixel (j, i) is the point (j, i), so its corners are at a distance of 0.5 on each axis.
+     *
+     * @param nX The number of pixels in the x-axis of the viewport
+     * @param nY The number of pixels in the y-axis of the viewport
+     * @param x  The x-coordinate of the point in pixels
+     * @param y  The y-coordinate of the point in pixels
+     * @return A new Ray object representing the ray passing through the specified point in the viewport
+     */
+    public Ray constructRay(int nX, int nY, double x, double y) {
         double rY = Util.alignZero(height / nY);
         double rX = Util.alignZero(height / nX);
-        Point pC = p0.add(vTo.scale(distance));
-        double yI = -Util.alignZero(i - Util.alignZero(nY - 1) / 2) * Util.alignZero(rY);
-        double xJ = Util.alignZero(j - Util.alignZero(nX - 1) / 2) * Util.alignZero(rX);
-        Point pIJ = pC;
-        if (!isZero(xJ)) pIJ = pIJ.add(vRight.scale(xJ));
-        if (!isZero(yI)) pIJ = pIJ.add(vUp.scale(yI));
-        Vector vIJ = pIJ.subtract(p0);
-        return new Ray(p0, vIJ);
+        double yI = -Util.alignZero(y - Util.alignZero(nY - 1) / 2) * Util.alignZero(rY);
+        double xJ = Util.alignZero(x - Util.alignZero(nX - 1) / 2) * Util.alignZero(rX);
+        // the point is found on plain coordinates - only the ray direction is allocated
+        double px = p0.getX() + vTo.getX() * distance;
+        double py = p0.getY() + vTo.getY() * distance;
+        double pz = p0.getZ() + vTo.getZ() * distance;
+        if (!isZero(xJ)) {
+            px += vRight.getX() * xJ;
+            py += vRight.getY() * xJ;
+            pz += vRight.getZ() * xJ;
+        }
+        if (!isZero(yI)) {
+            px += vUp.getX() * yI;
+            py += vUp.getY() * yI;
+            pz += vUp.getZ() * yI;
+        }
+        return new Ray(p0, new Vector(px - p0.getX(), py - p0.getY(), pz - p0.getZ()));
     }
 
     /**
@@ -230,32 +299,563 @@ public class Camera {
     }
 
     /**
-     * Renders the image by casting rays for each pixel in the imageWriter's dimensions
-     * and writing the resulting color to the image.
-     * Checks if all required fields are initialized before rendering.
+     * Sets the amount of threads used for rendering.
+     * 0 renders on the calling thread, a negative value uses all the available processors.
+     *
+     * @param threads The amount of render threads.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setMultithreading(int threads) {
+        this.threadsCount = threads < 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        return this;
+    }
+
+    /**
+     * Sets the side of the square tiles the image is split into for rendering.
+     *
+     * @param tileSize The side of a tile in pixels.
+     * @return The camera object itself for method chaining.
+     * @throws IllegalArgumentException if the tile size is not positive.
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the interval of the rendering progress printing.
+     *
+     * @param interval The print interval in percents, 0 for no printing.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setDebugPrint(double interval) {
+        this.printInterval = interval;
+        return this;
+    }
+
+    /**
+     * Sets the adaptive super sampling (anti-aliasing).
+     * The colors are sampled in the corners of the pixels, and a pixel (or a part of it) whose corner colors differ
+     * by more than the threshold is split into 4 quarters, recursively up to the given level.
+     * A corner is shared by the neighbouring pixels and quarters, also across the borders of the tiles, and it is
+     * traced once, so a smooth area costs about a ray per pixel while an edge gets up to 4^level sub-pixels.
+     *
+     * @param level The maximal subdivision level, 0 for a single ray through the pixel center.
+     * @return The camera object itself for method chaining.
+     * @throws IllegalArgumentException if the level is negative or larger than 10.
+     */
+    public Camera setAdaptiveSuperSampling(int level) {
+        if (level < 0 || level > 10) throw new IllegalArgumentException("Adaptive sampling level must be 0 to 10");
+        this.adaptiveLevel = level;
+        return this;
+    }
+
+    /**
+     * Sets the largest difference between the corner colors of a pixel (in any of the color components)
+     * that doesn't need a subdivision in the adaptive super sampling.
+     *
+     * @param threshold The color difference threshold.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setAdaptiveThreshold(double threshold) {
+        this.adaptiveThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the wall-clock time budget of the progressive rendering. The rendering stops when the budget is over,
+     * except for the first and coarsest preview of the image, which is always completed.
+     *
+     * @param millis The time budget in milliseconds, 0 for no budget.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setTimeBudget(long millis) {
+        this.timeBudget = millis;
+        return this;
+    }
+
+    /**
+     * Sets the convergence threshold of the progressive rendering. A pixel of at least
+     * {@value #MIN_PROGRESSIVE_SAMPLES} samples whose standard error of the mean brightness is not above
+     * the threshold gets no more samples.
+     *
+     * @param threshold The largest standard error of a converged pixel, 0 for no convergence test.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setConvergenceThreshold(double threshold) {
+        this.convergenceThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the largest amount of samples of a pixel in the progressive rendering.
+     *
+     * @param samples The amount of samples.
+     * @return The camera object itself for method chaining.
+     * @throws IllegalArgumentException if the amount is not positive.
+     */
+    public Camera setMaxSamples(int samples) {
+        if (samples <= 0) throw new IllegalArgumentException("Samples amount must be positive");
+        this.maxSamples = samples;
+        return this;
+    }
+
+    /**
+     * Sets the interval of the preview images of the progressive rendering. A preview is written to the image file
+     * when the interval has passed since the last one, after a whole step of the rendering.
+     *
+     * @param millis The preview interval in milliseconds, 0 for no previews.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setPreviewInterval(long millis) {
+        this.previewInterval = millis;
+        return this;
+    }
+
+    /**
+     * Sets the cache of the rendered tiles. A tile of {@link #renderImage()} whose camera, resolution, super sampling,
+     * ray tracer and scene didn't change since it was cached is loaded from the cache instead of being rendered.
+     *
+     * @param tileCache The tile cache, null for no caching.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setTileCache(TileCache tileCache) {
+        this.tileCache = tileCache;
+        return this;
+    }
+
+    /**
+     * Sets whether {@link #renderImage()} collects the counts of the rays, of the intersection tests and of the
+     * recursion depth into the statistics it returns, and measures the time of every pixel. The times of the tiles
+     * are always measured. The counting slows the rendering down a little, without it the counting sites cost a
+     * single check.
+     *
+     * @param renderStats {@code true} to collect the counts.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setRenderStats(boolean renderStats) {
+        this.renderStats = renderStats;
+        return this;
+    }
+
+    /**
+     * Sets whether {@link #renderImage()} measures the time of every pixel, for the heatmap of the statistics it
+     * returns, without collecting the counts. Without it and without the counts, the pixels are rendered without
+     * reading the clock and the statistics keep no pixel times.
+     *
+     * @param pixelTimes {@code true} to measure the pixel times.
+     * @return The camera object itself for method chaining.
+     */
+    public Camera setPixelTimes(boolean pixelTimes) {
+        this.pixelTimes = pixelTimes;
+        return this;
+    }
+
+    /**
+     * Sets the tracing of the primary rays of {@link #renderImage()} in packets of the squares of neighbouring pixels
+     * of a tile. The rays of a packet are coherent, so a bounding volume hierarchy culls its nodes for the whole
+     * packet at once, and each ray gets the same color it gets alone. The packets are not used with the adaptive
+     * super sampling.
+     *
+     * @param side The side of the square of pixels of a packet, 0 for tracing every ray alone.
+     * @return The camera object itself for method chaining.
+     * @throws IllegalArgumentException if the side is negative or a packet would have more than
+     *                                  {@value RayPacket#MAX_SIZE} rays.
+     */
+    public Camera setRayPackets(int side) {
+        if (side < 0 || side * side > RayPacket.MAX_SIZE)
+            throw new IllegalArgumentException("Ray packet side must be 0 to 8");
+        this.packetSide = side;
+        return this;
+    }
+
+    /**
+     * Checks that all the fields required for rendering are initialized.
      *
      * @throws MissingResourceException if any required field is uninitialized.
      */
-    public void renderImage() throws MissingResourceException {
+    void checkRenderFields() throws MissingResourceException {
         List<Object> lst = List.of(p0, vTo, vRight, vUp, width, height, distance, imageWriter, rayTracer);
         for (Object obj : lst) {
             if (obj == null) {
                 throw new MissingResourceException("field is uninitialized", "Camera", obj.toString());
             }
         }
+    }
 
-        int numY = imageWriter.getNy();
+    /**
+     * Renders the image by casting rays for each pixel in the imageWriter's dimensions
+     * and writing the resulting color to the image.
+     * The image is split into tiles which are rendered on the calling thread or, if multithreading is set,
+     * by a pool of render threads. Each pixel is computed independently so both ways produce the same image.
+     * If a tile cache is set, the tiles are loaded from it when possible, and the rendered tiles are stored in it.
+     * Checks if all required fields are initialized before rendering.
+     *
+     * @return The statistics of the rendering.
+     * @throws MissingResourceException if any required field is uninitialized.
+     */
+    public RenderStats renderImage() throws MissingResourceException {
+        checkRenderFields();
+
+        long start = System.nanoTime();
         int numX = imageWriter.getNx();
+        int numY = imageWriter.getNy();
+        String renderKey = tileCache == null ? null : tileCache.key(p0, vTo, vUp, vRight, width, height, distance,
+                numX, numY, adaptiveLevel, adaptiveThreshold, rayTracer);
+        TileManager tiles = tileManager();
+        boolean measurePixels = renderStats || pixelTimes;
+        RenderStats stats = new RenderStats(numX, numY, tiles.getTilesCount(), measurePixels);
+        RenderStats pixelStats = measurePixels ? stats : null;
+        // the corners of the adaptive sampling on the borders of the tiles are shared by the neighbouring tiles
+        Map<Long, Color> borders = adaptiveLevel == 0 ? null : new ConcurrentHashMap<>();
+        if (renderStats) Counters.start();
+        try {
+            renderTiles(tiles, tile -> {
+                long tileStart = System.nanoTime();
+                Counters counters = Counters.get();
+                if (counters != null) counters.reset();
+                String key = renderKey == null ? null : tileCache.tileKey(renderKey, tile);
+                if (key == null || !tileCache.load(key, tile, imageWriter)) {
+                    renderPixels(tile, numX, numY, imageWriter, 0, 0, borders, pixelStats);
+                    if (key != null) tileCache.store(key, tile, imageWriter);
+                }
+                stats.addTile(tiles.getIndex(tile), System.nanoTime() - tileStart, counters);
+            });
+        } finally {
+            if (renderStats) Counters.stop();
+        }
+        stats.setRenderTime(System.nanoTime() - start);
+
+        writeToImage();
+        return stats;
+    }
+
+    /**
+     * Makes the tile manager of a rendering of the image, by the tiles and the progress printing of the camera.
+     *
+     * @return The tile manager.
+     */
+    TileManager tileManager() {
+        return new TileManager(imageWriter.getNx(), imageWriter.getNy(), tileSize, printInterval);
+    }
+
+    /**
+     * Renders a tile of the image into an image writer of the size of the tile, whose top left pixel is the top left
+     * pixel of the tile. It is the work unit of the render workers of {@link RenderCoordinator}, and it produces the
+     * same pixels as {@link #renderImage()}. The corners of the adaptive sampling on the borders of the tile are not
+     * shared with the neighbouring tiles, which are rendered by other workers.
+     *
+     * @param tile   The tile.
+     * @param numX   The amount of pixels by width of the image.
+     * @param numY   The amount of pixels by height of the image.
+     * @param target The image writer of the tile.
+     */
+    void renderTile(TileManager.Tile tile, int numX, int numY, ImageWriter target) {
+        renderPixels(tile, numX, numY, target, tile.x0(), tile.y0(), adaptiveLevel == 0 ? null : new HashMap<>(),
+                null);
+    }
+
+    /**
+     * Renders the pixels of a tile into an image writer, a pixel at a time or, if ray packets are set and there is
+     * no adaptive super sampling, by the packets of the squares of pixels of the tile.
+     *
+     * @param tile    The tile.
+     * @param numX    The amount of pixels by width of the image.
+     * @param numY    The amount of pixels by height of the image.
+     * @param target  The image writer.
+     * @param x0      The column of the image whose pixels are written to the first column of the image writer.
+     * @param y0      The row of the image whose pixels are written to the first row of the image writer.
+     * @param borders The colors of the corners of the adaptive sampling on the borders of the tiles that were
+     *                already traced, null without the adaptive super sampling.
+     * @param stats   The statistics the times of the pixels are set in, null for not measuring them.
+     */
+    private void renderPixels(TileManager.Tile tile, int numX, int numY, ImageWriter target, int x0, int y0,
+                              Map<Long, Color> borders, RenderStats stats) {
+        if (packetSide == 0 || adaptiveLevel > 0) {
+            Corners corners = borders == null ? null
+                    : new Corners(new HashMap<>(), borders, tileSize << adaptiveLevel);
+            for (int i = tile.y0(); i < tile.y1(); i++)
+                for (int j = tile.x0(); j < tile.x1(); j++) {
+                    if (stats == null) {
+                        target.writePixel(j - x0, i - y0, pixelColor(numX, numY, i, j, corners));
+                        continue;
+                    }
+                    long pixelStart = System.nanoTime();
+                    target.writePixel(j - x0, i - y0, pixelColor(numX, numY, i, j, corners));
+                    stats.setPixelTime(j, i, System.nanoTime() - pixelStart);
+                }
+            return;
+        }
+
+        for (int y = tile.y0(); y < tile.y1(); y += packetSide)
+            for (int x = tile.x0(); x < tile.x1(); x += packetSide) {
+                long packetStart = stats == null ? 0 : System.nanoTime();
+                int width = Math.min(packetSide, tile.x1() - x);
+                int height = Math.min(packetSide, tile.y1() - y);
+                Ray[] rays = new Ray[width * height];
+                for (int r = 0; r < rays.length; ++r)
+                    rays[r] = constructRay(numX, numY, x + r % width, y + r / width);
+                int px = x, py = y;
+                Color[] colors = rayTracer.tracePacket(new RayPacket(rays),
+                        r -> SampleContext.setPixel(px + r % width, py + r / width));
+                // the time of a packet is shared evenly by its pixels
+                long pixelTime = stats == null ? 0 : (System.nanoTime() - packetStart) / rays.length;
+                for (int r = 0; r < rays.length; ++r) {
+                    int j = x + r % width, i = y + r / width;
+                    target.writePixel(j - x0, i - y0, colors[r]);
+                    if (stats != null) stats.setPixelTime(j, i, pixelTime);
+                }
+            }
+    }
+
+    /**
+     * Calculates the color of a pixel, by a single ray through its center or by the adaptive super sampling.
+     *
+     * @param numX    The amount of pixels by width of the image.
+     * @param numY    The amount of pixels by height of the image.
+     * @param i       The row of the pixel.
+     * @param j       The column of the pixel.
+     * @param corners The colors of the grid corners that were already traced, null without the adaptive super
+     *                sampling.
+     * @return The color of the pixel.
+     */
+    private Color pixelColor(int numX, int numY, int i, int j, Corners corners) {
+        if (corners == null) return castRay(numX, numY, i, j);
+        int cells = 1 << adaptiveLevel;
+        return adaptiveColor(numX, numY, j * cells, i * cells, cells, corners);
+    }
+
+    /**
+     * Renders the image progressively, so a preview of the whole image is ready early and gets better with time.
+     * <ol>
+     * <li>The first sample of every pixel is traced through its center, as in {@link #renderImage()}, in a coarse
+     * to fine order: first every {@value #COARSE_STEP}th pixel of every {@value #COARSE_STEP}th row, then the
+     * pixels between them, halving the step down to a single pixel. A pixel that has no sample yet is shown by the
+     * color of the closest traced pixel above and left of it.</li>
+     * <li>More samples are then added to all the pixels in passes, at points of a Halton sequence in the pixel
+     * that is shifted per pixel, and the pixel is the mean of its samples.</li>
+     * </ol>
+     * The rendering stops after {@link #setMaxSamples(int) the largest amount of samples}, when all the pixels
+     * {@link #setConvergenceThreshold(double) converged}, or when the {@link #setTimeBudget(long) time budget} is
+     * over. The samples are accumulated in float buffers, the previews and the final image are written to the image
+     * file. The samples of the pixels do the anti-aliasing, so the adaptive super sampling is not used.
+     *
+     * @return The amount of samples all the unconverged pixels got, 0 if the budget was over before every pixel got
+     * its first sample.
+     * @throws MissingResourceException if any required field is uninitialized.
+     */
+    public int renderProgressive() throws MissingResourceException {
+        checkRenderFields();
 
-        for (int i = 0; i < numY; i++) {
-            for (int j = 0; j < numX; j++) {
-                imageWriter.writePixel(j, i, castRay(numX, numY, i, j));
+        int numX = imageWriter.getNx();
+        int numY = imageWriter.getNy();
+        SampleBuffer buffer = new SampleBuffer(numX, numY);
+        long start = System.nanoTime();
+        long deadline = timeBudget > 0 ? start + timeBudget * 1_000_000 : Long.MAX_VALUE;
+        long[] lastPreview = {start};
+
+        // the first samples, coarse to fine; the coarsest step is always completed
+        int filled = COARSE_STEP;
+        for (int step = COARSE_STEP; step >= 1; step /= 2) {
+            int level = step;
+            long end = step == COARSE_STEP ? Long.MAX_VALUE : deadline;
+            renderTiles(new TileManager(numX, numY, tileSize, 0), tile -> {
+                for (int i = tile.y0(); i < tile.y1() && System.nanoTime() < end; i++)
+                    for (int j = tile.x0(); j < tile.x1(); j++)
+                        if (i % level == 0 && j % level == 0
+                                && (level == COARSE_STEP || i % (2 * level) != 0 || j % (2 * level) != 0))
+                            buffer.add(j, i, castRay(numX, numY, i, j));
+            });
+            if (System.nanoTime() >= end) {
+                writeBuffer(buffer, filled);
+                return 0;
             }
+            filled = step;
+            preview(buffer, filled, lastPreview);
         }
 
+        // more samples in passes, until the budget is over or all the pixels converged
+        int samples = 1;
+        int active = numX * numY;
+        while (samples < maxSamples && active > 0 && System.nanoTime() < deadline) {
+            int sample = samples;
+            AtomicInteger unconverged = new AtomicInteger();
+            renderTiles(new TileManager(numX, numY, tileSize, 0), tile -> {
+                double[] points = new double[2 * (sample + 1)];
+                for (int i = tile.y0(); i < tile.y1() && System.nanoTime() < deadline; i++)
+                    for (int j = tile.x0(); j < tile.x1(); j++) {
+                        if (buffer.isConverged(j, i)) continue;
+                        PIXEL_SAMPLER.sample(points, sample + 1, ((long) i << 32) ^ j);
+                        SampleContext.setPixel(j, i, sample);
+                        buffer.add(j, i, rayTracer.traceRay(constructRay(numX, numY,
+                                j + points[2 * sample] - 0.5, i + points[2 * sample + 1] - 0.5)));
+                        if (convergenceThreshold > 0 && buffer.getCount(j, i) >= MIN_PROGRESSIVE_SAMPLES
+                                && buffer.getError(j, i) <= convergenceThreshold)
+                            buffer.setConverged(j, i);
+                        else
+                            unconverged.incrementAndGet();
+                    }
+            });
+            if (System.nanoTime() >= deadline) break;
+            ++samples;
+            active = unconverged.get();
+            preview(buffer, 1, lastPreview);
+        }
+
+        writeBuffer(buffer, 1);
+        return samples;
+    }
+
+    /**
+     * Writes a preview of the progressive rendering to the image file, if the preview interval has passed since
+     * the last preview.
+     *
+     * @param buffer      The samples of the pixels.
+     * @param filled      The finest step of the coarse to fine order whose pixels all have samples.
+     * @param lastPreview The time of the last preview, updated by a new preview.
+     */
+    private void preview(SampleBuffer buffer, int filled, long[] lastPreview) {
+        if (previewInterval <= 0) return;
+        long now = System.nanoTime();
+        if (now - lastPreview[0] < previewInterval * 1_000_000) return;
+        lastPreview[0] = now;
+        writeBuffer(buffer, filled);
+    }
+
+    /**
+     * Writes the mean colors of the samples of the pixels to the image file. A pixel without samples is written
+     * by the color of the pixel of the coarse to fine order above and left of it.
+     *
+     * @param buffer The samples of the pixels.
+     * @param filled The finest step of the coarse to fine order whose pixels all have samples.
+     */
+    private void writeBuffer(SampleBuffer buffer, int filled) {
+        for (int i = 0; i < imageWriter.getNy(); i++)
+            for (int j = 0; j < imageWriter.getNx(); j++)
+                imageWriter.writePixel(j, i, buffer.getCount(j, i) > 0 ? buffer.getColor(j, i)
+                        : buffer.getColor(j - j % filled, i - i % filled));
         writeToImage();
     }
 
+    /**
+     * Renders all the tiles of the tile manager, on the calling thread or, if multithreading is set,
+     * by a pool of render threads, and waits for all of them to finish.
+     *
+     * @param tiles  The tile manager of the image.
+     * @param render The rendering of a single tile.
+     */
+    private void renderTiles(TileManager tiles, Consumer<TileManager.Tile> render) {
+        int threads = Math.min(threadsCount, tiles.getTilesCount());
+        if (threads == 0) {
+            takeTiles(tiles, render);
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; ++t)
+                workers.add(() -> {
+                    takeTiles(tiles, render);
+                    return null;
+                });
+            for (Future<Void> future : pool.invokeAll(workers))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rendering was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Rendering failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes tiles from the tile manager and renders them until no tile is left.
+     *
+     * @param tiles  The tile manager of the image.
+     * @param render The rendering of a single tile.
+     */
+    private void takeTiles(TileManager tiles, Consumer<TileManager.Tile> render) {
+        for (TileManager.Tile tile = tiles.nextTile(); tile != null; tile = tiles.nextTile()) {
+            render.accept(tile);
+            tiles.tileDone(tile);
+        }
+    }
+
+    /**
+     * The colors of the corners of the adaptive sampling grid that were already traced while rendering a tile. The
+     * corners on the borders of the tiles are kept in a map shared by the neighbouring tiles, the inner corners of
+     * the tile in a map of the tile alone.
+     *
+     * @param tile      The inner corners of the tile.
+     * @param borders   The corners on the borders of the tiles.
+     * @param tileCells The side of a tile in grid cells.
+     */
+    private record Corners(Map<Long, Color> tile, Map<Long, Color> borders, int tileCells) {
+        /**
+         * Returns the map of a corner.
+         *
+         * @param gx The x-coordinate of the corner on the grid.
+         * @param gy The y-coordinate of the corner on the grid.
+         * @return The map the color of the corner is kept in.
+         */
+        Map<Long, Color> of(int gx, int gy) {
+            return gx % tileCells == 0 || gy % tileCells == 0 ? borders : tile;
+        }
+    }
+
+    /**
+     * Calculates the color of a square part of a pixel by the adaptive super sampling.
+     * The square is given on a grid of the sub-pixel corners, which has 2^level cells per pixel on each axis.
+     *
+     * @param nX      The number of pixels in the x-axis of the viewport
+     * @param nY      The number of pixels in the y-axis of the viewport
+     * @param gx      The x-coordinate of the square's top left corner on the grid
+     * @param gy      The y-coordinate of the square's top left corner on the grid
+     * @param size    The side of the square in grid cells
+     * @param corners The colors of the grid corners that were already traced
+     * @return The average color of the square
+     */
+    private Color adaptiveColor(int nX, int nY, int gx, int gy, int size, Corners corners) {
+        Color c00 = cornerColor(nX, nY, gx, gy, corners);
+        Color c10 = cornerColor(nX, nY, gx + size, gy, corners);
+        Color c01 = cornerColor(nX, nY, gx, gy + size, corners);
+        Color c11 = cornerColor(nX, nY, gx + size, gy + size, corners);
+        if (size == 1 || c00.difference(c10) <= adaptiveThreshold && c00.difference(c01) <= adaptiveThreshold
+                && c00.difference(c11) <= adaptiveThreshold && c10.difference(c01) <= adaptiveThreshold
+                && c10.difference(c11) <= adaptiveThreshold && c01.difference(c11) <= adaptiveThreshold)
+            return c00.add(c10, c01, c11).reduce(4);
+
+        int half = size / 2;
+        return adaptiveColor(nX, nY, gx, gy, half, corners)
+                .add(adaptiveColor(nX, nY, gx + half, gy, half, corners),
+                        adaptiveColor(nX, nY, gx, gy + half, half, corners),
+                        adaptiveColor(nX, nY, gx + half, gy + half, half, corners))
+                .reduce(4);
+    }
+
+    /**
+     * Returns the color of a corner on the adaptive sampling grid, tracing its ray the first time it is needed.
+     *
+     * @param nX      The number of pixels in the x-axis of the viewport
+     * @param nY      The number of pixels in the y-axis of the viewport
+     * @param gx      The x-coordinate of the corner on the grid
+     * @param gy      The y-coordinate of the corner on the grid
+     * @param corners The colors of the grid corners that were already traced
+     * @return The color of the corner
+     */
+    private Color cornerColor(int nX, int nY, int gx, int gy, Corners corners) {
+        return corners.of(gx, gy).computeIfAbsent(((long) gy << 32) | gx, key -> {
+            double cells = 1 << adaptiveLevel;
+            SampleContext.setPixel(gx, gy);
+            return rayTracer.traceRay(constructRay(nX, nY, gx / cells - 0.5, gy / cells - 0.5));
+        });
+    }
+
     /**
      * Casts a ray from the camera's position and orientation through a specified pixel in the viewport.
      *
@@ -267,6 +867,7 @@ public class Camera {
      */
     private Color castRay(int Nx, int Ny, int i, int j) {
         Ray ray = constructRay(Nx, Ny, j, i);
+        SampleContext.setPixel(j, i);
         return rayTracer.traceRay(ray);
     }
 
@@ -282,7 +883,8 @@ public class Camera {
                 .setVPSize(width, height)
                 .setVPDistance(distance)
                 .setImageWriter(imageWriter)
-                .setRayTracer(rayTracer);
+                .setRayTracer(rayTracer)
+                .copyRenderSettings(this);
     }
 
 
@@ -295,7 +897,32 @@ public class Camera {
 
     public Camera rotateLeft(double angle) {
         double theta = Math.toRadians(angle);
-        return new Camera(p0, vTo, rotate(theta)).setVPSize(width, height).setVPDistance(distance).setImageWriter(imageWriter).setRayTracer(rayTracer);
+        return new Camera(p0, vTo, rotate(theta)).setVPSize(width, height).setVPDistance(distance).setImageWriter(imageWriter).setRayTracer(rayTracer).copyRenderSettings(this);
+    }
+
+    /**
+     * Copies the rendering settings (threads, tiles, progress printing, super sampling, progressive rendering,
+     * tile cache, render statistics and ray packets)
+     * of another camera.
+     *
+     * @param other The camera to copy the settings from.
+     * @return The camera object itself for method chaining.
+     */
+    private Camera copyRenderSettings(Camera other) {
+        threadsCount = other.threadsCount;
+        tileSize = other.tileSize;
+        printInterval = other.printInterval;
+        adaptiveLevel = other.adaptiveLevel;
+        adaptiveThreshold = other.adaptiveThreshold;
+        timeBudget = other.timeBudget;
+        convergenceThreshold = other.convergenceThreshold;
+        maxSamples = other.maxSamples;
+        previewInterval = other.previewInterval;
+        tileCache = other.tileCache;
+        renderStats = other.renderStats;
+        pixelTimes = other.pixelTimes;
+        packetSide = other.packetSide;
+        return this;
     }
     /**
      * Rotates the camera's vRight and vUp vectors by the given angle around the vTo vector.
@@ -0,0 +1,50 @@
+package renderer;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A sampler of the Halton sequence of the bases 2 and 3. Every set is the start of the sequence, shifted by a
+ * random offset of its seed modulo 1 (a Cranley-Patterson rotation), so the sets of different pixels are not
+ * correlated and each of them keeps the low discrepancy of the sequence.
+ */
+public class HaltonSampler implements Sampler, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void sample(double[] points, int count, long seed) {
+        double dx = SampleContext.fraction(SampleContext.hash(seed));
+        double dy = SampleContext.fraction(SampleContext.hash(seed + 1));
+        for (int i = 0; i < count; i++) {
+            points[2 * i] = rotate((Integer.reverse(i) >>> 1) * 0x1p-31, dx);
+            points[2 * i + 1] = rotate(radicalInverse3(i), dy);
+        }
+    }
+
+    /**
+     * Calculates the radical inverse of a number in base 3, that is, its digits mirrored around the point.
+     *
+     * @param i The number.
+     * @return The radical inverse, in [0,1).
+     */
+    private static double radicalInverse3(int i) {
+        double inverse = 0;
+        double digit = 1d / 3;
+        for (; i > 0; i /= 3, digit /= 3)
+            inverse += i % 3 * digit;
+        return inverse;
+    }
+
+    /**
+     * Shifts a coordinate modulo 1.
+     *
+     * @param u     The coordinate, in [0,1).
+     * @param shift The shift, in [0,1).
+     * @return The shifted coordinate, in [0,1).
+     */
+    static double rotate(double u, double shift) {
+        u += shift;
+        return u >= 1 ? u - 1 : u;
+    }
+}
@@ -2,10 +2,14 @@ package renderer;
 
 import primitives.Color;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +18,11 @@ import java.util.logging.Logger;
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
  * size and resolution
+ * <p>
+ * The pixels are kept in a high dynamic range float framebuffer, a flat array per channel in row-major order,
+ * in the scale of {@link Color} (255 is the full intensity of a channel of the display). The framebuffer is
+ * written either as a PNG file through a {@link ToneMapper}, or as a PFM or an OpenEXR file of the linear colors.
+ * The PNG file is compressed by stripes of rows in parallel, see {@link PngEncoder}.
  *
  * @author Dan
  */
@@ -21,7 +30,11 @@ public class ImageWriter {
     private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
     private int nX;
     private int nY;
-    private BufferedImage image;
+    private final float[] red;
+    private final float[] green;
+    private final float[] blue;
+    private ToneMapper toneMapper = ToneMapper.CLAMP;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
     private String imageName;
 
     private Logger logger = Logger.getLogger("ImageWriter");
@@ -40,11 +53,22 @@ public class ImageWriter {
         this.nX = nX;
         this.nY = nY;
 
-        image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        red = new float[nX * nY];
+        green = new float[nX * nY];
+        blue = new float[nX * nY];
     }
 
     // ***************** Getters/Setters ********************** //
 
+    /**
+     * Returns the name of the image, which is the name of its files without the extension
+     *
+     * @return the name of the image
+     */
+    public String getImageName() {
+        return imageName;
+    }
+
     /**
      * View Plane Y axis resolution
      *
@@ -63,33 +87,278 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * Sets the tone mapper of the PNG output, {@link ToneMapper#CLAMP} by default
+     *
+     * @param toneMapper the tone mapper
+     * @return the image writer itself
+     */
+    public ImageWriter setToneMapper(ToneMapper toneMapper) {
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
+    /**
+     * Sets the amount of threads that compress the PNG output, the amount of the processors by default
+     *
+     * @param threadsCount the amount of threads
+     * @return the image writer itself
+     */
+    public ImageWriter setThreadsCount(int threadsCount) {
+        if (threadsCount < 1) throw new IllegalArgumentException("Threads count must be positive");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
+    /**
+     * Gets the red channel of the framebuffer. The array is the framebuffer itself, so changes of the array are
+     * changes of the image
+     *
+     * @return the red values of the pixels in row-major order
+     */
+    public float[] getRed() {
+        return red;
+    }
+
+    /**
+     * Gets the green channel of the framebuffer. The array is the framebuffer itself, so changes of the array are
+     * changes of the image
+     *
+     * @return the green values of the pixels in row-major order
+     */
+    public float[] getGreen() {
+        return green;
+    }
+
+    /**
+     * Gets the blue channel of the framebuffer. The array is the framebuffer itself, so changes of the array are
+     * changes of the image
+     *
+     * @return the blue values of the pixels in row-major order
+     */
+    public float[] getBlue() {
+        return blue;
+    }
+
+    /**
+     * Gets the color of a pixel of the framebuffer
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @return the color of the pixel
+     */
+    public Color getPixel(int xIndex, int yIndex) {
+        int index = yIndex * nX + xIndex;
+        return new Color(red[index], green[index], blue[index]);
+    }
+
     // ***************** Operations ******************** //
 
     /**
      * Function writeToImage produces unoptimized png file of the image according to
-     * pixel color matrix in the directory of the project
+     * pixel color matrix in the directory of the project. The colors are mapped by the tone mapper
      */
     public void writeToImage() {
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            new PngEncoder(nX, nY, red, green, blue, toneMapper).write(imagePath(".png"), threadsCount);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
-            throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+            throw new IllegalStateException("I/O error - can't write to directory " + FOLDER_PATH, e);
         }
     }
 
+    /**
+     * Function writePfm produces a PFM (portable float map) file of the linear colors of the image in the directory
+     * of the project. The colors are divided by 255, so 1 is the full intensity of the display
+     */
+    public void writePfm() {
+        byte[] header = ("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer line = ByteBuffer.allocate(12 * nX).order(ByteOrder.LITTLE_ENDIAN);
+        write(".pfm", channel -> {
+            long position = put(channel, ByteBuffer.allocate(header.length).put(header), 0);
+            // the rows of a PFM file are from the bottom up
+            for (int y = nY - 1; y >= 0; y--) {
+                for (int index = y * nX; index < (y + 1) * nX; index++)
+                    line.putFloat(red[index] / 255).putFloat(green[index] / 255).putFloat(blue[index] / 255);
+                position = put(channel, line, position);
+            }
+        });
+    }
+
+    /**
+     * Function writeExr produces an uncompressed scan line OpenEXR file of the linear colors of the image in the
+     * directory of the project, with 32-bit float channels. The colors are divided by 255, so 1 is the full
+     * intensity of the display
+     */
+    public void writeExr() {
+        ByteBuffer header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(20000630).putInt(2);
+        // the channels are sorted by their names, each of FLOAT type (2), linear flag and reserved bytes,
+        // and sampling of 1 by 1
+        attribute(header, "channels", "chlist", 3 * 18 + 1);
+        for (String channel : new String[]{"B", "G", "R"})
+            header.put(channel.getBytes(StandardCharsets.US_ASCII)).put((byte) 0).putInt(2).putInt(0).putInt(1)
+                    .putInt(1);
+        header.put((byte) 0);
+        attribute(header, "compression", "compression", 1);
+        header.put((byte) 0);
+        attribute(header, "dataWindow", "box2i", 16);
+        header.putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+        attribute(header, "displayWindow", "box2i", 16);
+        header.putInt(0).putInt(0).putInt(nX - 1).putInt(nY - 1);
+        attribute(header, "lineOrder", "lineOrder", 1);
+        header.put((byte) 0);
+        attribute(header, "pixelAspectRatio", "float", 4);
+        header.putFloat(1);
+        attribute(header, "screenWindowCenter", "v2f", 8);
+        header.putFloat(0).putFloat(0);
+        attribute(header, "screenWindowWidth", "float", 4);
+        header.putFloat(1);
+        header.put((byte) 0);
+
+        // the header, a table of the offsets of the scan lines, and the scan lines, each of its y coordinate,
+        // its data size, and its channels one after the other
+        int lineSize = 12 * nX;
+        long first = header.position() + 8L * nY;
+        ByteBuffer offsets = ByteBuffer.allocate(8 * Math.min(nY, 1024)).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer line = ByteBuffer.allocate(8 + lineSize).order(ByteOrder.LITTLE_ENDIAN);
+        write(".exr", channel -> {
+            long position = put(channel, header, 0);
+            for (int y = 0; y < nY; y++) {
+                if (!offsets.hasRemaining()) position = put(channel, offsets, position);
+                offsets.putLong(first + y * (8L + lineSize));
+            }
+            position = put(channel, offsets, position);
+            for (int y = 0; y < nY; y++) {
+                line.putInt(y).putInt(lineSize);
+                for (float[] color : new float[][]{blue, green, red})
+                    for (int index = y * nX; index < (y + 1) * nX; index++)
+                        line.putFloat(color[index] / 255);
+                position = put(channel, line, position);
+            }
+        });
+    }
+
+    /**
+     * Puts the name, the type and the size of an OpenEXR header attribute, before its value.
+     *
+     * @param header The header.
+     * @param name   The name of the attribute.
+     * @param type   The type of the attribute.
+     * @param size   The size of the value in bytes.
+     */
+    private static void attribute(ByteBuffer header, String name, String type, int size) {
+        header.put(name.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+        header.put(type.getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+        header.putInt(size);
+    }
+
+    /**
+     * Returns the path of a file of the image in the directory of the project, creating the directory if it is missing.
+     *
+     * @param extension The extension of the file.
+     * @return The path of the file.
+     * @throws IOException If the directory can't be created.
+     */
+    private Path imagePath(String extension) throws IOException {
+        return Files.createDirectories(Path.of(FOLDER_PATH)).resolve(imageName + extension);
+    }
+
+    /**
+     * The content of a file of the image, written part by part into the channel of the file.
+     */
+    private interface FileContent {
+        /**
+         * Writes the content into the channel of the file.
+         *
+         * @param channel The channel of the file.
+         * @throws IOException If the channel can't be written.
+         */
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Writes a file of the image in the directory of the project.
+     *
+     * @param extension The extension of the file.
+     * @param content   The content of the file.
+     */
+    private void write(String extension, FileContent content) {
+        try (FileChannel channel = FileChannel.open(imagePath(extension),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.write(channel);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - can't write to directory " + FOLDER_PATH, e);
+        }
+    }
+
+    /**
+     * Writes a part of a file - such as a scan line - from a buffer at a position of the file, and clears the buffer
+     * for the next part. The positions are long, so the file is not bound by the size of an array.
+     *
+     * @param channel  The channel of the file.
+     * @param buffer   The part, up to the position of the buffer.
+     * @param position The position of the part in the file.
+     * @return The position in the file after the part.
+     * @throws IOException If the channel can't be written.
+     */
+    private static long put(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        buffer.clear();
+        return position;
+    }
+
     /**
      * The function writePixel writes a color of a specific pixel into pixel color
-     * matrix
+     * matrix. Several threads may write concurrently as long as they write
+     * different pixels
      *
      * @param xIndex X axis index of the pixel
      * @param yIndex Y axis index of the pixel
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        int index = yIndex * nX + xIndex;
+        red[index] = toFloat(color.getRed());
+        green[index] = toFloat(color.getGreen());
+        blue[index] = toFloat(color.getBlue());
     }
 
+    /**
+     * The function writePixels writes the colors of a rectangle of pixels into pixel color matrix. The colors are
+     * given by a flat array per channel, in row-major order of the rectangle. Several threads may write
+     * concurrently as long as they write different pixels
+     *
+     * @param x0     X axis index of the top left pixel of the rectangle
+     * @param y0     Y axis index of the top left pixel of the rectangle
+     * @param width  the amount of columns of the rectangle
+     * @param height the amount of rows of the rectangle
+     * @param red    the red values of the rectangle
+     * @param green  the green values of the rectangle
+     * @param blue   the blue values of the rectangle
+     */
+    public void writePixels(int x0, int y0, int width, int height, float[] red, float[] green, float[] blue) {
+        for (int row = 0; row < height; row++) {
+            int from = row * width;
+            int to = (y0 + row) * nX + x0;
+            System.arraycopy(red, from, this.red, to, width);
+            System.arraycopy(green, from, this.green, to, width);
+            System.arraycopy(blue, from, this.blue, to, width);
+        }
+    }
+
+    /**
+     * Converts a channel to a float, rounding toward zero, so the integer part of the float is the integer part of
+     * the channel and the PNG output of {@link ToneMapper#CLAMP} is the same as of {@link Color#getColor()}
+     *
+     * @param channel the channel
+     * @return the channel as a float
+     */
+    private static float toFloat(double channel) {
+        float value = (float) channel;
+        return value > channel ? Math.nextDown(value) : value;
+    }
 
 }
@@ -0,0 +1,318 @@
+package renderer;
+
+import scene.Scene;
+import scene.XmlFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The command line renderer. It reads a scene file (see {@link XmlFile}) with its camera, renders it with the given
+ * settings and writes the image to the images directory, printing the time of every stage and the throughput.
+ * The same arguments always produce the same image, so runs can be scripted and compared.
+ * <pre>
+ * java -jar ray-tracer.jar [options] scene.xml
+ * </pre>
+ * The exit status is 0 on success, 1 if the scene can't be read or rendered and 2 for wrong arguments.
+ */
+public final class Main {
+    private static final String USAGE = """
+            usage: java -jar ray-tracer.jar [options] <scene.xml>
+              -o, --output <name>        image name (default: the image writer of the scene camera, or the file name)
+              -s, --size <nx>x<ny>       image resolution (default: the image writer of the scene camera, or 500x500)
+              -t, --threads <n>          render threads, 0 for the calling thread, -1 for all the processors
+                  --tile-size <n>        side of the render tiles in pixels (default 32)
+              -f, --format <format>      png (default), pfm or exr - the float formats are written besides the png
+                  --tone <mapper>        clamp (default) or reinhard[:exposure] for the png
+                  --bvh                  build a bounding volume hierarchy over the geometries
+                  --aabb                 test the bounding boxes of the geometries
+                  --adaptive <level>     adaptive super sampling level 0-10 (default 0)
+                  --threshold <color>    color difference of the adaptive super sampling (default 10)
+                  --packets <side>       trace the primary rays in packets of side x side pixels, 1-8
+                  --beam <mode>          glossy and matte beams: grid (default), adaptive, halton, sobol,
+                                         stratified or blue-noise
+                  --beam-threshold <c>   color difference of the adaptive beams (default 5)
+                  --progressive <ms>     progressive rendering with a time budget, 0 for no budget
+                  --samples <n>          largest samples of a pixel of the progressive rendering (default 64)
+                  --cache <dir>          tile cache directory
+                  --cache-size <MB>      tile cache size (default 1024)
+                  --stats                count the rays and the intersection tests
+                  --heatmap              write a heatmap of the pixel times as <name>-heatmap.png
+                  --workers <n>          render by n worker processes on this machine (see RenderWorker)
+                  --port <port>          render by the workers connecting to this port, besides the --workers
+              -h, --help                 this help
+            """;
+
+    private Path sceneFile;
+    private String output;
+    private int nX = 0;
+    private int nY = 0;
+    private Integer threads;
+    private int tileSize = 32;
+    private String format = "png";
+    private ToneMapper toneMapper = ToneMapper.CLAMP;
+    private String toneName = "clamp";
+    private boolean bvh = false;
+    private boolean aabb = false;
+    private int adaptive = 0;
+    private double threshold = 10;
+    private int packets = 0;
+    private String beam = "grid";
+    private double beamThreshold = 5;
+    private Long progressive;
+    private int samples = 64;
+    private Path cache;
+    private long cacheSize = 1024;
+    private boolean stats = false;
+    private boolean heatmap = false;
+    private int workers = 0;
+    private Integer port;
+
+    private Main() {
+    }
+
+    /**
+     * Renders a scene file by the command line arguments.
+     *
+     * @param args The command line arguments, --help for their list.
+     */
+    public static void main(String[] args) {
+        Main main = new Main();
+        try {
+            if (!main.parse(args)) {
+                System.out.print(USAGE);
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        try {
+            main.run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Rendering failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the command line arguments.
+     *
+     * @param args The command line arguments.
+     * @return {@code false} if the help was asked for.
+     * @throws IllegalArgumentException if an argument is wrong
+     */
+    private boolean parse(String[] args) {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                files.add(arg);
+                continue;
+            }
+            if (arg.equals("-h") || arg.equals("--help")) return false;
+            switch (arg) {
+                case "--bvh" -> bvh = true;
+                case "--aabb" -> aabb = true;
+                case "--stats" -> stats = true;
+                case "--heatmap" -> heatmap = true;
+                default -> {
+                    if (i + 1 == args.length) throw new IllegalArgumentException("Missing value of " + arg);
+                    option(arg, args[++i]);
+                }
+            }
+        }
+        if (files.size() != 1) throw new IllegalArgumentException("A single scene file must be given");
+        if (distributed() && progressive != null)
+            throw new IllegalArgumentException("The progressive rendering can't be distributed");
+        if (distributed() && heatmap)
+            throw new IllegalArgumentException("The pixel times of a distributed rendering are not measured");
+        sceneFile = Path.of(files.get(0));
+        return true;
+    }
+
+    /**
+     * Reads an option that has a value.
+     *
+     * @param option The option.
+     * @param value  The value of the option.
+     * @throws IllegalArgumentException if the option is unknown or its value is wrong
+     */
+    private void option(String option, String value) {
+        try {
+            switch (option) {
+                case "-o", "--output" -> output = value;
+                case "-s", "--size" -> {
+                    String[] size = value.split("x");
+                    if (size.length != 2) throw new IllegalArgumentException("Wrong size " + value);
+                    nX = positive(option, Integer.parseInt(size[0]));
+                    nY = positive(option, Integer.parseInt(size[1]));
+                }
+                case "-t", "--threads" -> threads = Integer.parseInt(value);
+                case "--tile-size" -> tileSize = positive(option, Integer.parseInt(value));
+                case "-f", "--format" -> {
+                    if (!List.of("png", "pfm", "exr").contains(value))
+                        throw new IllegalArgumentException("Unknown format " + value);
+                    format = value;
+                }
+                case "--tone" -> {
+                    toneName = value;
+                    if (value.equals("clamp")) toneMapper = ToneMapper.CLAMP;
+                    else if (value.equals("reinhard")) toneMapper = ToneMapper.reinhard(1);
+                    else if (value.startsWith("reinhard:"))
+                        toneMapper = ToneMapper.reinhard(Double.parseDouble(value.substring(9)));
+                    else throw new IllegalArgumentException("Unknown tone mapper " + value);
+                }
+                case "--adaptive" -> {
+                    adaptive = Integer.parseInt(value);
+                    if (adaptive < 0 || adaptive > 10)
+                        throw new IllegalArgumentException("The adaptive sampling level must be 0 to 10");
+                }
+                case "--threshold" -> threshold = Double.parseDouble(value);
+                case "--packets" -> {
+                    packets = Integer.parseInt(value);
+                    if (packets < 1 || packets > 8)
+                        throw new IllegalArgumentException("The packet side must be 1 to 8");
+                }
+                case "--beam" -> {
+                    beam = value;
+                    sampler();
+                }
+                case "--beam-threshold" -> beamThreshold = Double.parseDouble(value);
+                case "--progressive" -> progressive = Long.parseLong(value);
+                case "--samples" -> samples = positive(option, Integer.parseInt(value));
+                case "--cache" -> cache = Path.of(value);
+                case "--cache-size" -> cacheSize = positive(option, Integer.parseInt(value));
+                case "--workers" -> workers = positive(option, Integer.parseInt(value));
+                case "--port" -> port = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Wrong number " + value + " of " + option, e);
+        }
+    }
+
+    /**
+     * Checks that the value of an option is positive.
+     *
+     * @param option The option.
+     * @param value  The value of the option.
+     * @return The value.
+     * @throws IllegalArgumentException if the value is not positive
+     */
+    private static int positive(String option, int value) {
+        if (value <= 0) throw new IllegalArgumentException("The value of " + option + " must be positive");
+        return value;
+    }
+
+    /**
+     * Tells whether the rendering is distributed to render workers.
+     *
+     * @return {@code true} if worker processes are started or a port is given.
+     */
+    private boolean distributed() {
+        return workers > 0 || port != null;
+    }
+
+    /**
+     * Makes the sampler of the glossy and matte beams.
+     *
+     * @return The sampler, or null for the grid of the blackboard and for adaptive beams.
+     * @throws IllegalArgumentException if the beam mode is unknown
+     */
+    private Sampler sampler() {
+        return switch (beam) {
+            case "grid", "adaptive" -> null;
+            case "halton" -> new HaltonSampler();
+            case "sobol" -> new SobolSampler();
+            case "stratified" -> new StratifiedSampler();
+            case "blue-noise" -> new BlueNoiseSampler();
+            default -> throw new IllegalArgumentException("Unknown beam mode " + beam);
+        };
+    }
+
+    /**
+     * Reads the scene, renders it and writes the image, printing the settings, the times and the throughput.
+     *
+     * @throws IOException If the scene file can't be read, the tile cache can't be used or the workers can't be
+     *                     served.
+     */
+    private void run() throws IOException {
+        long start = System.nanoTime();
+        XmlFile xmlFile = new XmlFile();
+        Scene scene;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(sceneFile))) {
+            scene = xmlFile.deserialize(in);
+        }
+        Camera camera = xmlFile.getCamera();
+        if (camera == null) throw new IOException("The scene file has no camera");
+        ImageWriter sceneWriter = camera.getImageWriter();
+        if (nX == 0) {
+            nX = sceneWriter == null ? 500 : sceneWriter.getNx();
+            nY = sceneWriter == null ? 500 : sceneWriter.getNy();
+        }
+        if (output == null) {
+            String fileName = sceneFile.getFileName().toString();
+            output = sceneWriter != null ? sceneWriter.getImageName()
+                    : fileName.endsWith(".xml") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        }
+        long loaded = System.nanoTime();
+
+        scene.setIsBVH(bvh).setIsAABB(aabb);
+        RayTracerBasic rayTracer = new RayTracerBasic(scene).setAdaptiveBeam(beam.equals("adaptive"))
+                .setBeamThreshold(beamThreshold).setSampler(sampler());
+        ImageWriter imageWriter = new ImageWriter(output, nX, nY).setToneMapper(toneMapper);
+        if (threads != null) {
+            camera.setMultithreading(threads);
+            if (threads > 0) imageWriter.setThreadsCount(threads);
+        }
+        camera.setImageWriter(imageWriter).setRayTracer(rayTracer).setTileSize(tileSize)
+                .setAdaptiveSuperSampling(adaptive).setAdaptiveThreshold(threshold).setRayPackets(packets)
+                .setRenderStats(stats).setPixelTimes(heatmap);
+        if (cache != null) camera.setTileCache(new TileCache(cache, cacheSize << 20));
+        long built = System.nanoTime();
+
+        System.out.printf(Locale.ROOT, "scene %s, %d lights%n", sceneFile, scene.lights.size());
+        System.out.printf(Locale.ROOT, "image %s %dx%d, threads %s, tiles %d, bvh %b, aabb %b, beam %s, tone %s%n",
+                output, nX, nY, threads == null ? "scene" : threads, tileSize, bvh, aabb, beam, toneName);
+        RenderStats renderStats = null;
+        int progressiveSamples = 0;
+        if (distributed()) {
+            RenderCoordinator coordinator = new RenderCoordinator(camera).setLocalWorkers(workers)
+                    .setPort(port == null ? 0 : port);
+            System.out.printf(Locale.ROOT, "workers %d, port %d%n", workers, coordinator.open());
+            renderStats = coordinator.renderImage();
+        } else if (progressive == null)
+            renderStats = camera.renderImage();
+        else
+            progressiveSamples = camera.setTimeBudget(progressive).setMaxSamples(samples).renderProgressive();
+        long rendered = System.nanoTime();
+
+        if (format.equals("pfm")) imageWriter.writePfm();
+        if (format.equals("exr")) imageWriter.writeExr();
+        if (heatmap && renderStats != null) renderStats.heatmap(output + "-heatmap").writeToImage();
+        long written = System.nanoTime();
+
+        // the rendering writes the png itself, the statistics tell the time of the rendering alone
+        long renderTime = renderStats == null ? rendered - built : renderStats.getRenderTime();
+        double renderSeconds = renderTime / 1e9;
+        System.out.printf(Locale.ROOT, "load %.3fs, setup %.3fs, render %.3fs, write %.3fs%n", (loaded - start) / 1e9,
+                (built - loaded) / 1e9, renderSeconds, (written - built - renderTime) / 1e9);
+        if (progressive != null)
+            System.out.printf(Locale.ROOT, "progressive: %d samples per pixel%n", progressiveSamples);
+        System.out.printf(Locale.ROOT, "throughput %.0f pixels/s%n", nX * (double) nY / renderSeconds);
+        // the counts stay in the workers of a distributed rendering
+        if (stats && renderStats != null && !distributed()) {
+            long rays = renderStats.getPrimaryRays() + renderStats.getShadowRays() + renderStats.getReflectionRays()
+                    + renderStats.getRefractionRays();
+            System.out.printf(Locale.ROOT, "%.0f rays/s, %s%n", rays / renderSeconds, renderStats);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The PngEncoder class writes the float framebuffer of an image writer to a PNG file, in the way of pigz.
+ * <p>
+ * The rows are split into stripes of about {@value #STRIPE_BYTES} bytes that are tone mapped, filtered and
+ * deflated independently by several threads, straight from the channel arrays of the framebuffer. Each stripe is
+ * a part of a single zlib stream: it is deflated with the last 32K of the filtered rows of the previous stripe as
+ * its dictionary, so the compression is almost as good as of a single deflater, and it ends on a byte boundary by a
+ * sync flush, so the stripes are simply concatenated. The Adler-32 checksum of the stream is combined from the
+ * checksums of the stripes. Every stripe is written as an IDAT chunk to the file channel as soon as it and the
+ * stripes before it are ready, and only a few stripes per thread are deflated ahead of the writing.
+ */
+class PngEncoder {
+    /**
+     * The approximate amount of bytes of the filtered rows of a stripe
+     */
+    private static final int STRIPE_BYTES = 1 << 17;
+    /**
+     * The size of the deflate window, and of the dictionary of a stripe
+     */
+    private static final int WINDOW = 1 << 15;
+    /**
+     * The deflate level: the levels above it are several times slower for a few percent of the size
+     */
+    private static final int LEVEL = 4;
+    /**
+     * The amount of stripes per deflating thread that are filtered and deflated ahead of the writing
+     */
+    private static final int STRIPES_AHEAD = 2;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int ADLER_BASE = 65521;
+
+    private final int nX;
+    private final int nY;
+    private final float[] red;
+    private final float[] green;
+    private final float[] blue;
+    private final ToneMapper toneMapper;
+    private final int rowBytes;
+    private final int stripeRows;
+
+    /**
+     * A deflated stripe of rows.
+     *
+     * @param data   The deflated rows.
+     * @param adler  The Adler-32 checksum of the filtered rows.
+     * @param length The amount of bytes of the filtered rows.
+     */
+    private record Stripe(byte[] data, long adler, long length) {
+    }
+
+    /**
+     * Constructs an encoder of a framebuffer.
+     *
+     * @param nX         The amount of pixels by width.
+     * @param nY         The amount of pixels by height.
+     * @param red        The red channel of the framebuffer, in row-major order.
+     * @param green      The green channel of the framebuffer, in row-major order.
+     * @param blue       The blue channel of the framebuffer, in row-major order.
+     * @param toneMapper The tone mapper of the colors.
+     */
+    PngEncoder(int nX, int nY, float[] red, float[] green, float[] blue, ToneMapper toneMapper) {
+        this.nX = nX;
+        this.nY = nY;
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.toneMapper = toneMapper;
+        rowBytes = 3 * nX + 1;
+        stripeRows = Math.max(1, STRIPE_BYTES / rowBytes);
+    }
+
+    /**
+     * Writes the PNG file.
+     *
+     * @param path         The path of the file.
+     * @param threadsCount The amount of the deflating threads.
+     * @throws IOException If the file can't be written.
+     */
+    void write(Path path, int threadsCount) throws IOException {
+        int stripes = (nY + stripeRows - 1) / stripeRows;
+        int threads = Math.min(threadsCount, stripes);
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        // a single thread filters and deflates the stripes on their submission
+        Executor executor = pool != null ? pool : Runnable::run;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(SIGNATURE.length + 25);
+            header.put(SIGNATURE);
+            ByteBuffer ihdr = ByteBuffer.allocate(13).putInt(nX).putInt(nY)
+                    .put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+            putChunk(header, "IHDR", ihdr.array());
+            writeFully(channel, header.flip());
+
+            // every stripe is deflated when its rows and the rows of the previous stripe, its dictionary, are
+            // filtered; the stripes are submitted as the stripes before them are written, so the deflated stripes
+            // waiting for the channel are bounded
+            Deque<CompletableFuture<Stripe>> futures = new ArrayDeque<>();
+            CompletableFuture<byte[]> previous = CompletableFuture.completedFuture(new byte[0]);
+            int submitted = 0;
+            long adler = 1;
+            for (int s = 0; s < stripes; s++) {
+                for (; submitted < stripes && submitted < s + STRIPES_AHEAD * threads; submitted++) {
+                    int y0 = submitted * stripeRows;
+                    int y1 = Math.min(nY, y0 + stripeRows);
+                    boolean last = submitted == stripes - 1;
+                    CompletableFuture<byte[]> rows = CompletableFuture.supplyAsync(() -> filter(y0, y1), executor);
+                    futures.add(rows.thenCombineAsync(previous,
+                            (current, dictionary) -> deflate(current, dictionary, last), executor));
+                    previous = rows;
+                }
+                Stripe stripe = futures.remove().get();
+                adler = combineAdler(adler, stripe.adler(), stripe.length());
+                byte[] prefix = s == 0 ? new byte[]{0x78, (byte) 0x9C} : new byte[0];
+                byte[] suffix = s == stripes - 1 ? ByteBuffer.allocate(4).putInt((int) adler).array() : new byte[0];
+                writeChunk(channel, "IDAT", prefix, stripe.data(), suffix);
+            }
+            writeChunk(channel, "IEND", new byte[0], new byte[0], new byte[0]);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PNG writing was interrupted", e);
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Deflates the filtered rows of a stripe.
+     *
+     * @param rows       The filtered rows of the stripe.
+     * @param dictionary The filtered rows of the previous stripe, empty for the first stripe.
+     * @param last       Whether it is the last stripe of the image.
+     * @return The deflated stripe.
+     */
+    private static Stripe deflate(byte[] rows, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(LEVEL, true);
+        try {
+            int length = Math.min(WINDOW, dictionary.length);
+            if (length > 0) deflater.setDictionary(dictionary, dictionary.length - length, length);
+            deflater.setInput(rows);
+            if (last) deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length / 4 + 64);
+            byte[] buffer = new byte[1 << 16];
+            int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            while (true) {
+                int count = deflater.deflate(buffer, 0, buffer.length, flush);
+                out.write(buffer, 0, count);
+                // a sync flush is complete when the output buffer was not filled, the finish when it is finished
+                if (last ? deflater.finished() : count < buffer.length) break;
+            }
+            Adler32 adler = new Adler32();
+            adler.update(rows);
+            return new Stripe(out.toByteArray(), adler.getValue(), rows.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Tone maps and filters rows of the image. Every row gets the filter of the least sum of the absolute values
+     * of its filtered bytes, as the PNG specification recommends.
+     *
+     * @param y0 The first row.
+     * @param y1 The row after the last row.
+     * @return The filtered rows, each of its filter type and its filtered bytes.
+     */
+    private byte[] filter(int y0, int y1) {
+        int length = rowBytes - 1;
+        byte[] rows = new byte[(y1 - y0) * rowBytes];
+        byte[] previous = new byte[length];
+        byte[] current = new byte[length];
+        byte[][] filtered = new byte[5][length];
+        if (y0 > 0) toneMap(y0 - 1, previous);
+        for (int y = y0; y < y1; y++) {
+            toneMap(y, current);
+            int best = 0;
+            long bestSum = Long.MAX_VALUE;
+            for (int type = 0; type < 5; type++) {
+                long sum = filterRow(type, current, previous, filtered[type]);
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    best = type;
+                }
+            }
+            int offset = (y - y0) * rowBytes;
+            rows[offset] = (byte) best;
+            System.arraycopy(filtered[best], 0, rows, offset + 1, length);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return rows;
+    }
+
+    /**
+     * Filters a row by a filter type of PNG.
+     *
+     * @param type     The filter type: none, sub, up, average or Paeth.
+     * @param current  The bytes of the row.
+     * @param previous The bytes of the previous row, zeros for the first row.
+     * @param row      The filtered bytes.
+     * @return The sum of the absolute values of the filtered bytes as signed bytes.
+     */
+    private static long filterRow(int type, byte[] current, byte[] previous, byte[] row) {
+        int length = current.length;
+        long sum = 0;
+        switch (type) {
+            case 0 -> {
+                for (int i = 0; i < length; i++) sum += Math.abs(row[i] = current[i]);
+            }
+            case 1 -> {
+                for (int i = 0; i < length; i++)
+                    sum += Math.abs(row[i] = (byte) (current[i] - (i >= 3 ? current[i - 3] : 0)));
+            }
+            case 2 -> {
+                for (int i = 0; i < length; i++) sum += Math.abs(row[i] = (byte) (current[i] - previous[i]));
+            }
+            case 3 -> {
+                for (int i = 0; i < length; i++) {
+                    int a = i >= 3 ? current[i - 3] & 0xFF : 0;
+                    sum += Math.abs(row[i] = (byte) (current[i] - ((a + (previous[i] & 0xFF)) >> 1)));
+                }
+            }
+            default -> {
+                for (int i = 0; i < length; i++) {
+                    int a = i >= 3 ? current[i - 3] & 0xFF : 0;
+                    int c = i >= 3 ? previous[i - 3] & 0xFF : 0;
+                    sum += Math.abs(row[i] = (byte) (current[i] - paeth(a, previous[i] & 0xFF, c)));
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Tone maps a row of the framebuffer to RGB bytes.
+     *
+     * @param y   The row.
+     * @param row The bytes of the row.
+     */
+    private void toneMap(int y, byte[] row) {
+        for (int x = 0, index = y * nX, i = 0; x < nX; x++, index++) {
+            int rgb = toneMapper.map(red[index], green[index], blue[index]);
+            row[i++] = (byte) (rgb >> 16);
+            row[i++] = (byte) (rgb >> 8);
+            row[i++] = (byte) rgb;
+        }
+    }
+
+    /**
+     * The Paeth predictor of the PNG filters: the one of the left, the up and the up left bytes that is the
+     * closest to left + up - up left.
+     *
+     * @param a The left byte.
+     * @param b The up byte.
+     * @param c The up left byte.
+     * @return The predicted byte.
+     */
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        return pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two sequences to the checksum of their concatenation, as zlib does.
+     *
+     * @param adler1  The checksum of the first sequence.
+     * @param adler2  The checksum of the second sequence.
+     * @param length2 The length of the second sequence.
+     * @return The checksum of the concatenation.
+     */
+    static long combineAdler(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += (adler1 >> 16 & 0xFFFF) + (adler2 >> 16 & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= 2L * ADLER_BASE) sum2 -= 2L * ADLER_BASE;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum1 | sum2 << 16;
+    }
+
+    /**
+     * Puts a small chunk into a buffer.
+     *
+     * @param buffer The buffer.
+     * @param type   The type of the chunk.
+     * @param data   The data of the chunk.
+     */
+    private static void putChunk(ByteBuffer buffer, String type, byte[] data) {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data);
+        buffer.putInt(data.length).put(name).put(data).putInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes a chunk whose data is made of three parts to a file channel, without copying the parts.
+     *
+     * @param channel The file channel.
+     * @param type    The type of the chunk.
+     * @param prefix  The first part of the data.
+     * @param data    The second part of the data.
+     * @param suffix  The third part of the data.
+     * @throws IOException If the chunk can't be written.
+     */
+    private static void writeChunk(FileChannel channel, String type, byte[] prefix, byte[] data, byte[] suffix)
+            throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(prefix);
+        crc.update(data);
+        crc.update(suffix);
+        ByteBuffer head = ByteBuffer.allocate(8).putInt(prefix.length + data.length + suffix.length).put(name);
+        ByteBuffer tail = ByteBuffer.allocate(4).putInt((int) crc.getValue());
+        ByteBuffer[] buffers = {head.flip(), ByteBuffer.wrap(prefix), ByteBuffer.wrap(data), ByteBuffer.wrap(suffix),
+                tail.flip()};
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) remaining += buffer.remaining();
+        while (remaining > 0) remaining -= channel.write(buffers);
+    }
+
+    /**
+     * Writes a buffer to a file channel.
+     *
+     * @param channel The file channel.
+     * @param buffer  The buffer.
+     * @throws IOException If the buffer can't be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -2,13 +2,21 @@ package renderer;
 
 import primitives.Color;
 import primitives.Ray;
+import primitives.RayPacket;
 import scene.Scene;
 
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.function.IntConsumer;
+
 /**
  * This is an abstract base class for a ray tracer.
  * It provides basic functionality for tracing rays in a scene.
  */
-public abstract class RayTracerBase {
+public abstract class RayTracerBase implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
 
     /**
      * The scene to be rendered.
@@ -21,7 +29,9 @@ public abstract class RayTracerBase {
      * @param scene The scene to be rendered.
      */
     public RayTracerBase(Scene scene) {
-        if(scene.isAABB)scene.geometries.setBoxes();
+        if (scene.isBVH) scene.geometries.buildBVH();
+        // the boxes are constructed before the render threads test them
+        if (scene.isAABB) scene.geometries.setBoxes();
         this.scene = scene;
     }
 
@@ -32,4 +42,23 @@ public abstract class RayTracerBase {
      * @return The color of the intersection point.
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Traces the rays of a packet in the scene and returns their colors. Before a ray is traced on from its closest
+     * intersection, its index is given to the action, so the camera can set the pixel the ray belongs to.
+     * The default implementation traces each ray alone, tracers that can find the intersections of the whole
+     * packet together override it.
+     *
+     * @param packet      The rays to be traced.
+     * @param beforeColor The action before the color of each ray is calculated, given the index of the ray.
+     * @return The colors of the rays by the order of the rays.
+     */
+    public Color[] tracePacket(RayPacket packet, IntConsumer beforeColor) {
+        Color[] colors = new Color[packet.size()];
+        for (int r = 0; r < colors.length; ++r) {
+            beforeColor.accept(r);
+            colors[r] = traceRay(packet.getRay(r));
+        }
+        return colors;
+    }
 }
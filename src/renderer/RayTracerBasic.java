@@ -5,7 +5,8 @@ import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
 
-import java.util.List;
+import java.io.Serial;
+import java.util.function.IntConsumer;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -15,10 +16,26 @@ import static primitives.Util.isZero;
  * It provides an implementation for the traceRay method to trace rays in a scene and calculate the color of the intersection points.
  */
 public class RayTracerBasic extends RayTracerBase {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private static final Double3 INITIAL_K = Double3.ONE;
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final double MIN_CALC_COLOR_K = 0.001;
 
+    /**
+     * Whether glossy and matte beams are sampled adaptively instead of by the full blackboard grid
+     */
+    private boolean adaptiveBeam = false;
+    /**
+     * The largest color difference of the samples of a beam cell that is not divided further
+     */
+    private double beamThreshold = 5;
+    /**
+     * The sampler of the glossy and matte beams, or null for the pattern of the blackboard
+     */
+    private Sampler sampler = null;
+
     /**
      * Constructs a RayTracerBasic object with the given scene.
      *
@@ -28,14 +45,64 @@ public class RayTracerBasic extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Sets whether glossy and matte beams are sampled adaptively. An adaptive beam is first sampled at the corners
+     * and the center of the blackboard, and only the cells whose samples differ are divided. The finest division
+     * follows the density of the blackboard, and it is coarser at deeper recursion levels and for weaker
+     * contributions, so the cost does not explode with the recursion.
+     *
+     * @param adaptiveBeam {@code true} for adaptive beams, {@code false} for the full blackboard grid.
+     * @return The ray tracer itself.
+     */
+    public RayTracerBasic setAdaptiveBeam(boolean adaptiveBeam) {
+        this.adaptiveBeam = adaptiveBeam;
+        return this;
+    }
+
+    /**
+     * Sets the largest color difference of the samples of an adaptive beam cell that is not divided further.
+     *
+     * @param beamThreshold The color difference threshold.
+     * @return The ray tracer itself.
+     */
+    public RayTracerBasic setBeamThreshold(double beamThreshold) {
+        this.beamThreshold = beamThreshold;
+        return this;
+    }
+
 
     @Override
     public Color traceRay(Ray ray) {
         ray.setAABB(scene.isAABB);
+        Counters counters = Counters.get();
+        if (counters != null) ++counters.primaryRays;
         GeoPoint closestPoint = findClosestIntersection(ray);
         return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
     }
 
+    /**
+     * Traces the rays of a packet by finding the closest intersections of all of them together, then calculates the
+     * color of each ray as {@link #traceRay(Ray)} does.
+     *
+     * @param packet      The rays to be traced.
+     * @param beforeColor The action before the color of each ray is calculated, given the index of the ray.
+     * @return The colors of the rays by the order of the rays.
+     */
+    @Override
+    public Color[] tracePacket(RayPacket packet, IntConsumer beforeColor) {
+        Counters counters = Counters.get();
+        if (counters != null) counters.primaryRays += packet.size();
+        for (int r = 0; r < packet.size(); ++r)
+            packet.getRay(r).setAABB(scene.isAABB);
+        GeoPoint[] closest = scene.geometries.findClosestGeoIntersections(packet);
+        Color[] colors = new Color[closest.length];
+        for (int r = 0; r < colors.length; ++r) {
+            beforeColor.accept(r);
+            colors[r] = closest[r] == null ? scene.background : calcColor(closest[r], packet.getRay(r));
+        }
+        return colors;
+    }
+
 
     /**
      * Calculates the color at a given point in the scene.
@@ -45,9 +112,14 @@ public class RayTracerBasic extends RayTracerBase {
      */
     private Color calcColor(GeoPoint intersection, Ray ray, int level, Double3 k) {
         Vector v = ray.getDir();
-        Vector n = intersection.geometry.getNormal(intersection.point);
+        Vector n = intersection.getNormal();
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0) return scene.background;
+        Counters counters = Counters.get();
+        if (counters != null) {
+            ++counters.shadedPoints;
+            counters.depthSum += MAX_CALC_COLOR_LEVEL - level + 1;
+        }
         Color color = calcLocalEffects(intersection, n, v, nv, k);
         return level == 1 ? color : color.add(calcGlobalEffects(intersection, n, v, level, k));
     }
@@ -76,35 +148,226 @@ public class RayTracerBasic extends RayTracerBase {
     private Color calcGlobalEffects(GeoPoint gp, Vector n, Vector v, int level, Double3 k) {
         Material material = gp.geometry.getMaterial();
 
-        return calcGlossyMattColor(constructReflectedRay(gp, v, n), n, level, k, material, material.kR).add(
-                calcGlossyMattColor(constructRefractedRay(gp, v, n), n, level, k, material, material.kT));
+        return calcGlossyMattColor(constructReflectedRay(gp, v, n), true, n, level, k, material, material.kR).add(
+                calcGlossyMattColor(constructRefractedRay(gp, v, n), false, n, level, k, material, material.kT));
+    }
+
+    /**
+     * Sets the sampler of the glossy and matte beams. A beam of a blackboard of density d is then sampled by d^2
+     * points of the sampler, seeded by the pixel and by the bounce, instead of the fixed pattern of the blackboard.
+     * The adaptive beams are not affected.
+     *
+     * @param sampler The sampler, or null for the pattern of the blackboard.
+     * @return The ray tracer itself.
+     */
+    public RayTracerBasic setSampler(Sampler sampler) {
+        this.sampler = sampler;
+        return this;
     }
 
     /**
      * Calculates the color of glossy and matte effects for a given optic ray.
      *
-     * @param optic    The optic ray to calculate the effects for.
-     * @param n        The surface normal at the point of intersection.
-     * @param level    The recursion level for ray tracing.
-     * @param k        The coefficient values.
-     * @param material The material of the object.
-     * @param kx       The coefficient values for the optic ray.
+     * @param optic     The optic ray to calculate the effects for.
+     * @param reflected Whether the optic ray is reflected or refracted.
+     * @param n         The surface normal at the point of intersection.
+     * @param level     The recursion level for ray tracing.
+     * @param k         The coefficient values.
+     * @param material  The material of the object.
+     * @param kx        The coefficient values for the optic ray.
      * @return The calculated color of the glossy and matte effects.
      */
-    private Color calcGlossyMattColor(Ray optic, Vector n, int level, Double3 k, Material material, Double3 kx) {
+    private Color calcGlossyMattColor(Ray optic, boolean reflected, Vector n, int level, Double3 k,
+                                      Material material, Double3 kx) {
+        if (adaptiveBeam) return calcAdaptiveBeamColor(optic, reflected, n, level, k, material.blackBoard, kx);
+        if (sampler != null) return calcSampledBeamColor(optic, reflected, n, level, k, material.blackBoard, kx);
         Color color = Color.BLACK;
-        Vector dir = optic.getDir();
-        List<Ray> rayBeam = optic.calculateBeam(material.blackBoard);
+        double nd = optic.getDir().dotProduct(n);
+        Blackboard.Board board = material.blackBoard.place(optic);
         int counter = 0;
-        for (Ray ray : rayBeam) {
-            if (dir.dotProduct(n) * ray.getDir().dotProduct(n) > 0) {
-                color = color.add(calcGlobalEffect(ray, level, k, kx));
+        for (int i = 0; i < board.size(); i++) {
+            Ray ray = board.constructRay(i);
+            if (nd * ray.getDir().dotProduct(n) > 0) {
+                color = color.add(calcGlobalEffect(ray, reflected, level, k, kx));
                 ++counter;
             }
         }
         return color.reduce(counter);
     }
 
+    /**
+     * Calculates the color of glossy and matte effects for a given optic ray by a beam of the sampler.
+     *
+     * @param optic      The optic ray to calculate the effects for.
+     * @param reflected  Whether the optic ray is reflected or refracted.
+     * @param n          The surface normal at the point of intersection.
+     * @param level      The recursion level for ray tracing.
+     * @param k          The coefficient values.
+     * @param blackboard The blackboard of the material.
+     * @param kx         The coefficient values for the optic ray.
+     * @return The calculated color of the glossy and matte effects.
+     */
+    private Color calcSampledBeamColor(Ray optic, boolean reflected, Vector n, int level, Double3 k,
+                                       Blackboard blackboard, Double3 kx) {
+        int density = blackboard.getDensityBeam();
+        if (blackboard.getWidth() == 0 || density <= 1) return calcGlobalEffect(optic, reflected, level, k, kx);
+        if (k.product(kx).lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+
+        int count = density * density;
+        double[] points = new double[2 * count];
+        sampler.sample(points, count, SampleContext.nextSeed(level));
+        Blackboard.Board board = blackboard.place(optic);
+        double nd = optic.getDir().dotProduct(n);
+        Color color = Color.BLACK;
+        int counter = 0;
+        for (int i = 0; i < count; i++) {
+            Ray ray = board.constructRay(2 * points[2 * i] - 1, 2 * points[2 * i + 1] - 1);
+            if (nd * ray.getDir().dotProduct(n) > 0) {
+                color = color.add(calcGlobalEffect(ray, reflected, level, k, kx));
+                ++counter;
+            }
+        }
+        return counter == 0 ? Color.BLACK : color.reduce(counter);
+    }
+
+    /**
+     * Calculates the color of glossy and matte effects for a given optic ray by an adaptive beam.
+     *
+     * @param optic      The optic ray to calculate the effects for.
+     * @param reflected  Whether the optic ray is reflected or refracted.
+     * @param n          The surface normal at the point of intersection.
+     * @param level      The recursion level for ray tracing.
+     * @param k          The coefficient values.
+     * @param blackboard The blackboard of the material.
+     * @param kx         The coefficient values for the optic ray.
+     * @return The calculated color of the glossy and matte effects.
+     */
+    private Color calcAdaptiveBeamColor(Ray optic, boolean reflected, Vector n, int level, Double3 k,
+                                        Blackboard blackboard, Double3 kx) {
+        Double3 kkx = k.product(kx);
+        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+        int density = blackboard.getDensityBeam();
+        if (blackboard.getWidth() == 0 || density <= 1) return calcGlobalEffect(optic, reflected, level, k, kx);
+
+        // the finest cells are about as many as the blackboard grid, one division less for every recursion level
+        // and for every order of magnitude of weakening of the contribution, until a single ray is left
+        int depth = 31 - Integer.numberOfLeadingZeros(density) - (MAX_CALC_COLOR_LEVEL - level);
+        if (kkx.lowerThan(0.1)) --depth;
+        if (kkx.lowerThan(0.01)) --depth;
+        if (depth < 0) return calcGlobalEffect(optic, reflected, level, k, kx);
+
+        Beam beam = new Beam(blackboard.place(optic), reflected, n, optic.getDir().dotProduct(n), level, k, kx);
+        Color color = beam.cell(-1, -1, 2, beam.sample(-1, -1), beam.sample(1, -1), beam.sample(-1, 1),
+                beam.sample(1, 1), depth);
+        return beam.weight == 0 ? Color.BLACK : color.reduce(beam.weight);
+    }
+
+    /**
+     * An adaptive beam of glossy or matte rays. A sample of the beam that leaves the surface to the wrong side
+     * has no color, and it is left out of the averages.
+     */
+    private class Beam {
+        private final Blackboard.Board board;
+        private final boolean reflected;
+        private final Vector n;
+        private final double nd;
+        private final int level;
+        private final Double3 k;
+        private final Double3 kx;
+        /**
+         * The area of the samples of the beam summed so far
+         */
+        private double weight = 0;
+
+        /**
+         * Constructs an adaptive beam.
+         *
+         * @param board     The blackboard placed for the optic ray.
+         * @param reflected Whether the optic ray is reflected or refracted.
+         * @param n         The surface normal at the point of intersection.
+         * @param nd        The dot product of the normal and the direction of the optic ray.
+         * @param level     The recursion level for ray tracing.
+         * @param k         The coefficient values.
+         * @param kx        The coefficient values for the optic ray.
+         */
+        Beam(Blackboard.Board board, boolean reflected, Vector n, double nd, int level, Double3 k, Double3 kx) {
+            this.board = board;
+            this.reflected = reflected;
+            this.n = n;
+            this.nd = nd;
+            this.level = level;
+            this.k = k;
+            this.kx = kx;
+        }
+
+        /**
+         * Traces the ray of the beam through a point of the blackboard.
+         *
+         * @param x The horizontal coordinate of the point, between -1 and 1.
+         * @param y The vertical coordinate of the point, between -1 and 1.
+         * @return The color of the ray, or null if the ray leaves the surface to the wrong side.
+         */
+        Color sample(double x, double y) {
+            Ray ray = board.constructRay(x, y);
+            return nd * ray.getDir().dotProduct(n) > 0 ? calcGlobalEffect(ray, reflected, level, k, kx) : null;
+        }
+
+        /**
+         * Integrates a square cell of the blackboard. The center of the cell is sampled, and if its color and the
+         * colors of the corners differ, the cell is divided into four cells.
+         *
+         * @param x0    The horizontal coordinate of the lower left corner.
+         * @param y0    The vertical coordinate of the lower left corner.
+         * @param size  The edge length of the cell.
+         * @param c00   The color of the lower left corner.
+         * @param c10   The color of the lower right corner.
+         * @param c01   The color of the upper left corner.
+         * @param c11   The color of the upper right corner.
+         * @param depth The amount of divisions allowed.
+         * @return The sum of the colors of the cell, each scaled by the area it stands for.
+         */
+        Color cell(double x0, double y0, double size, Color c00, Color c10, Color c01, Color c11, int depth) {
+            double half = size / 2;
+            double xm = x0 + half;
+            double ym = y0 + half;
+            Color c = sample(xm, ym);
+            if (depth > 0 && (differ(c, c00) || differ(c, c10) || differ(c, c01) || differ(c, c11))) {
+                Color bottom = sample(xm, y0);
+                Color top = sample(xm, y0 + size);
+                Color left = sample(x0, ym);
+                Color right = sample(x0 + size, ym);
+                return cell(x0, y0, half, c00, bottom, left, c, depth - 1)
+                        .add(cell(xm, y0, half, bottom, c10, c, right, depth - 1),
+                                cell(x0, ym, half, left, c, c01, top, depth - 1),
+                                cell(xm, ym, half, c, right, top, c11, depth - 1));
+            }
+
+            Color sum = Color.BLACK;
+            int count = 0;
+            for (Color color : new Color[]{c, c00, c10, c01, c11})
+                if (color != null) {
+                    sum = sum.add(color);
+                    ++count;
+                }
+            if (count == 0) return Color.BLACK;
+            double area = size * size * count / 5;
+            weight += area;
+            return sum.scale(area / count);
+        }
+
+        /**
+         * Checks whether two samples of the beam differ.
+         *
+         * @param a The first sample.
+         * @param b The second sample.
+         * @return {@code true} if only one of the samples has a color or their colors differ.
+         */
+        private boolean differ(Color a, Color b) {
+            if (a == null || b == null) return a != b;
+            return a.difference(b) > beamThreshold;
+        }
+    }
+
     /**
      * Constructs a reflected ray based on a GeoPoint, incident vector, and surface normal.
      *
@@ -114,7 +377,9 @@ public class RayTracerBasic extends RayTracerBase {
      * @return The constructed reflected Ray.
      */
     private Ray constructReflectedRay(GeoPoint gp, Vector v, Vector n) {
-        return new Ray(gp.point, v.subtract(n.scale(2 * Util.alignZero(v.dotProduct(n)))), n);
+        double vn2 = 2 * Util.alignZero(v.dotProduct(n));
+        return new Ray(gp.point, new Vector(v.getX() - n.getX() * vn2, v.getY() - n.getY() * vn2,
+                v.getZ() - n.getZ() * vn2), n);
     }
 
     /**
@@ -132,18 +397,24 @@ public class RayTracerBasic extends RayTracerBase {
     /**
      * Calculates the global effect (reflection or refraction) for a given Ray.
      *
-     * @param ray   The Ray to calculate the global effect for.
-     * @param level The current recursion level.
-     * @param k     The accumulated transparency coefficient.
-     * @param kx    The transparency coefficient of the material.
+     * @param ray       The Ray to calculate the global effect for.
+     * @param reflected Whether the ray is reflected or refracted.
+     * @param level     The current recursion level.
+     * @param k         The accumulated transparency coefficient.
+     * @param kx        The transparency coefficient of the material.
      * @return The calculated Color representing the global effect.
      */
-    private Color calcGlobalEffect(Ray ray, int level, Double3 k, Double3 kx) {
+    private Color calcGlobalEffect(Ray ray, boolean reflected, int level, Double3 k, Double3 kx) {
         Double3 kkx = k.product(kx);
         if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+        Counters counters = Counters.get();
+        if (counters != null) {
+            if (reflected) ++counters.reflectionRays;
+            else ++counters.refractionRays;
+        }
         GeoPoint gp = findClosestIntersection(ray);
         if (gp == null) return scene.background.scale(kx);
-        return Util.isZero(gp.geometry.getNormal(gp.point).dotProduct(ray.getDir())) ? Color.BLACK //
+        return Util.isZero(gp.getNormal().dotProduct(ray.getDir())) ? Color.BLACK //
                 : calcColor(gp, ray, level - 1, kkx).scale(kx);
     }
 
@@ -154,8 +425,7 @@ public class RayTracerBasic extends RayTracerBase {
      * @return The closest GeoPoint representing the closest intersection, or null if no intersection is found.
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> points=scene.geometries.findGeoIntersections(ray);
-        return ray.findClosestGeoPoint(points);
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
     /**
@@ -207,8 +477,10 @@ public class RayTracerBasic extends RayTracerBase {
      * @return The color of the specular reflection
      */
     private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        Vector r = l.subtract(n.scale(2 * nl));
-        double max = -r.dotProduct(v);
+        // r = l - 2(n.l)n, taken on plain coordinates since only its dot product with v is needed
+        double nl2 = 2 * nl;
+        double max = -((l.getX() - n.getX() * nl2) * v.getX() + (l.getY() - n.getY() * nl2) * v.getY()
+                + (l.getZ() - n.getZ() * nl2) * v.getZ());
         return alignZero(max) > 0 ? material.kS.scale(Math.pow(max, material.nShininess)) : Double3.ZERO;
     }
 
@@ -242,14 +514,10 @@ public class RayTracerBasic extends RayTracerBase {
     private Double3 transparency(GeoPoint geoPoint, LightSource ls, Vector l, Vector n) {
         Vector lightDirection = l.scale(-1); // from point to light source
         Ray lightRay = new Ray(geoPoint.point, lightDirection, n);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, ls.getDistance(geoPoint.point));
-        Double3 ktr = Double3.ONE;
-        if (intersections == null) return Double3.ONE;
-        for (GeoPoint gp : intersections) {
-            ktr = ktr.product(gp.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K)) return Double3.ZERO;
-        }
-        return ktr;
+        lightRay.setAABB(scene.isAABB);
+        Counters counters = Counters.get();
+        if (counters != null) ++counters.shadowRays;
+        return scene.geometries.findTransmittance(lightRay, ls.getDistance(geoPoint.point), Double3.ONE, MIN_CALC_COLOR_K);
     }
 
 }
@@ -0,0 +1,377 @@
+package renderer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.MissingResourceException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The coordinator of a distributed rendering of the image of a camera by {@link RenderWorker render workers}, which
+ * may be processes on other machines. The camera, with its ray tracer and scene, is serialized once and sent to every
+ * worker that connects, and the tiles of the image are handed out to the workers one at a time. The compressed
+ * tiles the workers send back are written to the image writer of the camera, and the image is written when all the
+ * tiles are done - the same image {@link Camera#renderImage()} renders.
+ * <p>
+ * The tile of a worker that disconnects or doesn't answer within the tile timeout is handed out again. When no tile
+ * is left to hand out, the idle workers render a copy of the oldest tile still being rendered, so a slow worker
+ * doesn't hold up the end of the image, and the first copy that arrives is taken.
+ * <p>
+ * The scene must be serializable - a scene of the geometries, lights and samplers of the project is.
+ */
+public class RenderCoordinator {
+    private final Camera camera;
+    private int port = 0;
+    private int localWorkers = 0;
+    private long tileTimeout = 60_000;
+    private ServerSocket server = null;
+
+    /**
+     * Constructs a coordinator of the rendering of the image of a camera.
+     *
+     * @param camera The camera, with its image writer and ray tracer.
+     */
+    public RenderCoordinator(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Sets the port the workers connect to.
+     *
+     * @param port The port, 0 for any free port.
+     * @return The coordinator itself.
+     */
+    public RenderCoordinator setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Sets the amount of worker processes to start on this machine for the rendering. Other workers may connect too.
+     *
+     * @param localWorkers The amount of local worker processes.
+     * @return The coordinator itself.
+     */
+    public RenderCoordinator setLocalWorkers(int localWorkers) {
+        this.localWorkers = localWorkers;
+        return this;
+    }
+
+    /**
+     * Sets the time a worker has to send back a tile before the tile is handed out again. The rendering fails
+     * if no worker is connected for this time.
+     *
+     * @param millis The tile timeout in milliseconds.
+     * @return The coordinator itself.
+     * @throws IllegalArgumentException if the timeout is not positive
+     */
+    public RenderCoordinator setTileTimeout(long millis) {
+        if (millis <= 0) throw new IllegalArgumentException("Tile timeout must be positive");
+        this.tileTimeout = millis;
+        return this;
+    }
+
+    /**
+     * Starts listening for the workers, if not started yet. The rendering starts listening by itself, this is
+     * needed only for knowing the port before the rendering.
+     *
+     * @return The port the workers connect to.
+     * @throws IOException if the port can't be listened on
+     */
+    public int open() throws IOException {
+        if (server == null) server = new ServerSocket(port);
+        return server.getLocalPort();
+    }
+
+    /**
+     * Renders the image of the camera by the workers and writes it.
+     *
+     * @return The statistics of the rendering, with the time of every tile from handing it out to receiving it.
+     * @throws IOException              if the port can't be listened on or the camera can't be serialized
+     * @throws MissingResourceException if any field of the camera required for rendering is uninitialized
+     * @throws IllegalStateException    if no worker is connected for the tile timeout
+     */
+    public RenderStats renderImage() throws IOException {
+        camera.checkRenderFields();
+        long start = System.nanoTime();
+        ImageWriter imageWriter = camera.getImageWriter();
+        TileManager tiles = camera.tileManager();
+        RenderStats stats = new RenderStats(imageWriter.getNx(), imageWriter.getNy(), tiles.getTilesCount(), false);
+        Schedule schedule = new Schedule(tiles.getTilesCount());
+        byte[] job = job(imageWriter.getNx(), imageWriter.getNy(), tiles.getTileSize());
+
+        int listening = open();
+        // the acceptor keeps its own socket, the field is cleared for the next rendering
+        ServerSocket server = this.server;
+        List<Process> processes = new ArrayList<>(localWorkers);
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = server.accept();
+                    schedule.join();
+                    Thread worker = new Thread(() -> serve(socket, job, schedule, tiles, stats),
+                            "render-coordinator-" + socket.getRemoteSocketAddress());
+                    worker.setDaemon(true);
+                    worker.start();
+                }
+            } catch (IOException ignore) {
+                // the server socket is closed when the rendering is done
+            }
+        }, "render-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            for (int i = 0; i < localWorkers; ++i)
+                processes.add(startLocalWorker(listening));
+            schedule.await(tileTimeout);
+        } finally {
+            this.server = null;
+            server.close();
+            for (Process process : processes)
+                stopLocalWorker(process);
+        }
+        stats.setRenderTime(System.nanoTime() - start);
+
+        camera.writeToImage();
+        return stats;
+    }
+
+    /**
+     * Serializes the job of the workers.
+     *
+     * @param nX       The amount of pixels by width.
+     * @param nY       The amount of pixels by height.
+     * @param tileSize The side of a tile.
+     * @return The serialized job.
+     * @throws IOException if the camera, its ray tracer or its scene can't be serialized
+     */
+    private byte[] job(int nX, int nY, int tileSize) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeInt(nX);
+            objects.writeInt(nY);
+            objects.writeInt(tileSize);
+            objects.writeObject(camera);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Hands out tiles to a connected worker and collects them, until the image is done or the worker fails.
+     *
+     * @param socket   The connection to the worker.
+     * @param job      The serialized job.
+     * @param schedule The schedule of the tiles.
+     * @param tiles    The tile manager of the image.
+     * @param stats    The statistics of the rendering.
+     */
+    private void serve(Socket socket, byte[] job, Schedule schedule, TileManager tiles, RenderStats stats) {
+        int index = -1;
+        try (socket) {
+            socket.setSoTimeout((int) Math.min(tileTimeout, Integer.MAX_VALUE));
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(job.length);
+            out.write(job);
+            for (index = schedule.next(); index >= 0; index = schedule.next()) {
+                long tileStart = System.nanoTime();
+                out.writeInt(index);
+                out.flush();
+                if (in.readInt() != index) throw new IOException("Wrong tile from the worker");
+                byte[] data = in.readNBytes(in.readInt());
+                TileManager.Tile tile = tiles.getTile(index);
+                int size = tile.size();
+                float[] red = new float[size], green = new float[size], blue = new float[size];
+                RenderWorker.decode(data, red, green, blue);
+                if (schedule.claim(index)) {
+                    camera.getImageWriter().writePixels(tile.x0(), tile.y0(), tile.x1() - tile.x0(),
+                            tile.y1() - tile.y0(), red, green, blue);
+                    stats.addTile(index, System.nanoTime() - tileStart, null);
+                    tiles.tileDone(tile);
+                    schedule.written();
+                }
+            }
+            out.writeInt(-1);
+            out.flush();
+        } catch (SocketException ignore) {
+            // the worker disconnected, or the rendering is done
+        } catch (IOException ignore) {
+            // the worker timed out or sent wrong data, its tile is handed out again
+        } finally {
+            if (index >= 0) schedule.failed(index);
+            schedule.leave();
+        }
+    }
+
+    /**
+     * Starts a worker process on this machine, of the same Java and class path as this process.
+     *
+     * @param port The port of the coordinator.
+     * @return The process.
+     * @throws IOException if the process can't be started
+     */
+    private static Process startLocalWorker(int port) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), RenderWorker.class.getName(),
+                InetAddress.getLoopbackAddress().getHostAddress(), String.valueOf(port))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * Waits a little for a local worker process to end after the image is done, and kills it if it doesn't.
+     *
+     * @param process The process.
+     */
+    private static void stopLocalWorker(Process process) {
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The schedule of the tiles of the image among the connected workers.
+     */
+    private static class Schedule {
+        private final Deque<Integer> pending = new ArrayDeque<>();
+        private final boolean[] done;
+        /**
+         * The amount of the workers rendering each tile
+         */
+        private final int[] copies;
+        /**
+         * The time each tile was last handed out, in nanoseconds
+         */
+        private final long[] started;
+        private int remaining;
+        private int workers = 0;
+        private long lastWorker = System.nanoTime();
+
+        /**
+         * Constructs the schedule of the tiles of an image, all of them waiting to be handed out.
+         *
+         * @param tilesCount The amount of the tiles.
+         */
+        Schedule(int tilesCount) {
+            done = new boolean[tilesCount];
+            copies = new int[tilesCount];
+            started = new long[tilesCount];
+            remaining = tilesCount;
+            for (int i = 0; i < tilesCount; ++i)
+                pending.add(i);
+        }
+
+        /**
+         * Counts a connected worker.
+         */
+        synchronized void join() {
+            ++workers;
+        }
+
+        /**
+         * Counts a worker that is no longer connected.
+         */
+        synchronized void leave() {
+            --workers;
+            lastWorker = System.nanoTime();
+            notifyAll();
+        }
+
+        /**
+         * Takes a tile to hand out to a worker. When no tile is waiting, a copy of the tile that is rendered the
+         * longest by a single worker is taken, and if there is none, it waits.
+         *
+         * @return The index of the tile, or -1 if the image is done.
+         */
+        synchronized int next() {
+            while (remaining > 0) {
+                Integer index = pending.poll();
+                if (index == null) {
+                    int oldest = -1;
+                    for (int i = 0; i < done.length; ++i)
+                        if (!done[i] && copies[i] == 1 && (oldest < 0 || started[i] < started[oldest])) oldest = i;
+                    if (oldest >= 0) index = oldest;
+                }
+                if (index != null) {
+                    ++copies[index];
+                    started[index] = System.nanoTime();
+                    return index;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Marks a tile as received. The first copy of the tile that is received is to be written to the image,
+         * and then reported by {@link #written()}.
+         *
+         * @param index The index of the tile.
+         * @return {@code true} if it is the first copy of the tile that was received.
+         */
+        synchronized boolean claim(int index) {
+            --copies[index];
+            if (done[index]) return false;
+            done[index] = true;
+            return true;
+        }
+
+        /**
+         * Counts a tile that was written to the image.
+         */
+        synchronized void written() {
+            --remaining;
+            notifyAll();
+        }
+
+        /**
+         * Returns the tile of a failed worker. Unless the tile is done or another worker renders it, it is handed
+         * out again first.
+         *
+         * @param index The index of the tile.
+         */
+        synchronized void failed(int index) {
+            if (done[index]) return;
+            if (--copies[index] == 0) pending.addFirst(index);
+            notifyAll();
+        }
+
+        /**
+         * Waits until all the tiles are done.
+         *
+         * @param timeout The longest time with no worker connected, in milliseconds.
+         * @throws IllegalStateException if no worker is connected for the timeout
+         */
+        synchronized void await(long timeout) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (remaining > 0) {
+                long idle = workers > 0 ? 0 : System.nanoTime() - lastWorker;
+                if (idle >= nanos)
+                    throw new IllegalStateException("No render worker connected for " + timeout + "ms, "
+                            + remaining + " tiles are not rendered");
+                try {
+                    wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(workers > 0 ? nanos : nanos - idle)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Rendering was interrupted", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package renderer;
+
+import primitives.Color;
+import primitives.Counters;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * The statistics of a rendering of {@link Camera#renderImage()}: the time of every tile, and if the camera collects
+ * them ({@link Camera#setRenderStats(boolean)}), the counts of the rays and of the intersection tests, the average
+ * recursion depth and the time of every pixel. The pixel times alone are measured by
+ * {@link Camera#setPixelTimes(boolean)}.
+ * <p>
+ * The counts are gathered by each render thread in its own {@link Counters} and merged here when a tile is done.
+ * The pixel times can be written as a heatmap image, and the statistics can be published over JMX.
+ */
+public class RenderStats implements RenderStatsMXBean {
+    /**
+     * The colors of the heatmap, from the cheapest pixels to the most expensive ones
+     */
+    private static final Color[] HEAT_COLORS = {new Color(0, 0, 4), new Color(87, 16, 110),
+            new Color(188, 55, 84), new Color(249, 142, 9), new Color(252, 255, 164)};
+
+    private final int nX;
+    private final int nY;
+    /**
+     * The times of the pixels by rows, null if they are not measured
+     */
+    private final long[] pixelTimes;
+    private final long[] tileTimes;
+    private long renderTime = 0;
+
+    private long primaryRays = 0;
+    private long shadowRays = 0;
+    private long reflectionRays = 0;
+    private long refractionRays = 0;
+    private long primitiveTests = 0;
+    private long boxTests = 0;
+    private long boxRejections = 0;
+    private long shadedPoints = 0;
+    private long depthSum = 0;
+
+    /**
+     * Constructs empty statistics of a rendering.
+     *
+     * @param nX         The amount of pixels by width.
+     * @param nY         The amount of pixels by height.
+     * @param tilesCount The amount of tiles of the image.
+     * @param pixelTimes Whether the times of the pixels are measured.
+     */
+    RenderStats(int nX, int nY, int tilesCount, boolean pixelTimes) {
+        this.nX = nX;
+        this.nY = nY;
+        this.pixelTimes = pixelTimes ? new long[nX * nY] : null;
+        tileTimes = new long[tilesCount];
+    }
+
+    /**
+     * Sets the time the rendering of a pixel took. Each pixel is set by a single thread, and only if the pixel times
+     * are measured.
+     *
+     * @param x     The column of the pixel.
+     * @param y     The row of the pixel.
+     * @param nanos The time in nanoseconds.
+     */
+    void setPixelTime(int x, int y, long nanos) {
+        pixelTimes[y * nX + x] = nanos;
+    }
+
+    /**
+     * Adds a rendered tile: its time and the counts of the thread that rendered it.
+     *
+     * @param index    The index of the tile.
+     * @param nanos    The time in nanoseconds.
+     * @param counters The counters of the tile, or null if no counts were collected.
+     */
+    synchronized void addTile(int index, long nanos, Counters counters) {
+        tileTimes[index] = nanos;
+        if (counters == null) return;
+        primaryRays += counters.primaryRays;
+        shadowRays += counters.shadowRays;
+        reflectionRays += counters.reflectionRays;
+        refractionRays += counters.refractionRays;
+        primitiveTests += counters.primitiveTests;
+        boxTests += counters.boxTests;
+        boxRejections += counters.boxRejections;
+        shadedPoints += counters.shadedPoints;
+        depthSum += counters.depthSum;
+    }
+
+    /**
+     * Sets the time the whole rendering took.
+     *
+     * @param nanos The time in nanoseconds.
+     */
+    void setRenderTime(long nanos) {
+        renderTime = nanos;
+    }
+
+    @Override
+    public synchronized long getPrimaryRays() {
+        return primaryRays;
+    }
+
+    @Override
+    public synchronized long getShadowRays() {
+        return shadowRays;
+    }
+
+    @Override
+    public synchronized long getReflectionRays() {
+        return reflectionRays;
+    }
+
+    @Override
+    public synchronized long getRefractionRays() {
+        return refractionRays;
+    }
+
+    @Override
+    public synchronized long getPrimitiveTests() {
+        return primitiveTests;
+    }
+
+    @Override
+    public synchronized long getBoxTests() {
+        return boxTests;
+    }
+
+    @Override
+    public synchronized long getBoxRejections() {
+        return boxRejections;
+    }
+
+    @Override
+    public synchronized long getShadedPoints() {
+        return shadedPoints;
+    }
+
+    @Override
+    public synchronized double getAverageDepth() {
+        return shadedPoints == 0 ? 0 : (double) depthSum / shadedPoints;
+    }
+
+    @Override
+    public synchronized long[] getTileTimes() {
+        return tileTimes.clone();
+    }
+
+    @Override
+    public long getRenderTime() {
+        return renderTime;
+    }
+
+    /**
+     * Returns the time the rendering of a pixel took.
+     * The pixels of the tiles loaded from a tile cache took no time.
+     *
+     * @param x The column of the pixel.
+     * @param y The row of the pixel.
+     * @return The time in nanoseconds, 0 if the pixel times are not measured.
+     */
+    public long getPixelTime(int x, int y) {
+        return pixelTimes == null ? 0 : pixelTimes[y * nX + x];
+    }
+
+    /**
+     * Builds a heatmap of the cost of the pixels. The times are taken on a logarithmic scale between the 1st and the
+     * 99th percentiles of the pixel times, so a few pixels stalled by the collector or the compiler don't flatten the
+     * map, from black through purple and orange to light yellow. The pixels that took no time are black.
+     *
+     * @param imageName The name of the heatmap image.
+     * @return The image writer of the heatmap, to be written by {@link ImageWriter#writeToImage()}.
+     * @throws IllegalStateException if the pixel times were not measured
+     */
+    public ImageWriter heatmap(String imageName) {
+        if (pixelTimes == null) throw new IllegalStateException("The pixel times were not measured");
+        long[] sorted = Arrays.stream(pixelTimes).filter(time -> time > 0).sorted().toArray();
+        double logMin = sorted.length == 0 ? 0 : Math.log(sorted[sorted.length / 100]);
+        double logMax = sorted.length == 0 ? 0 : Math.log(sorted[sorted.length - 1 - sorted.length / 100]);
+        double range = logMax > logMin ? logMax - logMin : 1;
+
+        ImageWriter heatmap = new ImageWriter(imageName, nX, nY);
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x) {
+                long time = pixelTimes[y * nX + x];
+                double t = Math.min(Math.max((Math.log(time) - logMin) / range, 0), 1);
+                heatmap.writePixel(x, y, time == 0 ? Color.BLACK : heatColor(t));
+            }
+        return heatmap;
+    }
+
+    /**
+     * Calculates the color of the heatmap of a relative cost.
+     *
+     * @param t The relative cost, between 0 and 1.
+     * @return The color of the heatmap.
+     */
+    private static Color heatColor(double t) {
+        double position = t * (HEAT_COLORS.length - 1);
+        int i = Math.min((int) position, HEAT_COLORS.length - 2);
+        double f = position - i;
+        return HEAT_COLORS[i].scale(1 - f).add(HEAT_COLORS[i + 1].scale(f));
+    }
+
+    /**
+     * Publishes the statistics on the platform MBean server as
+     * {@code renderer:type=RenderStats,name=<name>}, replacing statistics published before under the same name.
+     *
+     * @param name The name of the rendering.
+     * @return The statistics themselves.
+     * @throws IllegalStateException if the statistics can't be registered
+     */
+    public RenderStats publish(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName("renderer:type=RenderStats,name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Render statistics could not be published", e);
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("render %.3fs, primary rays %d, shadow rays %d, reflection rays %d, refraction rays %d, "
+                        + "primitive tests %d, box tests %d (%d rejected), shaded points %d, average depth %.2f",
+                renderTime / 1e9, primaryRays, shadowRays, reflectionRays, refractionRays, primitiveTests, boxTests,
+                boxRejections, shadedPoints, getAverageDepth());
+    }
+}
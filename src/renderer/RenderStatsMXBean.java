@@ -0,0 +1,84 @@
+package renderer;
+
+/**
+ * The management interface of the statistics of a rendering, as published over JMX by
+ * {@link RenderStats#publish(String)}.
+ */
+public interface RenderStatsMXBean {
+    /**
+     * Returns the amount of rays traced from the camera.
+     *
+     * @return The amount of primary rays.
+     */
+    long getPrimaryRays();
+
+    /**
+     * Returns the amount of rays traced from points to light sources.
+     *
+     * @return The amount of shadow rays.
+     */
+    long getShadowRays();
+
+    /**
+     * Returns the amount of reflected rays traced, including the rays of the glossy beams.
+     *
+     * @return The amount of reflection rays.
+     */
+    long getReflectionRays();
+
+    /**
+     * Returns the amount of refracted rays traced, including the rays of the matte beams.
+     *
+     * @return The amount of refraction rays.
+     */
+    long getRefractionRays();
+
+    /**
+     * Returns the amount of tests of rays against single primitives (geometries or triangles of meshes).
+     *
+     * @return The amount of primitive tests.
+     */
+    long getPrimitiveTests();
+
+    /**
+     * Returns the amount of tests of rays against bounding boxes.
+     *
+     * @return The amount of box tests.
+     */
+    long getBoxTests();
+
+    /**
+     * Returns the amount of tests of rays against bounding boxes that the rays missed.
+     *
+     * @return The amount of box rejections.
+     */
+    long getBoxRejections();
+
+    /**
+     * Returns the amount of points whose color was calculated.
+     *
+     * @return The amount of shaded points.
+     */
+    long getShadedPoints();
+
+    /**
+     * Returns the average recursion depth of the shaded points, 1 for the points seen by the camera.
+     *
+     * @return The average depth, 0 if no point was shaded.
+     */
+    double getAverageDepth();
+
+    /**
+     * Returns the time the rendering of each tile took, in row-major order of the tiles.
+     *
+     * @return The times of the tiles in nanoseconds.
+     */
+    long[] getTileTimes();
+
+    /**
+     * Returns the time the whole rendering took.
+     *
+     * @return The time of the rendering in nanoseconds.
+     */
+    long getRenderTime();
+}
@@ -0,0 +1,152 @@
+package renderer;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A render worker of a distributed rendering of {@link RenderCoordinator}. The worker connects to the coordinator,
+ * receives the serialized camera with its ray tracer and scene once, and then renders the tiles the coordinator hands
+ * out one at a time, sending back every tile compressed, until the coordinator tells it the image is done.
+ * <p>
+ * The protocol, all the numbers big endian:
+ * <ol>
+ * <li>coordinator: the length of the job and the job - the image width, height and tile size as ints, and the
+ * serialized {@link Camera} (without its image writer)</li>
+ * <li>coordinator: a tile index, or -1 when the image is done</li>
+ * <li>worker: the tile index, the length of the tile data and the data - the red, green and blue floats of the tile,
+ * little endian and deflated; then back to 2</li>
+ * </ol>
+ * Worker processes are started by {@code java -cp <classpath> renderer.RenderWorker <host> <port> [connections]}.
+ */
+public class RenderWorker implements Runnable {
+    private final String host;
+    private final int port;
+
+    /**
+     * Constructs a worker of a coordinator.
+     *
+     * @param host The host of the coordinator.
+     * @param port The port of the coordinator.
+     */
+    public RenderWorker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Renders tiles for the coordinator until the image is done.
+     *
+     * @throws UncheckedIOException if the connection to the coordinator fails
+     */
+    @Override
+    public void run() {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            byte[] job = in.readNBytes(in.readInt());
+            int nX, nY, tileSize;
+            Camera camera;
+            try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(job))) {
+                nX = objects.readInt();
+                nY = objects.readInt();
+                tileSize = objects.readInt();
+                camera = (Camera) objects.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("The job has a class the worker doesn't have", e);
+            }
+            TileManager tiles = new TileManager(nX, nY, tileSize, 0);
+            for (int index = in.readInt(); index >= 0; index = in.readInt()) {
+                TileManager.Tile tile = tiles.getTile(index);
+                ImageWriter target = new ImageWriter("tile", tile.x1() - tile.x0(), tile.y1() - tile.y0());
+                camera.renderTile(tile, nX, nY, target);
+                byte[] data = encode(target.getRed(), target.getGreen(), target.getBlue());
+                out.writeInt(index);
+                out.writeInt(data.length);
+                out.write(data);
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Render worker of " + host + ":" + port + " failed", e);
+        }
+    }
+
+    /**
+     * Compresses the channels of a tile.
+     *
+     * @param red   The red channel.
+     * @param green The green channel.
+     * @param blue  The blue channel.
+     * @return The compressed channels.
+     */
+    static byte[] encode(float[] red, float[] green, float[] blue) {
+        ByteBuffer buffer = ByteBuffer.allocate(12 * red.length).order(ByteOrder.LITTLE_ENDIAN);
+        // the channels one after the other, so the deflater sees the runs of each channel
+        buffer.asFloatBuffer().put(red).put(green).put(blue);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(buffer.array());
+        deflater.finish();
+        ByteArrayOutputStream data = new ByteArrayOutputStream(buffer.capacity() / 2);
+        byte[] chunk = new byte[1 << 16];
+        while (!deflater.finished())
+            data.write(chunk, 0, deflater.deflate(chunk));
+        deflater.end();
+        return data.toByteArray();
+    }
+
+    /**
+     * Decompresses the channels of a tile.
+     *
+     * @param data  The compressed channels.
+     * @param red   The red channel to fill.
+     * @param green The green channel to fill.
+     * @param blue  The blue channel to fill.
+     * @throws IOException if the data is not of channels of the given length
+     */
+    static void decode(byte[] data, float[] red, float[] green, float[] blue) throws IOException {
+        byte[] bytes = new byte[12 * red.length];
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        try {
+            int length = inflater.inflate(bytes);
+            if (length != bytes.length || !inflater.finished())
+                throw new IOException("Wrong length of tile data");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt tile data", e);
+        } finally {
+            inflater.end();
+        }
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(red).get(green).get(blue);
+    }
+
+    /**
+     * Runs a worker process, with one or more connections to the coordinator, each rendering its own tiles.
+     *
+     * @param args The host and the port of the coordinator, and optionally the amount of connections
+     *             (1 by default).
+     * @throws InterruptedException if the process is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: java renderer.RenderWorker <host> <port> [connections]");
+            System.exit(2);
+        }
+        int port = Integer.parseInt(args[1]);
+        int connections = args.length == 3 ? Integer.parseInt(args[2]) : 1;
+        List<Thread> threads = new ArrayList<>(connections);
+        for (int i = 0; i < connections; ++i) {
+            Thread thread = new Thread(new RenderWorker(args[0], port), "render-worker-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.join();
+    }
+}
@@ -0,0 +1,114 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * The SampleBuffer class accumulates the samples of the pixels of a progressive rendering in float arrays.
+ * It keeps the sum of the samples of every pixel and the sum of the squares of their brightness, so the mean color
+ * and the standard error of the mean are known at any time. Several threads may add samples concurrently as long
+ * as they add to different pixels.
+ */
+class SampleBuffer {
+    private final int nX;
+    private final float[] red;
+    private final float[] green;
+    private final float[] blue;
+    private final float[] squares;
+    private final int[] counts;
+    private final boolean[] converged;
+
+    /**
+     * Constructs an empty buffer for an image of the given resolution.
+     *
+     * @param nX The amount of pixels by width
+     * @param nY The amount of pixels by height
+     */
+    SampleBuffer(int nX, int nY) {
+        this.nX = nX;
+        int size = nX * nY;
+        red = new float[size];
+        green = new float[size];
+        blue = new float[size];
+        squares = new float[size];
+        counts = new int[size];
+        converged = new boolean[size];
+    }
+
+    /**
+     * Adds a sample to a pixel.
+     *
+     * @param x     The column of the pixel
+     * @param y     The row of the pixel
+     * @param color The color of the sample
+     */
+    void add(int x, int y, Color color) {
+        int index = y * nX + x;
+        red[index] += (float) color.getRed();
+        green[index] += (float) color.getGreen();
+        blue[index] += (float) color.getBlue();
+        double brightness = (color.getRed() + color.getGreen() + color.getBlue()) / 3;
+        squares[index] += (float) (brightness * brightness);
+        ++counts[index];
+    }
+
+    /**
+     * Returns the amount of samples of a pixel.
+     *
+     * @param x The column of the pixel
+     * @param y The row of the pixel
+     * @return The amount of samples
+     */
+    int getCount(int x, int y) {
+        return counts[y * nX + x];
+    }
+
+    /**
+     * Returns the mean color of the samples of a pixel.
+     *
+     * @param x The column of the pixel
+     * @param y The row of the pixel
+     * @return The mean color, black if the pixel has no samples
+     */
+    Color getColor(int x, int y) {
+        int index = y * nX + x;
+        int count = counts[index];
+        return count == 0 ? Color.BLACK : new Color(red[index] / count, green[index] / count, blue[index] / count);
+    }
+
+    /**
+     * Returns the standard error of the mean brightness of the samples of a pixel.
+     *
+     * @param x The column of the pixel
+     * @param y The row of the pixel
+     * @return The standard error, infinite if the pixel has less than 2 samples
+     */
+    double getError(int x, int y) {
+        int index = y * nX + x;
+        int count = counts[index];
+        if (count < 2) return Double.POSITIVE_INFINITY;
+        double mean = (red[index] + green[index] + blue[index]) / 3d / count;
+        double variance = Math.max(0, (squares[index] - count * mean * mean) / (count - 1));
+        return Math.sqrt(variance / count);
+    }
+
+    /**
+     * Checks whether a pixel was marked as converged.
+     *
+     * @param x The column of the pixel
+     * @param y The row of the pixel
+     * @return true if the pixel needs no more samples
+     */
+    boolean isConverged(int x, int y) {
+        return converged[y * nX + x];
+    }
+
+    /**
+     * Marks a pixel as converged, so it needs no more samples.
+     *
+     * @param x The column of the pixel
+     * @param y The row of the pixel
+     */
+    void setConverged(int x, int y) {
+        converged[y * nX + x] = true;
+    }
+}
@@ -0,0 +1,73 @@
+package renderer;
+
+/**
+ * The seeds of the sample sets of the pixel a render thread is working on. The camera sets the pixel before its
+ * rays are traced, and every sample set traced for the pixel takes the next seed, which depends on the pixel,
+ * on the bounce, and on the amount of sets taken for the pixel so far.
+ */
+final class SampleContext {
+    private static final ThreadLocal<SampleContext> current = ThreadLocal.withInitial(SampleContext::new);
+
+    private long pixel;
+    private int sets;
+
+    private SampleContext() {
+    }
+
+    /**
+     * Sets the pixel the current thread is working on.
+     *
+     * @param x The column of the pixel.
+     * @param y The row of the pixel.
+     */
+    static void setPixel(int x, int y) {
+        setPixel(x, y, 0);
+    }
+
+    /**
+     * Sets the pixel the current thread is working on, for one of several samples of the pixel, so every sample
+     * of the pixel gets other seeds.
+     *
+     * @param x      The column of the pixel.
+     * @param y      The row of the pixel.
+     * @param sample The index of the sample of the pixel.
+     */
+    static void setPixel(int x, int y, int sample) {
+        SampleContext context = current.get();
+        context.pixel = hash(((long) y << 32) ^ (x & 0xFFFFFFFFL)) + sample;
+        context.sets = 0;
+    }
+
+    /**
+     * Gets the seed of the next sample set of the pixel the current thread is working on.
+     *
+     * @param bounce The recursion level of the sample set.
+     * @return The seed.
+     */
+    static long nextSeed(int bounce) {
+        SampleContext context = current.get();
+        return hash(context.pixel + hash(((long) bounce << 32) + context.sets++));
+    }
+
+    /**
+     * Mixes the bits of a number (the finalizer of SplitMix64), so close numbers give unrelated results.
+     *
+     * @param x The number.
+     * @return The mixed number.
+     */
+    static long hash(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Converts the 53 high bits of a number to a fraction in [0,1).
+     *
+     * @param x The number.
+     * @return The fraction.
+     */
+    static double fraction(long x) {
+        return (x >>> 11) * 0x1p-53;
+    }
+}
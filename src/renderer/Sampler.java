@@ -0,0 +1,18 @@
+package renderer;
+
+/**
+ * A generator of sets of sample points in the unit square, for the stochastic effects of the renderer.
+ * A set is fully determined by its size and its seed. The renderer seeds the sets by the pixel and by the bounce,
+ * so a render is repeatable whatever the order of the pixels and the amount of threads.
+ */
+public interface Sampler {
+    /**
+     * Fills a set of sample points in the unit square.
+     *
+     * @param points The array to fill with the coordinates x and y of every point one after the other, each
+     *               coordinate in [0,1).
+     * @param count  The amount of points.
+     * @param seed   The seed of the set.
+     */
+    void sample(double[] points, int count, long seed);
+}
@@ -0,0 +1,59 @@
+package renderer;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A sampler of the first two dimensions of the Sobol sequence with Owen scrambling. Each set is a (0,2)-sequence:
+ * any power of two of its first points is stratified in every grid of that many equal rectangles of the square.
+ * The digits of the points and the order of the points are scrambled by the hash based nested uniform scrambling
+ * of Laine and Karras, seeded by the seed of the set, so the sets of different pixels are independent.
+ */
+public class SobolSampler implements Sampler, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The direction numbers of the second dimension of the Sobol sequence
+     */
+    private static final int[] directions = new int[32];
+
+    static {
+        directions[0] = 1 << 31;
+        for (int k = 1; k < 32; k++)
+            directions[k] = directions[k - 1] ^ (directions[k - 1] >>> 1);
+    }
+
+    @Override
+    public void sample(double[] points, int count, long seed) {
+        long hash = SampleContext.hash(seed);
+        int shuffle = (int) hash;
+        int seedX = (int) (hash >>> 32);
+        int seedY = (int) SampleContext.hash(hash);
+        for (int i = 0; i < count; i++) {
+            int index = scramble(i, shuffle);
+            int y = 0;
+            for (int k = 0, bits = index; bits != 0; k++, bits >>>= 1)
+                if ((bits & 1) != 0) y ^= directions[k];
+            points[2 * i] = (scramble(Integer.reverse(index), seedX) & 0xFFFFFFFFL) * 0x1p-32;
+            points[2 * i + 1] = (scramble(y, seedY) & 0xFFFFFFFFL) * 0x1p-32;
+        }
+    }
+
+    /**
+     * Scrambles the bits of a number so that every bit is flipped by a hash of the bits above it.
+     *
+     * @param x    The number.
+     * @param seed The seed of the scrambling.
+     * @return The scrambled number.
+     */
+    private static int scramble(int x, int seed) {
+        x = Integer.reverse(x);
+        x += seed;
+        x ^= x * 0x6c50b47c;
+        x ^= x * 0xb82f1e52;
+        x ^= x * 0xc7afe638;
+        x ^= x * 0x8d22f6e6;
+        return Integer.reverse(x);
+    }
+}
@@ -0,0 +1,29 @@
+package renderer;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.SplittableRandom;
+
+/**
+ * A sampler of jittered grids: the square is divided to a grid of equal cells, and a point is taken at a random
+ * place in every cell. When the amount of points is not a square, the points that are left over the largest grid
+ * are taken at random places in the whole square.
+ */
+public class StratifiedSampler implements Sampler, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void sample(double[] points, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int m = (int) Math.sqrt(count);
+        int i = 0;
+        for (int row = 0; row < m; row++)
+            for (int column = 0; column < m; column++) {
+                points[i++] = (column + random.nextDouble()) / m;
+                points[i++] = (row + random.nextDouble()) / m;
+            }
+        while (i < 2 * count)
+            points[i++] = random.nextDouble();
+    }
+}
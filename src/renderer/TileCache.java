@@ -0,0 +1,424 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * The TileCache class is a content addressed cache of rendered tiles on the disk.
+ * <p>
+ * A tile is stored in a file named by the SHA-256 hash of everything its pixels depend on: the camera, the
+ * resolution, the super sampling settings, the ray tracer with its settings and its scene (the geometries, the
+ * materials, the lights and the background), and the bounds of the tile. The objects are hashed by a walk over their
+ * fields, so two scenes built the same way have the same hash in any run, and any change of the scene, however
+ * small, changes it. Since the hash is of the whole scene, an edit re-renders all the tiles of the image, and the
+ * cache saves the rendering of shots that were rendered before - the same scene and camera, or switching back to
+ * an earlier version of them.
+ * <p>
+ * A tile file has the size of the tile and its red, green and blue floats, and it is read and written by memory
+ * mapping, straight from and into the framebuffer of the image writer. The total size of the files is bounded:
+ * the least recently used tiles are deleted when it is exceeded. The time of the last use of a tile is kept as
+ * the modification time of its file, so the order of the eviction persists between runs. Several render threads
+ * may use the cache concurrently, but a cache directory should not be used by several processes at once.
+ */
+public class TileCache {
+    private static final String EXTENSION = ".tile";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long maxBytes;
+    /**
+     * The sizes of the tile files by their keys, from the least recently used
+     */
+    private final LinkedHashMap<String, Long> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    private final Logger logger = Logger.getLogger("TileCache");
+
+    /**
+     * Constructs a cache in a directory, with the tiles that are already in it.
+     *
+     * @param directory The directory of the tile files, created if it doesn't exist.
+     * @param maxBytes  The largest total size of the tile files in bytes.
+     * @throws IOException              If the directory can't be created or listed.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public TileCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive");
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = new ArrayList<>(list.filter(path -> path.toString().endsWith(EXTENSION)).toList());
+        }
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) times.put(file, Files.getLastModifiedTime(file));
+        files.sort(Comparator.comparing(times::get));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            tiles.put(name.substring(0, name.length() - EXTENSION.length()), size);
+            totalBytes += size;
+        }
+        evict();
+    }
+
+    /**
+     * Returns the total size of the tile files.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long getSize() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the amount of tiles that were loaded from the cache.
+     *
+     * @return The amount of hits.
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the amount of tiles that were looked for in the cache and were not found.
+     *
+     * @return The amount of misses.
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Hashes the objects a rendering depends on.
+     *
+     * @param parts The objects.
+     * @return The SHA-256 hash in hexadecimal digits.
+     */
+    String key(Object... parts) {
+        MessageDigest digest = sha256();
+        Map<Object, Integer> visited = new IdentityHashMap<>();
+        for (Object part : parts) hash(part, digest, visited);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the key of a tile of a rendering.
+     *
+     * @param renderKey The hash of the objects the rendering depends on.
+     * @param tile      The tile.
+     * @return The SHA-256 hash of the rendering key and the bounds of the tile, in hexadecimal digits.
+     */
+    String tileKey(String renderKey, TileManager.Tile tile) {
+        MessageDigest digest = sha256();
+        digest.update(renderKey.getBytes(StandardCharsets.US_ASCII));
+        digest.update(ByteBuffer.allocate(16).putInt(tile.x0()).putInt(tile.y0()).putInt(tile.x1()).putInt(tile.y1())
+                .array());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Loads a tile from the cache into the framebuffer of an image writer.
+     *
+     * @param key         The key of the tile.
+     * @param tile        The tile.
+     * @param imageWriter The image writer.
+     * @return true if the tile was in the cache.
+     */
+    boolean load(String key, TileManager.Tile tile, ImageWriter imageWriter) {
+        synchronized (this) {
+            if (tiles.get(key) == null) {
+                ++misses;
+                return false;
+            }
+        }
+        Path file = file(key);
+        int width = tile.x1() - tile.x0();
+        int height = tile.y1() - tile.y0();
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() != size(tile) || buffer.getInt(0) != width || buffer.getInt(4) != height)
+                throw new IOException("Wrong size of the tile file " + file);
+            FloatBuffer floats = buffer.position(HEADER_BYTES).asFloatBuffer();
+            int nX = imageWriter.getNx();
+            float[][] channels = {imageWriter.getRed(), imageWriter.getGreen(), imageWriter.getBlue()};
+            for (float[] channel : channels)
+                for (int y = tile.y0(); y < tile.y1(); y++)
+                    floats.get(channel, y * nX + tile.x0(), width);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException | UncheckedIOException e) {
+            logger.log(Level.WARNING, "Cached tile can't be read", e);
+            remove(key);
+            synchronized (this) {
+                ++misses;
+            }
+            return false;
+        }
+        synchronized (this) {
+            ++hits;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a tile from the framebuffer of an image writer in the cache, and evicts the least recently used tiles
+     * if the cache is too large. The tile is written to a temporary file that is moved to its place when it is
+     * complete. A tile that can't be written is not cached, it doesn't fail the rendering.
+     *
+     * @param key         The key of the tile.
+     * @param tile        The tile.
+     * @param imageWriter The image writer.
+     */
+    void store(String key, TileManager.Tile tile, ImageWriter imageWriter) {
+        Path file = file(key);
+        int width = tile.x1() - tile.x0();
+        long size = size(tile);
+        try {
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try (FileChannel fileChannel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(width).putInt(tile.y1() - tile.y0());
+                FloatBuffer floats = buffer.asFloatBuffer();
+                int nX = imageWriter.getNx();
+                float[][] channels = {imageWriter.getRed(), imageWriter.getGreen(), imageWriter.getBlue()};
+                for (float[] channel : channels)
+                    for (int y = tile.y0(); y < tile.y1(); y++)
+                        floats.put(channel, y * nX + tile.x0(), width);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Tile can't be cached", e);
+            return;
+        }
+        synchronized (this) {
+            Long previous = tiles.put(key, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    /**
+     * Deletes the least recently used tiles until the total size is within the bound.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = tiles.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            try {
+                Files.deleteIfExists(file(eldest.getKey()));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Cached tile can't be deleted", e);
+            }
+        }
+    }
+
+    /**
+     * Removes a tile from the cache.
+     *
+     * @param key The key of the tile.
+     */
+    private synchronized void remove(String key) {
+        Long size = tiles.remove(key);
+        if (size == null) return;
+        totalBytes -= size;
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cached tile can't be deleted", e);
+        }
+    }
+
+    /**
+     * Returns the file of a tile.
+     *
+     * @param key The key of the tile.
+     * @return The path of the file.
+     */
+    private Path file(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    /**
+     * Returns the size of the file of a tile: its width and height, and 3 floats per pixel.
+     *
+     * @param tile The tile.
+     * @return The size in bytes.
+     */
+    private static long size(TileManager.Tile tile) {
+        return HEADER_BYTES + 12L * tile.size();
+    }
+
+    /**
+     * Creates a SHA-256 message digest.
+     *
+     * @return The message digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is missing", e);
+        }
+    }
+
+    /**
+     * Hashes an object and everything it refers to.
+     * <ul>
+     * <li>Numbers, strings, characters, booleans and enums are hashed by their class and value.</li>
+     * <li>Arrays, collections and maps are hashed by their elements in their order.</li>
+     * <li>Other classes of the Java platform are hashed by their class only.</li>
+     * <li>The objects of the project are hashed by their class and all their fields, except for the static and the
+     * transient ones. An image writer is skipped: it is the output of the rendering.</li>
+     * </ul>
+     * An object that was already hashed is hashed by the order of its first visit, so shared objects and cycles
+     * are hashed the same way in every run.
+     *
+     * @param object  The object.
+     * @param digest  The message digest.
+     * @param visited The visit order of the objects that were already hashed.
+     */
+    private static void hash(Object object, MessageDigest digest, Map<Object, Integer> visited) {
+        if (object == null || object instanceof ImageWriter) {
+            digest.update((byte) 0);
+            return;
+        }
+        Class<?> type = object.getClass();
+        if (object instanceof Number || object instanceof String || object instanceof Character
+                || object instanceof Boolean || object instanceof Enum<?>) {
+            String value = object instanceof Double d ? Long.toHexString(Double.doubleToLongBits(d))
+                    : object instanceof Float f ? Integer.toHexString(Float.floatToIntBits(f))
+                    : object instanceof Enum<?> e ? e.name() : object.toString();
+            digest.update(NAMES.get(type));
+            update(digest, value);
+            return;
+        }
+        Integer index = visited.putIfAbsent(object, visited.size());
+        if (index != null) {
+            update(digest, "#" + index);
+            return;
+        }
+        digest.update(NAMES.get(type));
+
+        if (type.isArray()) {
+            int length = Array.getLength(object);
+            digest.update(ByteBuffer.allocate(4).putInt(length).array());
+            if (object instanceof double[] array) {
+                ByteBuffer bytes = ByteBuffer.allocate(8 * length);
+                bytes.asDoubleBuffer().put(array);
+                digest.update(bytes.array());
+            } else if (object instanceof float[] array) {
+                ByteBuffer bytes = ByteBuffer.allocate(4 * length);
+                bytes.asFloatBuffer().put(array);
+                digest.update(bytes.array());
+            } else if (object instanceof int[] array) {
+                ByteBuffer bytes = ByteBuffer.allocate(4 * length);
+                bytes.asIntBuffer().put(array);
+                digest.update(bytes.array());
+            } else if (object instanceof byte[] array) digest.update(array);
+            else for (int i = 0; i < length; i++) hash(Array.get(object, i), digest, visited);
+        } else if (object instanceof Collection<?> collection) {
+            digest.update(ByteBuffer.allocate(4).putInt(collection.size()).array());
+            for (Object element : collection) hash(element, digest, visited);
+        } else if (object instanceof Map<?, ?> map) {
+            digest.update(ByteBuffer.allocate(4).putInt(map.size()).array());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                hash(entry.getKey(), digest, visited);
+                hash(entry.getValue(), digest, visited);
+            }
+        } else
+            try {
+                for (Field field : FIELDS.get(type)) {
+                    Class<?> fieldType = field.getType();
+                    if (fieldType == double.class) update(digest, Double.doubleToLongBits(field.getDouble(object)));
+                    else if (fieldType == int.class) update(digest, field.getInt(object));
+                    else if (fieldType == boolean.class) digest.update((byte) (field.getBoolean(object) ? 1 : 0));
+                    else if (fieldType.isPrimitive()) update(digest, field.get(object).toString());
+                    else hash(field.get(object), digest, visited);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Object can't be hashed: " + type, e);
+            }
+    }
+
+    /**
+     * The names of the classes for the hashing, without the changing suffix of the name of a lambda
+     */
+    private static final ClassValue<byte[]> NAMES = new ClassValue<>() {
+        @Override
+        protected byte[] computeValue(Class<?> type) {
+            String name = type.getName();
+            int lambda = name.indexOf("$$Lambda");
+            return ((lambda < 0 ? name : name.substring(0, lambda + 8)) + '\0').getBytes(StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * The hashed fields of the classes: the fields of the class and its superclasses by their names, except for the
+     * static and the transient ones, and none for the other classes of the Java platform
+     */
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            String name = type.getName();
+            if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                    || name.startsWith("sun."))
+                return new Field[0];
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                Field[] declared = c.getDeclaredFields();
+                Arrays.sort(declared, Comparator.comparing(Field::getName));
+                for (Field field : declared)
+                    if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    /**
+     * Updates a message digest by a long number.
+     *
+     * @param digest The message digest.
+     * @param value  The number.
+     */
+    private static void update(MessageDigest digest, long value) {
+        digest.update(ByteBuffer.allocate(8).putLong(value).array());
+    }
+
+    /**
+     * Updates a message digest by a string.
+     *
+     * @param digest The message digest.
+     * @param text   The string.
+     */
+    private static void update(MessageDigest digest, String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
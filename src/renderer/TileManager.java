@@ -0,0 +1,124 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The TileManager class splits an image into rectangular tiles and hands them out to the render threads.
+ * Tiles are given in row-major order, each one exactly once, so every pixel is written by a single thread.
+ * It also keeps track of the rendered pixels and prints the progress of the rendering.
+ */
+class TileManager {
+    /**
+     * A rectangular part of the image, the start indices are included and the end indices are excluded.
+     *
+     * @param x0 The first column of the tile
+     * @param y0 The first row of the tile
+     * @param x1 The column after the last column of the tile
+     * @param y1 The row after the last row of the tile
+     */
+    record Tile(int x0, int y0, int x1, int y1) {
+        /**
+         * Returns the amount of pixels in the tile.
+         *
+         * @return The amount of pixels in the tile
+         */
+        int size() {
+            return (x1 - x0) * (y1 - y0);
+        }
+    }
+
+    private final int nX;
+    private final int nY;
+    private final int tileSize;
+    private final int tilesInRow;
+    private final int tilesCount;
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    private final long totalPixels;
+    private long donePixels = 0;
+    private final double printInterval;
+    private double lastPrinted = 0;
+
+    /**
+     * Constructs a TileManager for an image of the given resolution.
+     *
+     * @param nX            The amount of pixels by width
+     * @param nY            The amount of pixels by height
+     * @param tileSize      The side of a (square) tile in pixels
+     * @param printInterval The progress print interval in percents, 0 for no printing
+     */
+    TileManager(int nX, int nY, int tileSize, double printInterval) {
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        tilesInRow = (nX + tileSize - 1) / tileSize;
+        tilesCount = tilesInRow * ((nY + tileSize - 1) / tileSize);
+        totalPixels = (long) nX * nY;
+        this.printInterval = printInterval;
+    }
+
+    /**
+     * Returns the amount of tiles in the image.
+     *
+     * @return The amount of tiles
+     */
+    int getTilesCount() {
+        return tilesCount;
+    }
+
+    /**
+     * Returns the side of the tiles.
+     *
+     * @return The side of a tile in pixels
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Returns the tile with the given index (row-major order).
+     *
+     * @param index The index of the tile
+     * @return The tile
+     */
+    Tile getTile(int index) {
+        int x0 = (index % tilesInRow) * tileSize;
+        int y0 = (index / tilesInRow) * tileSize;
+        return new Tile(x0, y0, Math.min(x0 + tileSize, nX), Math.min(y0 + tileSize, nY));
+    }
+
+    /**
+     * Returns the index of a tile (row-major order).
+     *
+     * @param tile The tile
+     * @return The index of the tile
+     */
+    int getIndex(Tile tile) {
+        return tile.y0() / tileSize * tilesInRow + tile.x0() / tileSize;
+    }
+
+    /**
+     * Takes the next tile that has not been rendered yet. Safe to be called from several threads.
+     *
+     * @return The next tile, or null if all the tiles were already taken
+     */
+    Tile nextTile() {
+        int index = nextTile.getAndIncrement();
+        return index < tilesCount ? getTile(index) : null;
+    }
+
+    /**
+     * Reports that a tile was rendered and prints the progress if the print interval was passed.
+     *
+     * @param tile The rendered tile
+     */
+    synchronized void tileDone(Tile tile) {
+        donePixels += tile.size();
+        if (printInterval <= 0) return;
+        double percent = 100d * donePixels / totalPixels;
+        if (percent - lastPrinted >= printInterval || donePixels == totalPixels) {
+            lastPrinted = percent;
+            System.out.printf("%5.1f%%%n", percent);
+        }
+    }
+}
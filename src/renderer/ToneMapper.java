@@ -0,0 +1,53 @@
+package renderer;
+
+/**
+ * A tone mapper maps the high dynamic range colors of the framebuffer to the displayable colors of an image file.
+ * The colors are given in the scale of {@link primitives.Color}, where 255 is the full intensity of a channel of
+ * the display, and the colors of lights and of their sums may be larger.
+ */
+@FunctionalInterface
+public interface ToneMapper {
+    /**
+     * Clamps every channel to 255 and drops the fraction, exactly as {@link primitives.Color#getColor()} does
+     */
+    ToneMapper CLAMP = (red, green, blue) -> clamp(red) << 16 | clamp(green) << 8 | clamp(blue);
+
+    /**
+     * Maps a color of the framebuffer to a displayable color.
+     *
+     * @param red   The red channel.
+     * @param green The green channel.
+     * @param blue  The blue channel.
+     * @return The displayable color, packed as 0xRRGGBB.
+     */
+    int map(float red, float green, float blue);
+
+    /**
+     * Makes a tone mapper of the Reinhard operator on the luminance: an exposure is applied to the color, and the
+     * luminance L (in units of the full intensity) is compressed to L / (1 + L), so bright lights are displayed
+     * with their hue while the dark colors are kept almost linear. A channel of a strongly saturated bright color
+     * may still be clamped.
+     *
+     * @param exposure The factor of the colors before the compression.
+     * @return The tone mapper.
+     */
+    static ToneMapper reinhard(double exposure) {
+        return (red, green, blue) -> {
+            double luminance = (0.2126 * red + 0.7152 * green + 0.0722 * blue) * exposure / 255;
+            double scale = luminance <= 0 ? 0 : exposure / (1 + luminance);
+            return clamp((float) (red * scale)) << 16 | clamp((float) (green * scale)) << 8
+                    | clamp((float) (blue * scale));
+        };
+    }
+
+    /**
+     * Converts a channel to a displayable channel by dropping the fraction and clamping it to 255.
+     *
+     * @param channel The channel.
+     * @return The displayable channel, between 0 and 255.
+     */
+    static int clamp(float channel) {
+        int value = (int) channel;
+        return value > 255 ? 255 : Math.max(value, 0);
+    }
+}
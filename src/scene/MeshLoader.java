@@ -0,0 +1,775 @@
+package scene;
+
+import geometries.Mesh;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The MeshLoader class loads triangle meshes from Wavefront OBJ and binary PLY files.
+ * The files are streamed straight into the flat arrays of a {@link Mesh} - no Point or Triangle objects are created.
+ * An OBJ file is split into chunks at line borders, the chunks are memory mapped and parsed in parallel,
+ * and their vertices and faces are concatenated in order. The vertex data of a PLY file has a fixed size per vertex,
+ * so it is decoded in parallel as well, while the faces (variable length lists) are read sequentially.
+ * Polygons with more than 3 vertices are split into a fan of triangles.
+ */
+public class MeshLoader {
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private long chunkSize = 1 << 22;
+
+    /**
+     * Sets the amount of threads that parse the file.
+     *
+     * @param threadsCount The amount of threads
+     * @return This MeshLoader object
+     * @throws IllegalArgumentException if the amount is not positive
+     */
+    public MeshLoader setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) throw new IllegalArgumentException("Threads count must be positive");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
+    /**
+     * Sets the size of the chunks the file is split into for the parallel parsing.
+     *
+     * @param chunkSize The chunk size in bytes
+     * @return This MeshLoader object
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public MeshLoader setChunkSize(long chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Loads a mesh from a file, the format is chosen according to the file extension (.obj or .ply).
+     *
+     * @param fileName The path of the file.
+     * @return The loaded mesh.
+     * @throws IOException              If an I/O error occurs or the file is malformed.
+     * @throws IllegalArgumentException If the file extension is not supported.
+     */
+    public Mesh load(String fileName) throws IOException {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".obj")) return loadObj(Path.of(fileName));
+        if (lower.endsWith(".ply")) return loadPly(Path.of(fileName));
+        throw new IllegalArgumentException("Unsupported mesh file format: " + fileName);
+    }
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file. Only the vertex positions ("v") and the faces ("f") are read,
+     * texture coordinates and normal indices of the faces are ignored. Negative (relative) indices are supported.
+     *
+     * @param path The path of the file.
+     * @return The loaded mesh.
+     * @throws IOException If an I/O error occurs or the file is malformed.
+     */
+    public Mesh loadObj(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // chunks start right after a line end, so no line is split between two chunks
+            List<Long> starts = new ArrayList<>();
+            starts.add(0L);
+            for (long nominal = chunkSize; nominal < size; nominal += chunkSize) {
+                long start = nextLineStart(channel, Math.max(nominal, starts.get(starts.size() - 1)));
+                if (start >= size) break;
+                if (start > starts.get(starts.size() - 1)) starts.add(start);
+            }
+            starts.add(size);
+
+            List<Callable<ObjChunk>> tasks = new ArrayList<>();
+            for (int i = 0; i < starts.size() - 1; ++i) {
+                long start = starts.get(i);
+                long end = starts.get(i + 1);
+                tasks.add(() -> new ObjChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start),
+                        start).parse());
+            }
+            List<ObjChunk> chunks = run(tasks);
+
+            int verticesCount = 0;
+            int indicesCount = 0;
+            for (ObjChunk chunk : chunks) {
+                verticesCount = Math.addExact(verticesCount, chunk.vertices.size / 3);
+                indicesCount = Math.addExact(indicesCount, chunk.indices.size);
+            }
+            double[] vertices = new double[Math.multiplyExact(verticesCount, 3)];
+            int[] indices = new int[indicesCount];
+            int before = 0;
+            int next = 0;
+            for (ObjChunk chunk : chunks) {
+                System.arraycopy(chunk.vertices.data, 0, vertices, before * 3, chunk.vertices.size);
+                for (int i = 0; i < chunk.indices.size; ++i) {
+                    int index = chunk.relative.get(i) ? before + chunk.indices.data[i] : chunk.indices.data[i];
+                    if (index < 0 || index >= verticesCount)
+                        throw new IOException("OBJ face refers to a missing vertex in " + path);
+                    indices[next++] = index;
+                }
+                before += chunk.vertices.size / 3;
+            }
+            return new Mesh(vertices, indices);
+        }
+    }
+
+    /**
+     * Finds the start of the first line that starts at the given position or after it.
+     *
+     * @param channel  The file channel.
+     * @param position The position to search from.
+     * @return The position after the first line end before or at the given position, or the file size.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        // a chunk starts at a line start when the previous byte is a line end
+        long current = position - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; ++i)
+                if (buffer.get(i) == '\n') return current + i + 1;
+            current += read;
+        }
+    }
+
+    /**
+     * Runs parsing tasks, in parallel if there is more than one task and more than one thread.
+     *
+     * @param tasks The tasks.
+     * @param <T>   The type of the tasks' results.
+     * @return The results of the tasks in the order of the tasks.
+     * @throws IOException If a task failed.
+     */
+    private <T> List<T> run(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (tasks.size() == 1 || threadsCount == 1) {
+                for (Callable<T> task : tasks) results.add(task.call());
+                return results;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadsCount, tasks.size()));
+            try {
+                for (Future<T> future : executor.invokeAll(tasks)) results.add(future.get());
+            } finally {
+                executor.shutdownNow();
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Mesh loading was interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Loads a mesh from a binary (little or big endian) PLY file. The "x", "y" and "z" properties of the "vertex"
+     * element and the "vertex_indices" (or "vertex_index") list of the "face" element are read,
+     * any other element or property is skipped.
+     *
+     * @param path The path of the file.
+     * @return The loaded mesh.
+     * @throws IOException If an I/O error occurs, the file is malformed or it is an ASCII PLY file.
+     */
+    public Mesh loadPly(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinaryReader reader = new BinaryReader(channel);
+            if (!"ply".equals(reader.readLine())) throw new IOException("Not a PLY file: " + path);
+            ByteOrder order = null;
+            List<PlyElement> elements = new ArrayList<>();
+            for (String line = reader.readLine(); !"end_header".equals(line); line = reader.readLine()) {
+                String[] words = line.trim().split("\\s+");
+                switch (words[0]) {
+                    case "format" -> order = switch (words[1]) {
+                        case "binary_little_endian" -> ByteOrder.LITTLE_ENDIAN;
+                        case "binary_big_endian" -> ByteOrder.BIG_ENDIAN;
+                        default -> throw new IOException("Unsupported PLY format " + words[1] + " in " + path);
+                    };
+                    case "element" -> elements.add(new PlyElement(words[1], Long.parseLong(words[2])));
+                    case "property" -> {
+                        if (elements.isEmpty()) throw new IOException("PLY property out of an element in " + path);
+                        PlyElement element = elements.get(elements.size() - 1);
+                        element.properties.add("list".equals(words[1])
+                                ? new PlyProperty(words[4], PlyType.of(words[3]), PlyType.of(words[2]))
+                                : new PlyProperty(words[2], PlyType.of(words[1]), null));
+                    }
+                    default -> {
+                        // comments and object information
+                    }
+                }
+            }
+            if (order == null) throw new IOException("Missing PLY format in " + path);
+            reader.order(order);
+
+            double[] vertices = null;
+            IntList indices = new IntList();
+            for (PlyElement element : elements) {
+                if ("vertex".equals(element.name)) {
+                    vertices = readPlyVertices(channel, reader, element, order);
+                } else if ("face".equals(element.name)) {
+                    readPlyFaces(reader, element, indices);
+                } else {
+                    for (long i = 0; i < element.count; ++i)
+                        for (PlyProperty property : element.properties)
+                            reader.skip(property.size(reader));
+                }
+            }
+            if (vertices == null) vertices = new double[0];
+            int verticesCount = vertices.length / 3;
+            for (int i = 0; i < indices.size; ++i)
+                if (indices.data[i] < 0 || indices.data[i] >= verticesCount)
+                    throw new IOException("PLY face refers to a missing vertex in " + path);
+            return new Mesh(vertices, Arrays.copyOf(indices.data, indices.size));
+        }
+    }
+
+    /**
+     * Reads the vertices of a PLY file. The vertices have a fixed size, so they are decoded in parallel chunks
+     * straight from the mapped file.
+     *
+     * @param channel The file channel.
+     * @param reader  The reader of the file, positioned at the start of the vertices.
+     * @param element The vertex element.
+     * @param order   The byte order of the file.
+     * @return The coordinates of the vertices.
+     * @throws IOException If an I/O error occurs or the vertex element is malformed.
+     */
+    private double[] readPlyVertices(FileChannel channel, BinaryReader reader, PlyElement element, ByteOrder order)
+            throws IOException {
+        int stride = 0;
+        int[] offsets = {-1, -1, -1};
+        PlyType[] types = new PlyType[3];
+        for (PlyProperty property : element.properties) {
+            if (property.countType != null) throw new IOException("PLY vertex with a list property");
+            int axis = switch (property.name) {
+                case "x" -> 0;
+                case "y" -> 1;
+                case "z" -> 2;
+                default -> -1;
+            };
+            if (axis >= 0) {
+                offsets[axis] = stride;
+                types[axis] = property.type;
+            }
+            stride += property.type.size;
+        }
+        if (offsets[0] < 0 || offsets[1] < 0 || offsets[2] < 0)
+            throw new IOException("PLY vertex without x, y, z coordinates");
+        if (element.count > Integer.MAX_VALUE / 3) throw new IOException("Too many PLY vertices");
+
+        int count = (int) element.count;
+        double[] vertices = new double[count * 3];
+        long base = reader.position();
+        int perChunk = (int) Math.max(1, Math.min(count, chunkSize / stride));
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int first = 0; first < count; first += perChunk) {
+            int from = first;
+            int to = Math.min(count, first + perChunk);
+            int finalStride = stride;
+            tasks.add(() -> {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        base + (long) from * finalStride, (long) (to - from) * finalStride);
+                buffer.order(order);
+                for (int v = from, position = 0; v < to; ++v, position += finalStride)
+                    for (int axis = 0; axis < 3; ++axis)
+                        vertices[v * 3 + axis] = types[axis].read(buffer, position + offsets[axis]);
+                return null;
+            });
+        }
+        if (base + (long) count * stride > channel.size()) throw new EOFException("Truncated PLY vertices");
+        run(tasks);
+        reader.skip((long) count * stride);
+        return vertices;
+    }
+
+    /**
+     * Reads the faces of a PLY file and splits them into triangles.
+     *
+     * @param reader  The reader of the file, positioned at the start of the faces.
+     * @param element The face element.
+     * @param indices The list to add the vertex indices of the triangles to.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void readPlyFaces(BinaryReader reader, PlyElement element, IntList indices) throws IOException {
+        int[] polygon = new int[16];
+        for (long f = 0; f < element.count; ++f) {
+            for (PlyProperty property : element.properties) {
+                boolean isIndices = "vertex_indices".equals(property.name) || "vertex_index".equals(property.name);
+                if (property.countType == null || !isIndices) {
+                    reader.skip(property.size(reader));
+                    continue;
+                }
+                int n = (int) reader.readLong(property.countType);
+                if (n > polygon.length) polygon = new int[Math.max(n, polygon.length * 2)];
+                for (int i = 0; i < n; ++i) polygon[i] = (int) reader.readLong(property.type);
+                for (int i = 1; i < n - 1; ++i) indices.add(polygon[0], polygon[i], polygon[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * A growable array of doubles.
+     */
+    private static final class DoubleList {
+        private double[] data = new double[1024];
+        private int size = 0;
+
+        /**
+         * Adds 3 numbers to the end of the list.
+         *
+         * @param a The first number.
+         * @param b The second number.
+         * @param c The third number.
+         */
+        void add(double a, double b, double c) {
+            if (size + 3 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = a;
+            data[size++] = b;
+            data[size++] = c;
+        }
+    }
+
+    /**
+     * A growable array of integers.
+     */
+    private static final class IntList {
+        private int[] data = new int[1024];
+        private int size = 0;
+
+        /**
+         * Adds 3 numbers to the end of the list.
+         *
+         * @param a The first number.
+         * @param b The second number.
+         * @param c The third number.
+         */
+        void add(int a, int b, int c) {
+            if (size + 3 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = a;
+            data[size++] = b;
+            data[size++] = c;
+        }
+    }
+
+    /**
+     * A chunk of an OBJ file and the vertices and triangles parsed from it.
+     * The file is parsed straight from the mapped bytes, without creating strings per line or per number.
+     * A negative (relative) vertex index can't be resolved before the amount of the vertices in the previous chunks
+     * is known, so it is kept relative to the start of the chunk and marked.
+     */
+    private static final class ObjChunk {
+        /**
+         * Powers of 10 that are exactly representable as doubles
+         */
+        private static final double[] POWERS_OF_10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+                1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+        private final MappedByteBuffer buffer;
+        private final long offset;
+        private final int limit;
+        private int position = 0;
+        private final DoubleList vertices = new DoubleList();
+        private final IntList indices = new IntList();
+        /**
+         * Marks the indices that are relative to the start of the chunk
+         */
+        private final BitSet relative = new BitSet();
+
+        /**
+         * Constructs a chunk.
+         *
+         * @param buffer The mapped bytes of the chunk.
+         * @param offset The position of the chunk in the file, for the error messages.
+         */
+        ObjChunk(MappedByteBuffer buffer, long offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+            limit = buffer.limit();
+        }
+
+        /**
+         * Parses the chunk.
+         *
+         * @return This chunk
+         * @throws IOException If the chunk is malformed.
+         */
+        ObjChunk parse() throws IOException {
+            int[] polygon = new int[16];
+            boolean[] polygonRelative = new boolean[16];
+            while (position < limit) {
+                skipBlanks();
+                if (position + 1 < limit && isBlank(buffer.get(position + 1))) {
+                    byte c = buffer.get(position);
+                    if (c == 'v') {
+                        position += 2;
+                        vertices.add(parseDouble(), parseDouble(), parseDouble());
+                    } else if (c == 'f') {
+                        position += 2;
+                        int n = 0;
+                        for (skipBlanks(); position < limit && !isLineEnd(buffer.get(position)); skipBlanks()) {
+                            int index = parseInt();
+                            if (index == 0) throw malformed("vertex index 0");
+                            if (n == polygon.length) {
+                                polygon = Arrays.copyOf(polygon, n * 2);
+                                polygonRelative = Arrays.copyOf(polygonRelative, n * 2);
+                            }
+                            polygonRelative[n] = index < 0;
+                            polygon[n++] = index < 0 ? vertices.size / 3 + index : index - 1;
+                            // texture and normal indices (v/vt/vn) are not needed
+                            while (position < limit && !isBlank(buffer.get(position))
+                                    && !isLineEnd(buffer.get(position)))
+                                ++position;
+                        }
+                        for (int i = 1; i < n - 1; ++i) {
+                            if (polygonRelative[0]) relative.set(indices.size);
+                            if (polygonRelative[i]) relative.set(indices.size + 1);
+                            if (polygonRelative[i + 1]) relative.set(indices.size + 2);
+                            indices.add(polygon[0], polygon[i], polygon[i + 1]);
+                        }
+                    }
+                }
+                while (position < limit && buffer.get(position++) != '\n') ;
+            }
+            return this;
+        }
+
+        /**
+         * Checks whether a byte is a blank inside a line.
+         *
+         * @param c The byte.
+         * @return true for a space or a tab.
+         */
+        private static boolean isBlank(byte c) {
+            return c == ' ' || c == '\t';
+        }
+
+        /**
+         * Checks whether a byte ends a line.
+         *
+         * @param c The byte.
+         * @return true for a line feed, a carriage return or a comment start.
+         */
+        private static boolean isLineEnd(byte c) {
+            return c == '\n' || c == '\r' || c == '#';
+        }
+
+        /**
+         * Skips the blanks at the current position.
+         */
+        private void skipBlanks() {
+            while (position < limit && isBlank(buffer.get(position))) ++position;
+        }
+
+        /**
+         * Creates an exception for a malformed line at the current position.
+         *
+         * @param what The description of the error.
+         * @return The exception.
+         */
+        private IOException malformed(String what) {
+            return new IOException("Malformed OBJ file: " + what + " at byte " + (offset + position));
+        }
+
+        /**
+         * Parses a signed integer at the current position.
+         *
+         * @return The integer.
+         * @throws IOException If there is no integer at the position.
+         */
+        private int parseInt() throws IOException {
+            boolean negative = false;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+                negative = buffer.get(position++) == '-';
+            long value = 0;
+            int start = position;
+            for (byte c; position < limit && (c = buffer.get(position)) >= '0' && c <= '9'; ++position) {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) throw malformed("too large index");
+            }
+            if (position == start) throw malformed("missing number");
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Parses a decimal number at the current position. Numbers of up to 15 significant digits with a small
+         * exponent are converted exactly with one multiplication or division, the rest go through
+         * {@link Double#parseDouble(String)}.
+         *
+         * @return The number.
+         * @throws IOException If there is no number at the position.
+         */
+        private double parseDouble() throws IOException {
+            skipBlanks();
+            int start = position;
+            boolean negative = false;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+                negative = buffer.get(position++) == '-';
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            byte c;
+            for (; position < limit && (c = buffer.get(position)) >= '0' && c <= '9'; ++position) {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) ++digits;
+                } else ++exponent;
+            }
+            if (position < limit && buffer.get(position) == '.') {
+                for (++position; position < limit && (c = buffer.get(position)) >= '0' && c <= '9'; ++position) {
+                    any = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (mantissa != 0) ++digits;
+                        --exponent;
+                    }
+                }
+            }
+            if (!any) throw malformed("missing number");
+            if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+                ++position;
+                exponent += parseInt();
+            }
+            if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+                double value = exponent < 0 ? mantissa / POWERS_OF_10[-exponent] : mantissa * POWERS_OF_10[exponent];
+                return negative ? -value : value;
+            }
+            byte[] text = new byte[position - start];
+            buffer.get(start, text);
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * The scalar types of the PLY format.
+     */
+    private enum PlyType {
+        INT8(1), UINT8(1), INT16(2), UINT16(2), INT32(4), UINT32(4), FLOAT32(4), FLOAT64(8);
+
+        private final int size;
+
+        /**
+         * Constructs a type.
+         *
+         * @param size The size of the type in bytes.
+         */
+        PlyType(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Finds a type by its name in the PLY header.
+         *
+         * @param name The type name.
+         * @return The type.
+         * @throws IOException If the name is unknown.
+         */
+        static PlyType of(String name) throws IOException {
+            return switch (name) {
+                case "char", "int8" -> INT8;
+                case "uchar", "uint8" -> UINT8;
+                case "short", "int16" -> INT16;
+                case "ushort", "uint16" -> UINT16;
+                case "int", "int32" -> INT32;
+                case "uint", "uint32" -> UINT32;
+                case "float", "float32" -> FLOAT32;
+                case "double", "float64" -> FLOAT64;
+                default -> throw new IOException("Unknown PLY type " + name);
+            };
+        }
+
+        /**
+         * Reads a value of the type from a buffer.
+         *
+         * @param buffer   The buffer, in the byte order of the file.
+         * @param position The position of the value in the buffer.
+         * @return The value.
+         */
+        double read(ByteBuffer buffer, int position) {
+            return switch (this) {
+                case FLOAT32 -> buffer.getFloat(position);
+                case FLOAT64 -> buffer.getDouble(position);
+                default -> readLong(buffer, position);
+            };
+        }
+
+        /**
+         * Reads an integer value of the type from a buffer.
+         *
+         * @param buffer   The buffer, in the byte order of the file.
+         * @param position The position of the value in the buffer.
+         * @return The value.
+         */
+        long readLong(ByteBuffer buffer, int position) {
+            return switch (this) {
+                case INT8 -> buffer.get(position);
+                case UINT8 -> buffer.get(position) & 0xFF;
+                case INT16 -> buffer.getShort(position);
+                case UINT16 -> buffer.getShort(position) & 0xFFFF;
+                case INT32 -> buffer.getInt(position);
+                case UINT32 -> buffer.getInt(position) & 0xFFFFFFFFL;
+                case FLOAT32 -> (long) buffer.getFloat(position);
+                case FLOAT64 -> (long) buffer.getDouble(position);
+            };
+        }
+    }
+
+    /**
+     * A property of a PLY element.
+     *
+     * @param name      The property name.
+     * @param type      The type of the value, or of the list items for a list property.
+     * @param countType The type of the list length for a list property, null for a scalar property.
+     */
+    private record PlyProperty(String name, PlyType type, PlyType countType) {
+        /**
+         * Calculates the size of the property in the file, reading the list length for a list property.
+         *
+         * @param reader The reader, positioned at the property.
+         * @return The size of the (rest of the) property in bytes.
+         * @throws IOException If an I/O error occurs.
+         */
+        long size(BinaryReader reader) throws IOException {
+            return countType == null ? type.size : reader.readLong(countType) * type.size;
+        }
+    }
+
+    /**
+     * An element of a PLY file.
+     */
+    private static final class PlyElement {
+        private final String name;
+        private final long count;
+        private final List<PlyProperty> properties = new ArrayList<>();
+
+        /**
+         * Constructs an element.
+         *
+         * @param name  The element name.
+         * @param count The amount of the element items.
+         */
+        PlyElement(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    /**
+     * A sequential reader of a file channel through a buffer.
+     */
+    private static final class BinaryReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        /**
+         * The position in the file of the end of the buffered data
+         */
+        private long filePosition = 0;
+
+        /**
+         * Constructs a reader at the start of the file.
+         *
+         * @param channel The file channel.
+         */
+        BinaryReader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        /**
+         * Sets the byte order of the numbers.
+         *
+         * @param order The byte order.
+         */
+        void order(ByteOrder order) {
+            buffer.order(order);
+        }
+
+        /**
+         * Returns the current position in the file.
+         *
+         * @return The position.
+         */
+        long position() {
+            return filePosition - buffer.remaining();
+        }
+
+        /**
+         * Makes sure that the buffer holds at least the given amount of bytes.
+         *
+         * @param n The amount of bytes.
+         * @throws IOException If the file ends before.
+         */
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() >= n) return;
+            buffer.compact();
+            while (buffer.position() < n) {
+                int read = channel.read(buffer, filePosition);
+                if (read <= 0) throw new EOFException("Unexpected end of the PLY file");
+                filePosition += read;
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Skips bytes.
+         *
+         * @param n The amount of bytes.
+         */
+        void skip(long n) {
+            if (n <= buffer.remaining()) {
+                buffer.position(buffer.position() + (int) n);
+                return;
+            }
+            filePosition = position() + n;
+            buffer.clear().limit(0);
+        }
+
+        /**
+         * Reads an ASCII line of the header.
+         *
+         * @return The line without the line end.
+         * @throws IOException If the file ends before.
+         */
+        String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                ensure(1);
+                byte c = buffer.get();
+                if (c == '\n') return line.toString();
+                if (c != '\r') line.append((char) c);
+            }
+        }
+
+        /**
+         * Reads an integer value.
+         *
+         * @param type The type of the value.
+         * @return The value.
+         * @throws IOException If the file ends before.
+         */
+        long readLong(PlyType type) throws IOException {
+            ensure(type.size);
+            long value = type.readLong(buffer, buffer.position());
+            buffer.position(buffer.position() + type.size);
+            return value;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import lighting.LightSource;
 import primitives.Color;
 
 import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -14,13 +16,20 @@ import java.util.List;
  * The Scene class represents a 3D scene with its properties and geometries.
  */
 @XmlRootElement(name = "scene")
-public class Scene {
+public class Scene implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
 
 
     /**
      * The flag indicating whether AABB (Axis-Aligned Bounding Box) is enabled.
      */
     public boolean isAABB = false;
+    /**
+     * The flag indicating whether the geometries are organized in a bounding volume hierarchy (BVH).
+     */
+    public boolean isBVH = false;
     /**
      * The name of the scene.
      */
@@ -45,7 +54,7 @@ public class Scene {
      * The XML file associated with the scene.
      */
     @SuppressWarnings("unused")
-    public XmlFile xmlFile;
+    public transient XmlFile xmlFile;
 
     /**
      * Constructs a new Scene object with the specified name.
@@ -77,6 +86,18 @@ public class Scene {
         return  this;
     }
 
+    /**
+     * Sets the flag indicating whether the geometries are organized in a bounding volume hierarchy (BVH).
+     * The hierarchy is built when a ray tracer is constructed for the scene.
+     *
+     * @param isBVH The flag indicating whether BVH is enabled.
+     * @return The updated Scene object.
+     */
+    public Scene setIsBVH(boolean isBVH) {
+        this.isBVH = isBVH;
+        return this;
+    }
+
     /**
      * Sets the ambient light of the scene.
      *
@@ -2,156 +2,387 @@ package scene;
 
 import geometries.*;
 import lighting.AmbientLight;
-import org.w3c.dom.*;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import primitives.Color;
-import primitives.Point;
-import primitives.Ray;
-import primitives.Vector;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * The XmlFile class reads a scene from an XML file.
+ * The file is streamed (StAX), every geometry is constructed and added to the scene as soon as its element ends,
+ * so the memory needed besides the scene itself does not depend on the size of the file.
+ * <p>
+ * The root element is {@code <scene background-color="r g b" name="...">} and it may contain:
+ * <ul>
+ * <li>{@code <ambient-light color="r g b" ka="k"/>}</li>
+ * <li>{@code <materials>} of named {@code <material name="..." kd ks kt kr shininess kb density/>} elements,
+ * the coefficients are a single number or 3 numbers</li>
+ * <li>{@code <geometries>} of {@code sphere, triangle, polygon, plane, tube, cylinder} and {@code mesh}
+ * (an OBJ or PLY file) elements. A geometry may have an {@code emission} color, a {@code material} name
+ * and an inner {@code <material/>} element</li>
+ * <li>{@code <lights>} of {@code <directional color direction/>},
+ * {@code <point color position kc kl kq/>} and {@code <spot color position direction kc kl kq narrow-beam/>}</li>
+ * <li>{@code <camera position to up | target distance width height threads>} with an optional
+ * {@code <image-writer name nx ny/>} element</li>
+ * </ul>
+ */
 public class XmlFile {
+    private Camera camera;
+
+    /**
+     * Returns the camera described in the last deserialized file.
+     * The camera has no ray tracer - it should be set for the scene after the scene settings are done.
+     *
+     * @return The camera, or null if the file had no camera element.
+     */
+    public Camera getCamera() {
+        return camera;
+    }
 
     /**
      * Deserializes a scene from an XML file.
      *
-     * @param fileName The name of the XML file.
+     * @param fileName The name of the XML file (without the extension) in the working directory.
      * @return The deserialized Scene object.
-     * @throws ParserConfigurationException If a DocumentBuilder cannot be created.
-     * @throws IOException                  If an I/O error occurs.
-     * @throws SAXException                 If any parse errors occur.
-     */
-    public Scene deserialize(String fileName) throws ParserConfigurationException, IOException, SAXException {
-        String path = System.getProperty("user.dir") + "/" + fileName + ".xml";
-        BufferedReader reader1 = new BufferedReader(new FileReader(path));
-        StringBuilder stringBuilder = new StringBuilder();
-        String line;
-        while ((line = reader1.readLine()) != null) {
-            stringBuilder.append(line);
-            stringBuilder.append(System.lineSeparator());
+     * @throws IOException If an I/O error occurs or the file is malformed.
+     */
+    public Scene deserialize(String fileName) throws IOException {
+        Path path = Path.of(System.getProperty("user.dir"), fileName + ".xml");
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return deserialize(in);
         }
-        reader1.close();
-        String xml = stringBuilder.toString();
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(new InputSource(new StringReader(xml)));
-
-        Element sceneElement = document.getDocumentElement();
-
-        String backgroundColorString = sceneElement.getAttribute("background-color");
-        String[] backgroundColorComponents = backgroundColorString.split(" ");
-        int red = Integer.parseInt(backgroundColorComponents[0]);
-        int green = Integer.parseInt(backgroundColorComponents[1]);
-        int blue = Integer.parseInt(backgroundColorComponents[2]);
-        Color fileBackgroundColor = new Color(red, green, blue);
-
-        AmbientLight fileAmbientLight = AmbientLight.NONE;
-        NodeList ambientLightList = sceneElement.getElementsByTagName("ambient-light");
-        if (ambientLightList.getLength() > 0) {
-            Element ambientLightElement = (Element) ambientLightList.item(0);
-            String ambientLightColorString = ambientLightElement.getAttribute("color");
-            String[] ambientLightColorComponents = ambientLightColorString.split(" ");
-            int ambientLightRed = Integer.parseInt(ambientLightColorComponents[0]);
-            int ambientLightGreen = Integer.parseInt(ambientLightColorComponents[1]);
-            int ambientLightBlue = Integer.parseInt(ambientLightColorComponents[2]);
-            fileAmbientLight = new AmbientLight(new Color(ambientLightRed, ambientLightGreen, ambientLightBlue), 1);
+    }
+
+    /**
+     * Deserializes a scene from an XML stream.
+     *
+     * @param in The XML stream.
+     * @return The deserialized Scene object.
+     * @throws IOException If an I/O error occurs or the XML is malformed.
+     */
+    public Scene deserialize(InputStream in) throws IOException {
+        camera = null;
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(in);
+            return read(reader);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed scene file: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            String where = reader == null ? "" : " at line " + reader.getLocation().getLineNumber();
+            throw new IOException("Wrong scene file content" + where + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignore) {
+                }
+            }
         }
+    }
 
-        Geometries fileGeometries = new Geometries();
-        NodeList geometryList = sceneElement.getElementsByTagName("geometries");
-        if (geometryList.getLength() > 0) {
-            Element geometriesElement = (Element) geometryList.item(0);
-            NodeList shapeList = geometriesElement.getChildNodes();
-            for (int i = 0; i < shapeList.getLength(); i++) {
-                Node shapeNode = shapeList.item(i);
-                if (shapeNode.getNodeType() == Node.ELEMENT_NODE) {
-                    Element shapeElement = (Element) shapeNode;
-                    switch (shapeElement.getNodeName()) {
-                        case "sphere":
-                            String sphereCenterString = shapeElement.getAttribute("center");
-                            Point center = readPoint(sphereCenterString.split(" "));
-                            double sphereRadius = Double.parseDouble(shapeElement.getAttribute("radius"));
-                            fileGeometries.add(new Sphere(center, sphereRadius));
-                            break;
-                        case "triangle":
-                            String triangleP0String = shapeElement.getAttribute("p0");
-                            Point p0 = readPoint(triangleP0String.split(" "));
-                            String triangleP1String = shapeElement.getAttribute("p1");
-                            Point p1 = readPoint(triangleP1String.split(" "));
-                            String triangleP2String = shapeElement.getAttribute("p2");
-                            Point p2 = readPoint(triangleP2String.split(" "));
-                            fileGeometries.add(new Triangle(p0, p1, p2));
-                            break;
-                        case "polygon":
-                            List<Point> points = new ArrayList<>();
-                            NamedNodeMap attributes = shapeElement.getAttributes();
-                            for (int counter = 0; counter < attributes.getLength(); counter++) {
-                                Node attribute = attributes.item(counter);
-                                String attributeName = attribute.getNodeName();
-                                if (attributeName.startsWith("p")) {
-                                    Point point = readPoint(attribute.getNodeValue().split(" "));
-                                    points.add(point);
-                                }
+    /**
+     * Reads the scene from the XML stream events.
+     *
+     * @param reader The XML stream reader.
+     * @return The scene.
+     * @throws XMLStreamException If the XML is malformed.
+     * @throws IOException        If a mesh file can't be loaded.
+     */
+    private Scene read(XMLStreamReader reader) throws XMLStreamException, IOException {
+        Scene scene = null;
+        Map<String, Material> materials = new HashMap<>();
+        Deque<String> path = new ArrayDeque<>();
+        // the geometry element being read - its inner elements complete it before it is constructed
+        Map<String, String> geometry = null;
+        Map<String, String> geometryRay = null;
+        Material geometryMaterial = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                String parent = path.peek();
+                path.push(name);
+                Map<String, String> attributes = attributes(reader);
+                if (scene == null) {
+                    if (!"scene".equals(name)) throw new IllegalArgumentException("The root element must be scene");
+                    scene = new Scene(attributes.getOrDefault("name", "XML Test scene"));
+                    if (attributes.containsKey("background-color"))
+                        scene.setBackground(readColor(attributes.get("background-color")));
+                    continue;
+                }
+                if (geometry != null) {
+                    if ("ray".equals(name)) geometryRay = attributes;
+                    else if ("material".equals(name)) geometryMaterial = readMaterial(attributes);
+                    continue;
+                }
+                switch (parent) {
+                    case "scene" -> {
+                        switch (name) {
+                            case "ambient-light" -> scene.setAmbientLight(new AmbientLight(
+                                    readColor(attributes.get("color")), readDouble(attributes, "ka", 1)));
+                            case "camera" -> camera = readCamera(attributes);
+                            default -> {
+                                // containers of the other elements
                             }
-                            fileGeometries.add(new Polygon(points.toArray(new Point[0])));
-                            break;
-                        case "plane":
-                            String planeP0String = shapeElement.getAttribute("p0");
-                            p0 = readPoint(planeP0String.split(" "));
-                            String planeP1String = shapeElement.getAttribute("p1");
-                            p1 = readPoint(planeP1String.split(" "));
-                            String planeP2String = shapeElement.getAttribute("p2");
-                            p2 = readPoint(planeP2String.split(" "));
-                            fileGeometries.add(new Plane(p0, p1, p2));
-                            break;
-                        case "tube":
-                            // Get the radius attribute
-                            double radius = Double.parseDouble(shapeElement.getAttribute("radius"));
-                            Element rayElement = (Element) shapeElement.getElementsByTagName("ray").item(0);
-                            String[] pointCoords = rayElement.getAttribute("point").split(" ");
-                            Point point = new Point(Double.parseDouble(pointCoords[0]), Double.parseDouble(pointCoords[1]), Double.parseDouble(pointCoords[2]));
-                            String[] vectorCoords = rayElement.getAttribute("vector").split(" ");
-                            Vector vector = new Vector(Double.parseDouble(vectorCoords[0]), Double.parseDouble(vectorCoords[1]), Double.parseDouble(vectorCoords[2]));
-                            fileGeometries.add(new Tube(new Ray(point, vector), radius));
-                            break;
-                        case "cylinder":
-                            radius = Double.parseDouble(shapeElement.getAttribute("radius"));
-                            double height = Double.parseDouble(shapeElement.getAttribute("height"));
-                            rayElement = (Element) shapeElement.getElementsByTagName("ray").item(0);
-                            pointCoords = rayElement.getAttribute("point").split(" ");
-                            point = new Point(Double.parseDouble(pointCoords[0]), Double.parseDouble(pointCoords[1]), Double.parseDouble(pointCoords[2]));
-                            vectorCoords = rayElement.getAttribute("vector").split(" ");
-                            vector = new Vector(Double.parseDouble(vectorCoords[0]), Double.parseDouble(vectorCoords[1]), Double.parseDouble(vectorCoords[2]));
-                            fileGeometries.add(new Cylinder(height, new Ray(point, vector), radius));
-                            break;
+                        }
+                    }
+                    case "materials" -> {
+                        if ("material".equals(name)) materials.put(attributes.get("name"), readMaterial(attributes));
+                    }
+                    case "geometries" -> {
+                        geometry = attributes;
+                        geometryRay = null;
+                        geometryMaterial = null;
+                    }
+                    case "lights" -> scene.lights.add(switch (name) {
+                        case "directional" -> new DirectionalLight(readColor(attributes.get("color")),
+                                readVector(attributes.get("direction")));
+                        case "point" -> readAttenuation(new PointLight(readColor(attributes.get("color")),
+                                readPoint(attributes.get("position"))), attributes);
+                        case "spot" -> readAttenuation(new SpotLight(readColor(attributes.get("color")),
+                                readPoint(attributes.get("position")), readVector(attributes.get("direction")))
+                                .setNarrowBeam(readDouble(attributes, "narrow-beam", 1)), attributes);
+                        default -> throw new IllegalArgumentException("Unknown light " + name);
+                    });
+                    case "camera" -> {
+                        if ("image-writer".equals(name) && camera != null)
+                            camera.setImageWriter(new ImageWriter(attributes.get("name"),
+                                    Integer.parseInt(attributes.get("nx")), Integer.parseInt(attributes.get("ny"))));
+                    }
+                    default -> {
+                        // unknown elements are ignored
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = path.pop();
+                if (geometry != null && "geometries".equals(path.peek())) {
+                    Geometry shape = readGeometry(name, geometry, geometryRay);
+                    String materialName = geometry.get("material");
+                    if (materialName != null) {
+                        Material material = materials.get(materialName);
+                        if (material == null) throw new IllegalArgumentException("Unknown material " + materialName);
+                        shape.setMaterial(material);
+                    }
+                    if (geometryMaterial != null) shape.setMaterial(geometryMaterial);
+                    if (geometry.containsKey("emission")) shape.setEmission(readColor(geometry.get("emission")));
+                    scene.geometries.add(shape);
+                    geometry = null;
+                }
+            }
+        }
+        if (scene == null) throw new IllegalArgumentException("Missing scene element");
+        return scene;
+    }
 
+    /**
+     * Collects the attributes of the current element.
+     *
+     * @param reader The XML stream reader at a start element.
+     * @return The attributes by their names, in the document order.
+     */
+    private static Map<String, String> attributes(XMLStreamReader reader) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); ++i)
+            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        return attributes;
+    }
 
-                    }
+    /**
+     * Constructs a geometry from its element.
+     *
+     * @param name       The element name.
+     * @param attributes The attributes of the element.
+     * @param ray        The attributes of the inner ray element, or null if there is none.
+     * @return The geometry.
+     * @throws IOException If a mesh file can't be loaded.
+     */
+    private static Geometry readGeometry(String name, Map<String, String> attributes, Map<String, String> ray)
+            throws IOException {
+        return switch (name) {
+            case "sphere" -> new Sphere(readPoint(attributes.get("center")), readDouble(attributes, "radius", 0));
+            case "triangle" -> new Triangle(readPoint(attributes.get("p0")), readPoint(attributes.get("p1")),
+                    readPoint(attributes.get("p2")));
+            case "plane" -> new Plane(readPoint(attributes.get("p0")), readPoint(attributes.get("p1")),
+                    readPoint(attributes.get("p2")));
+            case "polygon" -> {
+                // the vertices are the attributes p0, p1, ... in the order of their numbers
+                TreeMap<Integer, Point> vertices = new TreeMap<>();
+                for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                    String key = attribute.getKey();
+                    if (key.length() > 1 && key.charAt(0) == 'p' && key.substring(1).chars().allMatch(Character::isDigit))
+                        vertices.put(Integer.parseInt(key.substring(1)), readPoint(attribute.getValue()));
                 }
+                yield new Polygon(vertices.values().toArray(new Point[0]));
             }
+            case "tube" -> new Tube(readRay(ray), readDouble(attributes, "radius", 0));
+            case "cylinder" -> new Cylinder(readDouble(attributes, "height", 0), readRay(ray),
+                    readDouble(attributes, "radius", 0));
+            case "mesh" -> new MeshLoader().load(attributes.get("file"));
+            default -> throw new IllegalArgumentException("Unknown geometry " + name);
+        };
+    }
+
+    /**
+     * Constructs a material from the attributes of its element.
+     *
+     * @param attributes The attributes.
+     * @return The material.
+     */
+    private static Material readMaterial(Map<String, String> attributes) {
+        Material material = new Material();
+        if (attributes.containsKey("kd")) material.setKd(readDouble3(attributes.get("kd")));
+        if (attributes.containsKey("ks")) material.setKs(readDouble3(attributes.get("ks")));
+        if (attributes.containsKey("kt")) material.setKt(readDouble3(attributes.get("kt")));
+        if (attributes.containsKey("kr")) material.setKr(readDouble3(attributes.get("kr")));
+        if (attributes.containsKey("shininess")) material.setShininess(Integer.parseInt(attributes.get("shininess")));
+        if (attributes.containsKey("kb")) material.setKB(readDouble(attributes, "kb", 0));
+        if (attributes.containsKey("density")) material.setDensity(Integer.parseInt(attributes.get("density")));
+        return material;
+    }
+
+    /**
+     * Sets the attenuation factors of a point light from the attributes of its element.
+     *
+     * @param light      The light.
+     * @param attributes The attributes.
+     * @return The light.
+     */
+    private static PointLight readAttenuation(PointLight light, Map<String, String> attributes) {
+        return light.setKc(readDouble(attributes, "kc", 1)).setKl(readDouble(attributes, "kl", 0))
+                .setKq(readDouble(attributes, "kq", 0));
+    }
+
+    /**
+     * Constructs a camera from the attributes of its element.
+     *
+     * @param attributes The attributes.
+     * @return The camera.
+     */
+    private static Camera readCamera(Map<String, String> attributes) {
+        Point position = readPoint(attributes.get("position"));
+        Camera camera = attributes.containsKey("target")
+                ? new Camera(position, readPoint(attributes.get("target")))
+                : new Camera(position, readVector(attributes.get("to")), readVector(attributes.get("up")));
+        camera.setVPDistance(readDouble(attributes, "distance", 1))
+                .setVPSize(readDouble(attributes, "width", 1), readDouble(attributes, "height", 1));
+        if (attributes.containsKey("threads")) camera.setMultithreading(Integer.parseInt(attributes.get("threads")));
+        return camera;
+    }
+
+    /**
+     * Reads a number attribute.
+     *
+     * @param attributes   The attributes.
+     * @param name         The attribute name.
+     * @param defaultValue The value if the attribute is missing.
+     * @return The number.
+     */
+    private static double readDouble(Map<String, String> attributes, String name, double defaultValue) {
+        String value = attributes.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Reads the numbers of a space separated attribute value.
+     *
+     * @param value The attribute value.
+     * @param count The amount of the numbers.
+     * @return The numbers.
+     * @throws IllegalArgumentException if the value is missing or the amount of the numbers is different
+     */
+    private static double[] readNumbers(String value, int count) {
+        if (value == null) throw new IllegalArgumentException("Missing attribute");
+        double[] numbers = new double[count];
+        int found = 0;
+        int length = value.length();
+        for (int i = 0; i < length; ) {
+            while (i < length && Character.isWhitespace(value.charAt(i))) ++i;
+            if (i == length) break;
+            int start = i;
+            while (i < length && !Character.isWhitespace(value.charAt(i))) ++i;
+            if (found == count) throw new IllegalArgumentException("Too many numbers in \"" + value + "\"");
+            numbers[found++] = Double.parseDouble(value.substring(start, i));
         }
-        return new Scene("XML Test scene").setBackground(fileBackgroundColor).setAmbientLight(fileAmbientLight).setGeometries(fileGeometries);
+        if (found != count) throw new IllegalArgumentException("Expected " + count + " numbers in \"" + value + "\"");
+        return numbers;
+    }
+
+    /**
+     * Reads a triad of numbers, a single number stands for 3 equal numbers.
+     *
+     * @param value The attribute value.
+     * @return The numbers.
+     */
+    private static Double3 readDouble3(String value) {
+        if (value.trim().indexOf(' ') < 0) return new Double3(Double.parseDouble(value.trim()));
+        double[] numbers = readNumbers(value, 3);
+        return new Double3(numbers[0], numbers[1], numbers[2]);
+    }
+
+    /**
+     * Reads a point.
+     *
+     * @param value The attribute value - 3 coordinates.
+     * @return The point.
+     */
+    private static Point readPoint(String value) {
+        double[] numbers = readNumbers(value, 3);
+        return new Point(numbers[0], numbers[1], numbers[2]);
+    }
+
+    /**
+     * Reads a vector.
+     *
+     * @param value The attribute value - 3 coordinates.
+     * @return The vector.
+     */
+    private static Vector readVector(String value) {
+        double[] numbers = readNumbers(value, 3);
+        return new Vector(numbers[0], numbers[1], numbers[2]);
+    }
+
+    /**
+     * Reads a color.
+     *
+     * @param value The attribute value - red, green and blue.
+     * @return The color.
+     */
+    private static Color readColor(String value) {
+        double[] numbers = readNumbers(value, 3);
+        return new Color(numbers[0], numbers[1], numbers[2]);
     }
 
     /**
-     * Reads the coordinates of a point from an array of point components.
+     * Reads a ray from the attributes of its element.
      *
-     * @param pointComponent The array of point components
-     * @return A Point object with the specified coordinates
+     * @param attributes The attributes - the point and the vector of the ray.
+     * @return The ray.
      */
-    private Point readPoint(String[] pointComponent) {
-        return new Point(Double.parseDouble(pointComponent[0]),
-                Double.parseDouble(pointComponent[1]),
-                Double.parseDouble(pointComponent[2]));
+    private static Ray readRay(Map<String, String> attributes) {
+        if (attributes == null) throw new IllegalArgumentException("Missing ray element");
+        return new Ray(readPoint(attributes.get("point")), readVector(attributes.get("vector")));
     }
 }
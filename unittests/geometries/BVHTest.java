@@ -0,0 +1,141 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.RayPacket;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.BVH class
+ */
+class BVHTest {
+    private final Random random = new Random(42);
+
+    /**
+     * Creates a random point in a cube around the origin.
+     *
+     * @param size half of the cube side
+     * @return the random point
+     */
+    private Point randomPoint(double size) {
+        return new Point((random.nextDouble() * 2 - 1) * size, (random.nextDouble() * 2 - 1) * size,
+                (random.nextDouble() * 2 - 1) * size);
+    }
+
+    /**
+     * Builds a scene of random spheres and triangles together with an unbounded plane.
+     *
+     * @return the geometries of the scene
+     */
+    private Geometries randomScene() {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -60), new Vector(0, 0, 1)));
+        for (int i = 0; i < 200; ++i) {
+            Point center = randomPoint(50);
+            if (i % 2 == 0)
+                geometries.add(new Sphere(center, 1 + random.nextDouble() * 3));
+            else
+                geometries.add(new Triangle(center, center.add(randomPoint(4).subtract(new Point(0, 0, 0))),
+                        center.add(randomPoint(4).subtract(new Point(0, 0, 0)))));
+        }
+        return geometries;
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findGeoIntersections(primitives.Ray, double)}
+     * and {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    void testSameIntersectionsAsFlatList() {
+        Geometries flat = randomScene();
+        random.setSeed(42);
+        Geometries tree = randomScene();
+        tree.buildBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: random rays find the same intersections with and without the hierarchy
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(randomPoint(80), randomPoint(1).subtract(new Point(0, 0, 0)));
+            List<GeoPoint> expected = flat.findGeoIntersections(ray, 100);
+            List<GeoPoint> result = tree.findGeoIntersections(ray, 100);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+            GeoPoint closest = ray.findClosestGeoPoint(flat.findGeoIntersections(ray));
+            GeoPoint treeClosest = tree.findClosestGeoIntersection(ray);
+            if (closest == null)
+                assertNull(treeClosest, "Found an intersection that does not exist");
+            else
+                assertEquals(closest.point, treeClosest.point, "Wrong closest intersection");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: empty hierarchy
+        Geometries empty = new Geometries();
+        empty.buildBVH();
+        assertNull(empty.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0))),
+                "Empty hierarchy has intersections");
+    }
+
+    /**
+     * Asserts that the closest intersections of a packet are those of its rays traced alone.
+     *
+     * @param geometries the geometries
+     * @param packet     the ray packet
+     */
+    private static void assertSameAsSingleRays(Geometries geometries, RayPacket packet) {
+        GeoPoint[] result = geometries.findClosestGeoIntersections(packet);
+        assertEquals(packet.size(), result.length, "Wrong number of results");
+        for (int r = 0; r < packet.size(); ++r) {
+            GeoPoint expected = geometries.findClosestGeoIntersection(packet.getRay(r));
+            if (expected == null)
+                assertNull(result[r], "Found an intersection that does not exist");
+            else
+                assertEquals(expected.point, result[r].point, "Wrong closest intersection of ray " + r);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findClosestGeoIntersections(primitives.RayPacket)}.
+     */
+    @Test
+    void testFindClosestGeoIntersections() {
+        Geometries tree = randomScene();
+        tree.buildBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: coherent packets of 8x8 rays from a common head find the closest intersections of the rays alone
+        Point head = new Point(0, 0, 100);
+        for (int i = 0; i < 20; ++i) {
+            Vector center = randomPoint(0.5).subtract(new Point(0, 0, 1));
+            Ray[] rays = new Ray[64];
+            for (int r = 0; r < rays.length; ++r)
+                rays[r] = new Ray(head, center.add(new Vector(r % 8 * 0.01 + 0.001, r / 8 * 0.01 + 0.001, 0)));
+            assertSameAsSingleRays(tree, new RayPacket(rays));
+        }
+        // TC02: a packet of rays of random heads and directions
+        Ray[] rays = new Ray[16];
+        for (int r = 0; r < rays.length; ++r)
+            rays[r] = new Ray(randomPoint(80), randomPoint(1).subtract(new Point(0, 0, 0)));
+        assertSameAsSingleRays(tree, new RayPacket(rays));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a packet of a single ray
+        assertSameAsSingleRays(tree, new RayPacket(new Ray(head, new Vector(0.1, 0.1, -1))));
+        // TC12: rays parallel to the axes
+        assertSameAsSingleRays(tree, new RayPacket(new Ray(head, new Vector(0, 0, -1)),
+                new Ray(new Point(0, -100, 0), new Vector(0, 1, 0)), new Ray(new Point(-100, 0, 0), new Vector(1, 0, 0))));
+        // TC13: a collection without a hierarchy traces the rays alone
+        random.setSeed(42);
+        assertSameAsSingleRays(randomScene(), new RayPacket(rays));
+        // TC14: a packet of no rays or of too many rays
+        assertThrows(IllegalArgumentException.class, RayPacket::new, "Constructed an empty packet");
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(new Ray[RayPacket.MAX_SIZE + 1]),
+                "Constructed a packet of too many rays");
+    }
+}
@@ -131,6 +131,14 @@ class CylinderTest {
         result = cylinder.findIntersections(new Ray(new Point(5, 0, 0), new Vector(1, 0, 0)));
         assertNull(result, "Wrong number of points");
 
+        //TC07 ray starts inside and leaves through the top base
+        result = cylinder.findIntersections(new Ray(new Point(2, 0, 1.5), new Vector(1, 0, 1)));
+        assertEquals(List.of(new Point(2.5, 0, 2)), result, "Bad intersection point");
+
+        //TC08 ray enters through the side and leaves through the top base
+        result = cylinder.findIntersections(new Ray(new Point(0, 0, 0.5), new Vector(1, 0, 0.75)));
+        assertEquals(List.of(new Point(1, 0, 1.25), new Point(2, 0, 2)), result, "Bad intersection points");
+
         // =============== Boundary Values Tests ==================
 
         //TC10 ray is on the surface of the cylinder (not bases)
@@ -237,6 +245,11 @@ class CylinderTest {
         assertEquals(1, result.size(), "Wrong number of points");
         assertEquals(new Point(2.5, 0, 0), result.get(0).point, "Bad intersection point");
 
+        //TC09 ray enters through the side and leaves through the top base, only the side is in range
+        result = cylinder.findGeoIntersections(new Ray(new Point(0, 0, 0.5), new Vector(1, 0, 0.75)), 2);
+        assertEquals(1, result.size(), "Wrong number of points");
+        assertEquals(new Point(1, 0, 1.25), result.get(0).point, "Bad intersection point");
+
 
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package geometries;
 
 import geometries.Intersectable.GeoPoint;
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -87,4 +89,60 @@ class GeometriesTest {
         assertEquals(2, result.size(), "sphere and plane");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransmittance(primitives.Ray, double, primitives.Double3, double)}.
+     */
+    @Test
+    void testFindTransmittance() {
+        Sphere glass = (Sphere) new Sphere(new Point(5, 0, 0), 1).setMaterial(new Material().setKt(0.5));
+        Sphere stone = new Sphere(new Point(10, 0, 0), 1);
+        Geometries geo = new Geometries(glass, stone);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the light passes twice through the transparent sphere
+        assertEquals(new Double3(0.25), geo.findTransmittance(ray, 7, Double3.ONE, 0.001),
+                "Wrong transmittance through a transparent sphere");
+        // TC02: the opaque sphere blocks the light
+        assertEquals(Double3.ZERO, geo.findTransmittance(ray, 20, Double3.ONE, 0.001),
+                "Opaque sphere does not block the light");
+        // TC03: nothing between the point and the light
+        assertEquals(Double3.ONE, geo.findTransmittance(ray, 3, Double3.ONE, 0.001),
+                "Light is blocked by nothing");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#constructBox()}.
+     */
+    @Test
+    void testConstructBox() {
+        Sphere near = new Sphere(new Point(0, 0, -10), 1);
+        Sphere far = new Sphere(new Point(4, 2, -20), 2);
+        Geometries group = new Geometries(near, far);
+        Plane floor = new Plane(new Point(0, -5, 0), new Vector(0, 1, 0));
+        Geometries scene = new Geometries(group, floor, new Geometries());
+        scene.setBoxes();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the box of a nested collection is the union of the boxes of its geometries
+        Intersectable.Box box = group.getBox();
+        assertEquals(-1d, box.getMin(0), "Wrong min x of the union box");
+        assertEquals(6d, box.getMax(0), "Wrong max x of the union box");
+        assertEquals(-22d, box.getMin(2), "Wrong min z of the union box");
+        assertEquals(-9d, box.getMax(2), "Wrong max z of the union box");
+        // TC02: a collection with an unbounded geometry has no box
+        assertNull(scene.getBox(), "A collection with a plane has a box");
+        // TC03: a ray that misses the nested collection still hits the unbounded geometry
+        Ray down = new Ray(new Point(20, 0, 0), new Vector(0, -1, 0));
+        down.setAABB(true);
+        assertEquals(List.of(new Point(20, -5, 0)), scene.findIntersections(down), "Wrong intersections past the box");
+        // TC04: the closest intersection is found in the nested collection
+        Ray ahead = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+        ahead.setAABB(true);
+        assertEquals(new Point(0, 0, -9), scene.findClosestGeoIntersection(ahead).point, "Wrong closest intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a geometry added after the boxes were constructed is found
+        scene.add(new Sphere(new Point(20, -3, 0), 1));
+        assertEquals(new Point(20, -2, 0), scene.findClosestGeoIntersection(down).point, "Added geometry not found");
+    }
+}
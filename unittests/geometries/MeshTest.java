@@ -0,0 +1,156 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Mesh class
+ */
+class MeshTest {
+    /**
+     * A tetrahedron with the vertices (0,0,0), (1,0,0), (0,1,0) and (0,0,1), its faces are oriented outwards
+     */
+    private final Mesh tetrahedron = new Mesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1},
+            new int[]{0, 2, 1, 0, 1, 3, 0, 3, 2, 1, 2, 3});
+
+    /**
+     * Test method for {@link geometries.Mesh#Mesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a correct mesh
+        assertEquals(4, tetrahedron.getTrianglesCount(), "Wrong amount of triangles");
+        assertEquals(4, tetrahedron.getVerticesCount(), "Wrong amount of vertices");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a vertex with missing coordinates
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0, 1}, new int[]{}),
+                "Constructed a mesh with a partial vertex");
+        // TC12: a triangle with missing vertices
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0}, new int[]{0, 0}),
+                "Constructed a mesh with a partial triangle");
+        // TC13: a triangle of a vertex that does not exist
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[]{0, 0, 0}, new int[]{0, 0, 1}),
+                "Constructed a mesh with a wrong vertex index");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: points inside the faces get the normals of their faces
+        assertEquals(new Vector(0, 0, -1), tetrahedron.getNormal(new Point(0.2, 0.2, 0)), "Wrong bottom normal");
+        assertEquals(new Vector(0, -1, 0), tetrahedron.getNormal(new Point(0.2, 0, 0.2)), "Wrong side normal");
+        assertEquals(new Vector(1, 1, 1).normalize(), tetrahedron.getNormal(new Point(0.2, 0.3, 0.5)),
+                "Wrong slanted normal");
+        // TC02: a point that is not on the mesh
+        assertThrows(IllegalArgumentException.class, () -> tetrahedron.getNormal(new Point(0.2, 0.2, 0.2)),
+                "Normal of a point inside the tetrahedron");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a point on an edge gets the normal of one of the faces of the edge
+        Vector normal = tetrahedron.getNormal(new Point(0.5, 0, 0));
+        assertTrue(normal.equals(new Vector(0, 0, -1)) || normal.equals(new Vector(0, -1, 0)),
+                "Wrong normal of an edge");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray crosses the tetrahedron (2 points)
+        Ray ray = new Ray(new Point(0.2, 0.2, -1), new Vector(0, 0, 1));
+        List<GeoPoint> result = tetrahedron.findGeoIntersections(ray);
+        assertEquals(2, result.size(), "Wrong number of points");
+        GeoPoint closest = tetrahedron.findClosestGeoIntersection(ray);
+        assertEquals(new Point(0.2, 0.2, 0), closest.point, "Wrong closest intersection");
+        assertEquals(new Vector(0, 0, -1), closest.geometry.getNormal(closest.point), "Wrong face normal");
+        assertEquals(1, closest.t, 1e-10, "Wrong distance of the intersection");
+        assertEquals(new Vector(0, 0, -1), closest.getNormal(), "Wrong normal of the intersection");
+        assertEquals(0, ((Mesh.Face) closest.geometry).getIndex(), "Wrong triangle of the intersection");
+        assertEquals(0.2, closest.u, 1e-10, "Wrong barycentric u of the intersection");
+        assertEquals(0.2, closest.v, 1e-10, "Wrong barycentric v of the intersection");
+        assertSame(tetrahedron.getMaterial(), closest.geometry.getMaterial(), "The face has its own material");
+        // TC02: the ray misses the tetrahedron (0 points)
+        assertNull(tetrahedron.findGeoIntersections(new Ray(new Point(2, 2, -1), new Vector(0, 0, 1))),
+                "Ray's line out of the mesh");
+        // TC03: the intersections are farther than the maximal distance (0 points)
+        assertNull(tetrahedron.findClosestGeoIntersection(ray, 0.5), "Intersection beyond the maximal distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the ray passes through an edge of the tetrahedron (0 points)
+        assertNull(tetrahedron.findGeoIntersections(new Ray(new Point(0.5, -1, 0.5), new Vector(0, 1, 0))),
+                "Ray through an edge");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findClosestGeoIntersection(primitives.Ray)}
+     * compared with the same triangles as separate geometries.
+     */
+    @Test
+    void testSameIntersectionsAsTriangles() {
+        Random random = new Random(7);
+        int verticesCount = 60;
+        double[] vertices = new double[verticesCount * 3];
+        for (int i = 0; i < vertices.length; ++i)
+            vertices[i] = (random.nextDouble() * 2 - 1) * 20;
+        int[] indices = new int[150 * 3];
+        Geometries triangles = new Geometries();
+        for (int i = 0; i < indices.length; i += 3) {
+            indices[i] = random.nextInt(verticesCount);
+            indices[i + 1] = (indices[i] + 1 + random.nextInt(verticesCount - 1)) % verticesCount;
+            do indices[i + 2] = random.nextInt(verticesCount);
+            while (indices[i + 2] == indices[i] || indices[i + 2] == indices[i + 1]);
+            triangles.add(new Triangle(vertex(vertices, indices[i]), vertex(vertices, indices[i + 1]),
+                    vertex(vertices, indices[i + 2])));
+        }
+        Mesh mesh = new Mesh(vertices, indices);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: random rays find the same intersections in the mesh and in the triangles
+        for (int i = 0; i < 300; ++i) {
+            Point head = new Point((random.nextDouble() * 2 - 1) * 40, (random.nextDouble() * 2 - 1) * 40,
+                    (random.nextDouble() * 2 - 1) * 40);
+            Ray ray = new Ray(head, new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5,
+                    random.nextDouble() - 0.5));
+            List<GeoPoint> expected = triangles.findGeoIntersections(ray);
+            List<GeoPoint> result = mesh.findGeoIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of intersections");
+            GeoPoint expectedClosest = triangles.findClosestGeoIntersection(ray);
+            GeoPoint closest = mesh.findClosestGeoIntersection(ray);
+            if (expectedClosest == null)
+                assertNull(closest, "Found an intersection that does not exist");
+            else {
+                assertEquals(expectedClosest.point, closest.point, "Wrong closest intersection");
+                Vector expectedNormal = expectedClosest.geometry.getNormal(expectedClosest.point);
+                assertEquals(1, Math.abs(expectedNormal.dotProduct(closest.geometry.getNormal(closest.point))),
+                        1e-10, "Wrong face normal");
+            }
+        }
+    }
+
+    /**
+     * Returns a vertex of a vertices array as a point.
+     *
+     * @param vertices The coordinates of the vertices.
+     * @param index    The vertex index.
+     * @return The vertex.
+     */
+    private static Point vertex(double[] vertices, int index) {
+        return new Point(vertices[index * 3], vertices[index * 3 + 1], vertices[index * 3 + 2]);
+    }
+}
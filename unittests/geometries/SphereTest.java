@@ -150,5 +150,32 @@ class SphereTest {
 
         assertEquals(1, result.size(), "Wrong number of points");
         assertEquals(p1, result.get(0).point, "Ray crosses sphere");
+        assertEquals(new Point(-1, 0, 0).distance(p1), result.get(0).t, 1e-10, "Wrong distance of the intersection");
+        assertEquals(p1.subtract(new Point(1, 0, 0)).normalize(), result.get(0).getNormal(),
+                "Wrong normal of the intersection");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Sphere sphere = new Sphere(new Point(1, 0, 0), 1);
+        Point p1 = new Point(0.0651530771650466, 0.355051025721682, 0);
+        Point p2 = new Point(1.53484692283495, 0.844948974278318, 0);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray starts before and crosses the sphere - the nearer point
+        assertEquals(p1, sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0),
+                new Vector(3, 1, 0))).point, "Wrong closest point");
+        // TC02: Ray starts inside the sphere - the only point
+        assertEquals(p2, sphere.findClosestGeoIntersection(new Ray(new Point(0.5, 0.5, 0),
+                new Vector(3, 1, 0))).point, "Wrong closest point");
+        // TC03: Ray's line is outside the sphere
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 1, 0))),
+                "Ray's line out of sphere");
+        // =============== Boundary Values Tests ==================
+        // TC11: The nearer point is farther than the maximum distance
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), new Vector(3, 1, 0)), 1),
+                "Point beyond the maximum distance");
+    }
+}
@@ -0,0 +1,72 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for renderer.Blackboard class
+ */
+class BlackboardTest {
+    /**
+     * Test method for {@link renderer.Blackboard.Board#constructRay(double, double)}.
+     */
+    @Test
+    void testConstructRay() {
+        Point p0 = new Point(0, 0, 1);
+        // a blackboard of radius 1 at distance 3 in front of the ray, its right is X and its up is Y
+        Blackboard.Board board = new Blackboard(2).place(new Ray(p0, new Vector(0, 0, -1)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point on the horizontal axis of the square is on the horizontal diameter of the disk
+        assertEquals(new Ray(p0, new Vector(0.5, 0, -3)), board.constructRay(0.5, 0), "Wrong ray of the right side");
+        // TC02: a point on the vertical axis of the square is on the vertical diameter of the disk
+        assertEquals(new Ray(p0, new Vector(0, -1, -3)), board.constructRay(0, -1), "Wrong ray of the bottom");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the center of the square is the center of the blackboard
+        assertEquals(new Ray(p0, new Vector(0, 0, -1)), board.constructRay(0, 0), "Wrong ray of the center");
+        // TC12: a corner of the square is on the rim of the disk, in the middle between the axes
+        double half = Math.sqrt(0.5);
+        assertEquals(new Ray(p0, new Vector(half, half, -3)), board.constructRay(1, 1), "Wrong ray of a corner");
+    }
+
+    /**
+     * Test method for {@link renderer.Blackboard.Board#constructRay(int)}.
+     */
+    @Test
+    void testPattern() {
+        Point p0 = new Point(0, 0, 1);
+        Ray ray = new Ray(p0, new Vector(0, 0, -1));
+        Blackboard.Board board = new Blackboard(2).setDensityBeam(9).place(ray);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the pattern covers the disk by about density x density points
+        assertTrue(board.size() > 60 && board.size() <= 100, "Wrong amount of points");
+        for (int i = 0; i < board.size(); i++) {
+            Point point = board.getPoint(i);
+            assertEquals(-2, point.getZ(), 1e-10, "Point out of the blackboard");
+            assertTrue(point.getX() * point.getX() + point.getY() * point.getY() < 1, "Point out of the disk");
+            assertEquals(new Ray(p0, point.subtract(p0)), board.constructRay(i), "Wrong ray of the pattern");
+        }
+        // TC02: the pattern of a density is the same on every blackboard
+        Blackboard.Board other = new Blackboard(2).setDensityBeam(9).place(ray);
+        assertEquals(board.size(), other.size(), "Different patterns of a density");
+        for (int i = 0; i < board.size(); i++)
+            assertEquals(board.constructRay(i), other.constructRay(i), "Different patterns of a density");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a blackboard of no width has the ray itself only
+        Blackboard.Board line = new Blackboard(0).place(ray);
+        assertEquals(1, line.size(), "Wrong amount of points of no width");
+        assertEquals(ray, line.constructRay(0), "Wrong ray of no width");
+        // TC12: density 1 has the ray itself only
+        Blackboard.Board single = new Blackboard(2).setDensityBeam(1).place(ray);
+        assertEquals(1, single.size(), "Wrong amount of points of density 1");
+        assertEquals(ray, single.constructRay(0), "Wrong ray of density 1");
+    }
+}
@@ -1,11 +1,14 @@
 package renderer;
 
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
-import primitives.Point;
-import primitives.Ray;
-import primitives.Vector;
+import primitives.*;
+import scene.Scene;
 
-import static org.junit.gen5.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Testing Camera Class
@@ -73,4 +76,303 @@ class CameraTest {
         roteted = camera.rotateRight(45);
         assertEquals(camera1.getvUp(), roteted.getvUp(), "not good rotation");
     }
+
+    /**
+     * Test method for
+     * {@link Camera#constructRay(int, int, double, double)}.
+     */
+    @Test
+    void testConstructSubPixelRay() {
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, -1, 0)).setVPDistance(10)
+                .setVPSize(8, 8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: 4X4 a point inside the pixel (1,1)
+        assertEquals(new Ray(ZERO_POINT, new Vector(0.5, -0.5, -10)), camera.constructRay(4, 4, 1.25, 1.25),
+                "Bad ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: 4X4 the pixel center is the same as the pixel ray
+        assertEquals(camera.constructRay(4, 4, 2, 1), camera.constructRay(4, 4, 2.0, 1.0), "Bad ray");
+        // TC12: 4X4 the top left corner of the view plane
+        assertEquals(new Ray(ZERO_POINT, new Vector(4, -4, -10)), camera.constructRay(4, 4, -0.5, -0.5), "Bad ray");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#setAdaptiveSuperSampling(int)}.
+     */
+    @Test
+    void testAdaptiveSuperSampling() {
+        Color white = new Color(255, 255, 255);
+        int[] rays = {0};
+        // a ray tracer of a vertical edge - white on the right of x = 0.3 and black on its left
+        RayTracerBase edge = new RayTracerBase(new Scene("edge")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                ++rays[0];
+                return ray.getDir().getX() / -ray.getDir().getZ() * 10 > 0.3 ? white : Color.BLACK;
+            }
+        };
+        Color[][] pixels = new Color[8][8];
+        ImageWriter writer = new ImageWriter("adaptive", 8, 8) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[yIndex][xIndex] = color;
+            }
+
+            @Override
+            public void writeToImage() {
+            }
+        };
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(10)
+                .setVPSize(8, 8).setImageWriter(writer).setRayTracer(edge).setAdaptiveSuperSampling(2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the pixels away from the edge are not subdivided, and the pixel of the edge, 70% covered by white,
+        // is the average of its quarter sub-pixels - each the average of its corners - black, half, white and
+        // white, so it is 62.5% white
+        camera.renderImage();
+        assertEquals(Color.BLACK.toString(), pixels[3][0].toString(), "Wrong pixel left of the edge");
+        assertEquals(white.toString(), pixels[3][7].toString(), "Wrong pixel right of the edge");
+        assertEquals(new Color(0.625 * 255, 0.625 * 255, 0.625 * 255).toString(), pixels[3][4].toString(),
+                "Wrong pixel of the edge");
+        // 81 pixel corners, 33 more for the halves of the edge column and 65 for the quarters of its left half
+        assertEquals(81 + 33 + 65, rays[0], "Wrong amount of rays");
+
+        // TC02: the corners on the borders of small tiles are shared by the neighbouring tiles and traced once
+        rays[0] = 0;
+        camera.setTileSize(3).renderImage();
+        assertEquals(new Color(0.625 * 255, 0.625 * 255, 0.625 * 255).toString(), pixels[3][4].toString(),
+                "Wrong pixel of the edge in small tiles");
+        assertEquals(81 + 33 + 65, rays[0], "Wrong amount of rays in small tiles");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: no subdivision - a ray through each pixel center
+        rays[0] = 0;
+        camera.setAdaptiveSuperSampling(0).renderImage();
+        assertEquals(64, rays[0], "Wrong amount of rays");
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#renderProgressive()}.
+     */
+    @Test
+    void testRenderProgressive() {
+        Color white = new Color(255, 255, 255);
+        int[] rays = {0};
+        long[] delay = {0};
+        // a ray tracer of a vertical edge - white on the right of x = 0.3 and black on its left
+        RayTracerBase edge = new RayTracerBase(new Scene("edge")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                ++rays[0];
+                if (delay[0] > 0) try {
+                    Thread.sleep(delay[0]);
+                } catch (InterruptedException ignore) {
+                }
+                return ray.getDir().getX() / -ray.getDir().getZ() * 10 > 0.3 ? white : Color.BLACK;
+            }
+        };
+        Color[][] pixels = new Color[8][8];
+        ImageWriter writer = new ImageWriter("progressive", 8, 8) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[yIndex][xIndex] = color;
+            }
+
+            @Override
+            public void writeToImage() {
+            }
+        };
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(10)
+                .setVPSize(8, 8).setImageWriter(writer).setRayTracer(edge).setMaxSamples(8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: all the pixels get the largest amount of samples
+        assertEquals(8, camera.renderProgressive(), "Wrong amount of samples");
+        assertEquals(64 * 8, rays[0], "Wrong amount of rays");
+        assertEquals(Color.BLACK.toString(), pixels[3][0].toString(), "Wrong pixel left of the edge");
+        assertEquals(white.toString(), pixels[3][7].toString(), "Wrong pixel right of the edge");
+
+        // TC02: the pixels away from the edge converge after the least amount of samples, the pixels of the edge
+        // are sampled to about 70% white
+        rays[0] = 0;
+        assertEquals(16, camera.setMaxSamples(16).setConvergenceThreshold(0.5).renderProgressive(),
+                "Wrong amount of samples");
+        assertEquals(56 * 8 + 8 * 16, rays[0], "Wrong amount of rays");
+        assertEquals(0.7 * 255, pixels[3][4].getRed(), 0.1 * 255, "Wrong pixel of the edge");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the budget is over after the coarsest preview, which fills the image by the top left pixel
+        rays[0] = 0;
+        delay[0] = 5;
+        assertEquals(0, camera.setTimeBudget(1).renderProgressive(), "Wrong amount of samples");
+        assertEquals(1, rays[0], "Wrong amount of rays");
+        assertEquals(Color.BLACK.toString(), pixels[3][7].toString(), "Wrong pixel of the coarse preview");
+    }
+
+    /**
+     * Renders the image of a camera into an array of its pixels.
+     *
+     * @param camera The camera, with its ray tracer.
+     * @param nX     The amount of pixels by width.
+     * @param nY     The amount of pixels by height.
+     * @return The pixels by rows.
+     */
+    private static Color[][] render(Camera camera, int nX, int nY) {
+        Color[][] pixels = new Color[nY][nX];
+        camera.setImageWriter(new ImageWriter("pixels", nX, nY) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[yIndex][xIndex] = color;
+            }
+
+            @Override
+            public void writeToImage() {
+            }
+        }).renderImage();
+        return pixels;
+    }
+
+    /**
+     * Asserts that two images have exactly the same pixels.
+     *
+     * @param expected The pixels of the expected image.
+     * @param actual   The pixels of the actual image.
+     */
+    private static void assertSamePixels(Color[][] expected, Color[][] actual) {
+        for (int i = 0; i < expected.length; ++i)
+            for (int j = 0; j < expected[i].length; ++j)
+                assertEquals(expected[i][j].toString(), actual[i][j].toString(), "Wrong pixel " + j + "," + i);
+    }
+
+    /**
+     * Makes a scene of spheres over an unbounded floor.
+     *
+     * @param spheres The amount of the spheres.
+     * @return The scene.
+     */
+    private static Scene spheres(int spheres) {
+        Scene scene = new Scene("spheres").setBackground(new Color(20, 20, 40));
+        for (int i = 0; i < spheres; ++i)
+            scene.geometries.add(new Sphere(new Point(i * 15 - 30, i * 5 - 10, -100 - i * 10), 10)
+                    .setEmission(new Color(30, 10 * i, 0))
+                    .setMaterial(new Material().setKd(0.3).setKs(0.3).setShininess(30).setKr(0.3)));
+        scene.geometries.add(new Plane(new Point(0, -30, 0), new Vector(0, 1, 0)).setEmission(new Color(0, 20, 0))
+                .setMaterial(new Material().setKd(0.5).setKt(0.5)));
+        scene.lights.add(new PointLight(new Color(400, 300, 200), new Point(50, 50, 0)));
+        return scene;
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#setMultithreading(int)} with a bounding volume hierarchy and bounding boxes.
+     */
+    @Test
+    void testMultithreadingWithBoxes() {
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(100)
+                .setVPSize(100, 75);
+        Sphere added = new Sphere(new Point(20, 20, -90), 8);
+        Scene serial = spheres(5).setIsBVH(true).setIsAABB(true);
+        serial.geometries.add(added);
+        Color[][] expected = render(camera.setRayTracer(new RayTracerBasic(serial)), 40, 30);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the render threads find the boxes that were constructed with the ray tracer
+        Scene scene = spheres(5).setIsBVH(true).setIsAABB(true);
+        camera.setRayTracer(new RayTracerBasic(scene)).setMultithreading(8).setTileSize(4);
+        scene.geometries.add(added);
+        assertSamePixels(expected, render(camera, 40, 30));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the render threads construct the boxes together, after geometries were added to the scene -
+        // many spheres behind the camera, so the threads construct the boxes for a while
+        for (int i = 0; i < 5; ++i) {
+            for (int k = 0; k < 200; ++k)
+                scene.geometries.add(new Sphere(new Point(k, i, 500), 0.5));
+            assertSamePixels(expected, render(camera, 40, 30));
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#setMultithreading(int)}.
+     */
+    @Test
+    void testMultithreading() {
+        // glossy and blurry spheres, so the pixels trace beams of secondary rays
+        Scene scene = spheres(3);
+        scene.geometries.add(new Sphere(new Point(20, 15, -110), 12).setEmission(new Color(10, 10, 30))
+                        .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(20).setKr(0.6).setKB(1.5)
+                                .setDensity(3)),
+                new Sphere(new Point(-10, 20, -80), 8).setEmission(new Color(40, 0, 20))
+                        .setMaterial(new Material().setKd(0.2).setKt(0.6).setKB(2).setDensity(3)));
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(100)
+                .setVPSize(100, 75);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the beams of the blackboard patterns, on several threads with small tiles that don't cover the
+        // image evenly, make the image of the calling thread
+        camera.setRayTracer(new RayTracerBasic(scene)).setMultithreading(0);
+        Color[][] expected = render(camera, 40, 30);
+        assertSamePixels(expected, render(camera.setMultithreading(4).setTileSize(3), 40, 30));
+
+        // TC02: the beams of a sampler, seeded by the pixel on each render thread, make the image of the calling
+        // thread
+        camera.setRayTracer(new RayTracerBasic(scene).setSampler(new HaltonSampler())).setMultithreading(0)
+                .setTileSize(16);
+        expected = render(camera, 40, 30);
+        assertSamePixels(expected, render(camera.setMultithreading(4).setTileSize(3), 40, 30));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: tiles of a single pixel
+        assertSamePixels(expected, render(camera.setTileSize(1), 40, 30));
+    }
+
+    /**
+     * Test method for
+     * {@link Camera#setRayPackets(int)}.
+     */
+    @Test
+    void testRayPackets() {
+        Scene scene = new Scene("packets").setBackground(new Color(20, 20, 40)).setIsBVH(true);
+        for (int i = 0; i < 5; ++i)
+            scene.geometries.add(new Sphere(new Point(i * 15 - 30, i * 5 - 10, -100 - i * 10), 10)
+                    .setEmission(new Color(30, 10 * i, 0))
+                    .setMaterial(new Material().setKd(0.3).setKs(0.3).setShininess(30).setKr(0.3)));
+        scene.geometries.add(new Plane(new Point(0, -30, 0), new Vector(0, 1, 0)).setEmission(new Color(0, 20, 0))
+                .setMaterial(new Material().setKd(0.5).setKt(0.5)));
+        scene.lights.add(new PointLight(new Color(400, 300, 200), new Point(50, 50, 0)));
+        RayTracerBase rayTracer = new RayTracerBasic(scene).setSampler(new HaltonSampler());
+        Color[][][] pixels = new Color[2][30][40];
+        int[] image = {0};
+        ImageWriter writer = new ImageWriter("packets", 40, 30) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[image[0]][yIndex][xIndex] = color;
+            }
+
+            @Override
+            public void writeToImage() {
+            }
+        };
+        Camera camera = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(100)
+                .setVPSize(100, 75).setTileSize(12).setImageWriter(writer).setRayTracer(rayTracer);
+        camera.renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the packets of squares of pixels, cut by the tiles on the image edges, make the image of single rays
+        image[0] = 1;
+        camera.setRayPackets(8).renderImage();
+        for (int i = 0; i < 30; ++i)
+            for (int j = 0; j < 40; ++j)
+                assertEquals(pixels[0][i][j].toString(), pixels[1][i][j].toString(), "Wrong pixel " + j + "," + i);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a packet side of a packet of too many rays
+        assertThrows(IllegalArgumentException.class, () -> camera.setRayPackets(9), "Packet of 81 rays");
+        assertThrows(IllegalArgumentException.class, () -> camera.setRayPackets(-1), "Negative packet side");
+    }
 }
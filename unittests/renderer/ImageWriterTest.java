@@ -2,7 +2,17 @@ package renderer;
 
 import org.junit.jupiter.api.Test;
 
+import javax.imageio.ImageIO;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * This is a test class for the writePixel method of the ImageWriter class.
@@ -28,4 +38,151 @@ class ImageWriterTest {
                 im.writePixel(j, i, i % 50 == 0 || j % 50 == 0 ? color1 : color2);
         im.writeToImage();
     }
+
+    /**
+     * Test method for {@link renderer.ToneMapper#CLAMP} and {@link renderer.ImageWriter#writePixel}.
+     */
+    @Test
+    void testClamp() {
+        ImageWriter im = new ImageWriter("clamp", 2, 1);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a color inside the range and a color of a light above it
+        primitives.Color color = new primitives.Color(12.7, 100, 254.5);
+        primitives.Color light = new primitives.Color(300, 255, 1000);
+        im.writePixel(0, 0, color);
+        im.writePixel(1, 0, light);
+        assertEquals(color.getColor().getRGB() & 0xFFFFFF, map(im, 0), "Wrong clamped color");
+        assertEquals(light.getColor().getRGB() & 0xFFFFFF, map(im, 1), "Wrong clamped light");
+        assertEquals(1000, im.getPixel(1, 0).getBlue(), "High dynamic range lost");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a channel right below an integer, which is that integer as a float of the nearest rounding
+        primitives.Color almost = new primitives.Color(0.3 * 255 + 0.7 * 255, 0, 0);
+        im.writePixel(0, 0, almost);
+        assertEquals(almost.getColor().getRGB() & 0xFFFFFF, map(im, 0), "Wrong color right below an integer");
+    }
+
+    /**
+     * Maps a pixel of the first row by the clamp tone mapper.
+     *
+     * @param im The image writer.
+     * @param x  The column of the pixel.
+     * @return The displayable color of the pixel.
+     */
+    private static int map(ImageWriter im, int x) {
+        return ToneMapper.CLAMP.map(im.getRed()[x], im.getGreen()[x], im.getBlue()[x]);
+    }
+
+    /**
+     * Test method for {@link renderer.ToneMapper#reinhard(double)}.
+     */
+    @Test
+    void testReinhard() {
+        ToneMapper reinhard = ToneMapper.reinhard(1);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a white of the full intensity is displayed at half of it
+        assertEquals(127 << 16 | 127 << 8 | 127, reinhard.map(255, 255, 255), "Wrong white");
+        // TC02: a light brighter than the display is not clamped to white, its hue is kept
+        int light = reinhard.map(1000, 800, 600);
+        assertEquals(1.25 * (light >> 8 & 0xFF), light >> 16 & 0xFF, 1.5, "Wrong hue of a bright light");
+        assertEquals(4d / 3 * (light & 0xFF), light >> 8 & 0xFF, 1.5, "Wrong hue of a bright light");
+        // =============== Boundary Values Tests ==================
+        // TC11: black
+        assertEquals(0, reinhard.map(0, 0, 0), "Wrong black");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writePfm()} and {@link renderer.ImageWriter#writeExr()}.
+     *
+     * @throws IOException If the files can't be read.
+     */
+    @Test
+    void testWriteHdr() throws IOException {
+        ImageWriter im = new ImageWriter("hdrImage", 3, 2);
+        im.writePixels(1, 0, 2, 2, new float[]{510, 0, 0, 0}, new float[]{0, 255, 0, 0}, new float[]{0, 0, 0, 25.5f});
+        Path folder = Path.of(System.getProperty("user.dir"), "images");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: PFM - a little endian float map of the rows from the bottom up
+        im.writePfm();
+        byte[] pfm = Files.readAllBytes(folder.resolve("hdrImage.pfm"));
+        String header = "PF\n3 2\n-1.0\n";
+        assertEquals(header, new String(pfm, 0, header.length(), StandardCharsets.US_ASCII), "Wrong PFM header");
+        ByteBuffer pixels = ByteBuffer.wrap(pfm, header.length(), pfm.length - header.length())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(3 * 2 * 3 * 4, pixels.remaining(), "Wrong PFM size");
+        // the pixel (2,1) is the last of the first row of the file, and (1,0) is the second of the second row
+        assertEquals(0.1f, pixels.getFloat(header.length() + 8 * 4), "Wrong PFM pixel of the bottom row");
+        assertEquals(2f, pixels.getFloat(header.length() + (9 + 3) * 4), "Wrong PFM pixel of the top row");
+
+        // TC02: OpenEXR - the scan line of the pixel (2,0) has the blue, green and red channels one after the other
+        im.writeExr();
+        ByteBuffer exr = ByteBuffer.wrap(Files.readAllBytes(folder.resolve("hdrImage.exr")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(20000630, exr.getInt(0), "Wrong EXR magic number");
+        int line = (int) exr.getLong(exr.limit() - 2 * (8 + 3 * 3 * 4) - 2 * 8);
+        assertEquals(0, exr.getInt(line), "Wrong EXR scan line");
+        assertEquals(3 * 3 * 4, exr.getInt(line + 4), "Wrong EXR scan line size");
+        assertEquals(1f, exr.getFloat(line + 8 + (3 + 2) * 4), "Wrong EXR green of the pixel (2,0)");
+        assertEquals(2f, exr.getFloat(line + 8 + (6 + 1) * 4), "Wrong EXR red of the pixel (1,0)");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a tall image, whose table of the offsets of the scan lines is written in several parts
+        ImageWriter tall = new ImageWriter("hdrTall", 2, 1500);
+        tall.writePixel(1, 1499, new primitives.Color(0, 0, 255));
+        tall.writeExr();
+        exr = ByteBuffer.wrap(Files.readAllBytes(folder.resolve("hdrTall.exr"))).order(ByteOrder.LITTLE_ENDIAN);
+        int table = exr.limit() - 1500 * (8 + 2 * 3 * 4) - 1500 * 8;
+        for (int y : new int[]{0, 1023, 1024, 1499})
+            assertEquals(table + 1500 * 8 + y * (8 + 2 * 3 * 4), exr.getLong(table + y * 8), "Wrong EXR offset");
+        line = (int) exr.getLong(table + 1499 * 8);
+        assertEquals(1499, exr.getInt(line), "Wrong EXR last scan line");
+        assertEquals(1f, exr.getFloat(line + 8 + 4), "Wrong EXR blue of the pixel (1,1499)");
+    }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#writeToImage()}: the PNG file compressed by stripes in parallel
+     * is read back with the same pixels.
+     *
+     * @throws IOException If the files can't be read.
+     */
+    @Test
+    void testWriteToImage() throws IOException {
+        Path folder = Path.of(System.getProperty("user.dir"), "images");
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: an image of many stripes of noise and gradients, by several threads and by a single thread
+        ImageWriter im = new ImageWriter("stripes", 301, 457);
+        java.util.Random random = new java.util.Random(1);
+        for (int y = 0; y < im.getNy(); y++)
+            for (int x = 0; x < im.getNx(); x++)
+                im.writePixel(x, y, y % 3 == 0
+                        ? new primitives.Color(random.nextInt(256), random.nextInt(256), random.nextInt(256))
+                        : new primitives.Color(x % 256, y % 256, 300));
+        for (int threads : new int[]{3, 1}) {
+            im.setThreadsCount(threads).writeToImage();
+            assertPixels(im, ImageIO.read(folder.resolve("stripes.png").toFile()));
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an image of a single pixel
+        ImageWriter single = new ImageWriter("single", 1, 1);
+        single.writePixel(0, 0, new primitives.Color(10, 20, 30));
+        single.writeToImage();
+        assertPixels(single, ImageIO.read(folder.resolve("single.png").toFile()));
+    }
+
+    /**
+     * Asserts that an image that was read has the pixels of an image writer.
+     *
+     * @param im    The image writer.
+     * @param image The image that was read.
+     */
+    private static void assertPixels(ImageWriter im, BufferedImage image) {
+        assertEquals(im.getNx(), image.getWidth(), "Wrong PNG width");
+        assertEquals(im.getNy(), image.getHeight(), "Wrong PNG height");
+        for (int y = 0; y < im.getNy(); y++)
+            for (int x = 0; x < im.getNx(); x++)
+                assertEquals(map(im, y * im.getNx() + x), image.getRGB(x, y) & 0xFFFFFF,
+                        "Wrong PNG pixel (" + x + "," + y + ")");
+    }
 }
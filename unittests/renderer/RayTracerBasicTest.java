@@ -0,0 +1,68 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for renderer.RayTracerBasic class
+ */
+class RayTracerBasicTest {
+    /**
+     * Test method for {@link renderer.RayTracerBasic#setAdaptiveBeam(boolean)}.
+     */
+    @Test
+    void testAdaptiveBeam() {
+        Scene scene = new Scene("beam").setBackground(new Color(0, 0, 200));
+        scene.geometries.add(new Plane(new Point(0, 0, -10), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKr(0.5).setKB(2).setDensity(9)));
+        RayTracerBasic full = new RayTracerBasic(scene);
+        RayTracerBasic adaptive = new RayTracerBasic(scene).setAdaptiveBeam(true);
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a glossy mirror of the background gives the same color as the full blackboard grid
+        assertEquals(new Color(0, 0, 100).toString(), adaptive.traceRay(ray).toString(), "Wrong uniform beam");
+        assertEquals(full.traceRay(ray).toString(), adaptive.traceRay(ray).toString(), "Wrong uniform beam");
+
+        // TC02: a small sphere in the middle of the beam adds a part of its color, and the rest is the background
+        scene.geometries.add(new Sphere(new Point(0, 0, 1), 0.5).setEmission(new Color(200, 0, 0)));
+        java.awt.Color color = adaptive.traceRay(ray).getColor();
+        assertEquals(100, color.getRed() + color.getBlue(), 1, "Wrong split of the beam");
+        assertTrue(color.getRed() > 0 && color.getBlue() > 0, "Sphere missing from the beam");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a blackboard of no width traces the optic ray only, as the full grid does
+        scene.geometries = new geometries.Geometries(new Plane(new Point(0, 0, -10), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKr(0.5)));
+        scene.geometries.add(new Sphere(new Point(0, 0, 1), 0.5).setEmission(new Color(200, 0, 0)));
+        assertEquals(full.traceRay(ray).toString(), adaptive.traceRay(ray).toString(), "Wrong beam of no width");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBasic#setSampler(renderer.Sampler)}.
+     */
+    @Test
+    void testSampler() {
+        Scene scene = new Scene("sampler").setBackground(new Color(0, 0, 200));
+        scene.geometries.add(new Plane(new Point(0, 0, -10), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKr(0.5).setKB(2).setDensity(4)));
+        RayTracerBasic tracer = new RayTracerBasic(scene).setSampler(new SobolSampler());
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a glossy mirror of the background
+        assertEquals(new Color(0, 0, 100).toString(), tracer.traceRay(ray).toString(), "Wrong uniform beam");
+        // TC02: the beam of a pixel is the same every time the pixel is traced
+        scene.geometries.add(new Sphere(new Point(0, 0, 5), 2).setEmission(new Color(200, 0, 0)));
+        SampleContext.setPixel(3, 4);
+        String color = tracer.traceRay(ray).toString();
+        SampleContext.setPixel(3, 4);
+        assertEquals(color, tracer.traceRay(ray).toString(), "Beam of a pixel not repeated");
+    }
+}
@@ -0,0 +1,138 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for renderer.RenderCoordinator class
+ */
+class RenderCoordinatorTest {
+    /**
+     * Makes a camera of a glossy sphere over a transparent floor, with Halton sampled beams.
+     *
+     * @param imageName The name of the image.
+     * @return The camera.
+     */
+    private static Camera camera(String imageName) {
+        Scene scene = new Scene("distributed").setBackground(new Color(20, 20, 40));
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 30).setEmission(new Color(30, 0, 0))
+                        .setMaterial(new Material().setKd(0.3).setKs(0.3).setShininess(30).setKr(0.5)),
+                new Plane(new Point(0, -30, 0), new Vector(0, 1, 0)).setEmission(new Color(0, 20, 0))
+                        .setMaterial(new Material().setKd(0.5).setKt(0.5)));
+        scene.lights.add(new PointLight(new Color(400, 300, 200), new Point(50, 50, 0)));
+        return new Camera(new Point(0, 0, 0), new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(100)
+                .setVPSize(100, 75).setTileSize(16).setImageWriter(new ImageWriter(imageName, 40, 30))
+                .setRayTracer(new RayTracerBasic(scene).setSampler(new HaltonSampler()));
+    }
+
+    /**
+     * Asserts that two images have the same pixels.
+     *
+     * @param expected The expected image.
+     * @param actual   The actual image.
+     */
+    private static void assertSameImage(ImageWriter expected, ImageWriter actual) {
+        for (int y = 0; y < expected.getNy(); ++y)
+            for (int x = 0; x < expected.getNx(); ++x) {
+                int i = y * expected.getNx() + x;
+                assertEquals(expected.getRed()[i], actual.getRed()[i], "Wrong red of pixel " + x + "," + y);
+                assertEquals(expected.getGreen()[i], actual.getGreen()[i], "Wrong green of pixel " + x + "," + y);
+                assertEquals(expected.getBlue()[i], actual.getBlue()[i], "Wrong blue of pixel " + x + "," + y);
+            }
+    }
+
+    /**
+     * Starts worker threads of a coordinator.
+     *
+     * @param port    The port of the coordinator.
+     * @param workers The amount of the workers.
+     */
+    private static void startWorkers(int port, int workers) {
+        for (int i = 0; i < workers; ++i) {
+            Thread worker = new Thread(new RenderWorker("localhost", port));
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.RenderCoordinator#renderImage()}.
+     *
+     * @throws Exception If the coordinator or a worker fails.
+     */
+    @Test
+    void testRenderImage() throws Exception {
+        Camera local = camera("distributedLocal");
+        local.renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the tiles of several workers make the image of a local rendering
+        Camera camera = camera("distributed");
+        RenderCoordinator coordinator = new RenderCoordinator(camera);
+        startWorkers(coordinator.open(), 3);
+        RenderStats stats = coordinator.renderImage();
+        assertSameImage(local.getImageWriter(), camera.getImageWriter());
+        assertEquals(6, stats.getTileTimes().length, "Wrong amount of tiles");
+
+        // TC02: the tile of a worker that disconnects is rendered by another worker
+        camera = camera("distributedFailure");
+        coordinator = new RenderCoordinator(camera).setTileTimeout(10_000);
+        int port = coordinator.open();
+        Thread faulty = new Thread(() -> {
+            try (Socket socket = new Socket("localhost", port)) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                in.readNBytes(in.readInt());
+                in.readInt();
+                new DataOutputStream(socket.getOutputStream()).writeInt(-2);
+            } catch (IOException ignore) {
+                // the coordinator may close the connection first
+            }
+        });
+        // the good worker connects after the faulty one took its tile and disconnected
+        Thread worker = new Thread(() -> {
+            try {
+                faulty.join();
+            } catch (InterruptedException ignore) {
+                return;
+            }
+            new RenderWorker("localhost", port).run();
+        });
+        worker.setDaemon(true);
+        faulty.start();
+        worker.start();
+        coordinator.renderImage();
+        assertSameImage(local.getImageWriter(), camera.getImageWriter());
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a local worker process renders the whole image
+        camera = camera("distributedProcess");
+        new RenderCoordinator(camera).setLocalWorkers(1).renderImage();
+        assertSameImage(local.getImageWriter(), camera.getImageWriter());
+
+        // TC12: a coordinator renders again, by the workers of its new port
+        camera = camera("distributedAgain");
+        coordinator = new RenderCoordinator(camera);
+        startWorkers(coordinator.open(), 2);
+        coordinator.renderImage();
+        startWorkers(coordinator.open(), 2);
+        coordinator.renderImage();
+        assertSameImage(local.getImageWriter(), camera.getImageWriter());
+
+        // TC13: the rendering fails if no worker connects
+        assertThrows(IllegalStateException.class,
+                () -> new RenderCoordinator(camera("distributedNone")).setTileTimeout(200).renderImage(),
+                "Rendering without workers");
+    }
+}
@@ -0,0 +1,107 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for renderer.RenderStats class
+ */
+class RenderStatsTest {
+    /**
+     * Makes a camera of a mirror sphere over a transparent floor.
+     *
+     * @param collect Whether the counts are collected.
+     * @param threads The amount of render threads.
+     * @return The camera.
+     */
+    private static Camera camera(boolean collect, int threads) {
+        Scene scene = new Scene("stats").setBackground(new Color(20, 20, 40));
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 30).setEmission(new Color(30, 0, 0))
+                        .setMaterial(new Material().setKd(0.3).setKs(0.3).setShininess(30).setKr(0.5)),
+                new Plane(new Point(0, -30, 0), new Vector(0, 1, 0)).setEmission(new Color(0, 20, 0))
+                        .setMaterial(new Material().setKd(0.5).setKt(0.5)));
+        scene.lights.add(new PointLight(new Color(400, 300, 200), new Point(50, 50, 0)));
+        return new Camera(new Point(0, 0, 0), new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(100)
+                .setVPSize(100, 75).setTileSize(16).setMultithreading(threads)
+                .setImageWriter(new ImageWriter("renderStats", 40, 30)).setRayTracer(new RayTracerBasic(scene))
+                .setRenderStats(collect);
+    }
+
+    /**
+     * Renders a mirror sphere over a transparent floor.
+     *
+     * @param collect Whether the counts are collected.
+     * @param threads The amount of render threads.
+     * @return The statistics of the rendering.
+     */
+    private static RenderStats render(boolean collect, int threads) {
+        return camera(collect, threads).renderImage();
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()} statistics.
+     *
+     * @throws Exception If the statistics can't be read over JMX.
+     */
+    @Test
+    void testRenderStats() throws Exception {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: every kind of ray is counted, one primary ray per pixel
+        RenderStats stats = render(true, 0);
+        assertEquals(40 * 30, stats.getPrimaryRays(), "Wrong amount of primary rays");
+        assertTrue(stats.getShadowRays() > 0, "Shadow rays not counted");
+        assertTrue(stats.getReflectionRays() > 0, "Reflection rays not counted");
+        assertTrue(stats.getRefractionRays() > 0, "Refraction rays not counted");
+        assertTrue(stats.getPrimitiveTests() >= 2 * stats.getPrimaryRays(), "Primitive tests not counted");
+        assertTrue(stats.getAverageDepth() > 1, "Wrong average depth");
+        assertEquals(6, stats.getTileTimes().length, "Wrong amount of tiles");
+        for (long time : stats.getTileTimes())
+            assertTrue(time > 0, "Tile time not measured");
+        assertTrue(stats.getPixelTime(39, 29) > 0, "Pixel time not measured");
+
+        // TC02: the counts of several render threads are merged
+        RenderStats merged = render(true, 3);
+        assertEquals(stats.getShadowRays(), merged.getShadowRays(), "Wrong merged shadow rays");
+        assertEquals(stats.getPrimitiveTests(), merged.getPrimitiveTests(), "Wrong merged primitive tests");
+        assertEquals(stats.getShadedPoints(), merged.getShadedPoints(), "Wrong merged shaded points");
+
+        // TC03: the heatmap has a pixel for every pixel of the image
+        ImageWriter heatmap = stats.heatmap("renderStatsHeatmap");
+        assertEquals(40, heatmap.getNx(), "Wrong heatmap width");
+        assertEquals(30, heatmap.getNy(), "Wrong heatmap height");
+
+        // TC04: the published statistics are read over JMX
+        stats.publish("test");
+        Object rays = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName("renderer:type=RenderStats,name=\"test\""), "PrimaryRays");
+        assertEquals(40L * 30, rays, "Wrong published primary rays");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: without collecting, only the times are measured
+        RenderStats times = render(false, 0);
+        assertEquals(0, times.getPrimaryRays(), "Rays counted without collecting");
+        assertEquals(0, times.getBoxTests(), "Box tests counted without collecting");
+        assertTrue(times.getRenderTime() > 0, "Render time not measured");
+        for (long time : times.getTileTimes())
+            assertTrue(time > 0, "Tile time not measured");
+        assertEquals(0, times.getPixelTime(39, 29), "Pixel time measured without collecting");
+        assertThrows(IllegalStateException.class, () -> times.heatmap("renderStatsHeatmap"), "Heatmap without times");
+
+        // TC12: the pixel times alone are measured for the heatmap, without the counts
+        RenderStats pixels = camera(false, 0).setPixelTimes(true).renderImage();
+        assertEquals(0, pixels.getPrimaryRays(), "Rays counted without collecting");
+        assertTrue(pixels.getPixelTime(39, 29) > 0, "Pixel time not measured");
+        assertEquals(40, pixels.heatmap("renderStatsHeatmap").getNx(), "Wrong heatmap width");
+    }
+}
@@ -0,0 +1,128 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the samplers of the renderer package
+ */
+class SamplerTest {
+    /**
+     * Makes a sample set.
+     *
+     * @param sampler The sampler.
+     * @param count   The amount of points.
+     * @param seed    The seed of the set.
+     * @return The coordinates of the points.
+     */
+    private static double[] sample(Sampler sampler, int count, long seed) {
+        double[] points = new double[2 * count];
+        sampler.sample(points, count, seed);
+        return points;
+    }
+
+    /**
+     * Checks that the points of a set are in the unit square, that the set is repeated by its seed, and that
+     * another seed gives another set.
+     *
+     * @param sampler The sampler.
+     */
+    private static void assertSeeded(Sampler sampler) {
+        double[] points = sample(sampler, 10, 7);
+        for (double u : points)
+            assertTrue(u >= 0 && u < 1, "Point out of the unit square");
+        assertArrayEquals(points, sample(sampler, 10, 7), "Set not repeated by its seed");
+        assertFalse(java.util.Arrays.equals(points, sample(sampler, 10, 8)), "Same set of different seeds");
+    }
+
+    /**
+     * Checks that every cell of a grid of the square holds exactly one point of a set.
+     *
+     * @param points  The coordinates of the points.
+     * @param columns The amount of columns of the grid.
+     * @param rows    The amount of rows of the grid.
+     */
+    private static void assertStratified(double[] points, int columns, int rows) {
+        boolean[] taken = new boolean[columns * rows];
+        for (int i = 0; i < points.length; i += 2) {
+            int cell = (int) (points[i + 1] * rows) * columns + (int) (points[i] * columns);
+            assertFalse(taken[cell], "Two points in a cell of " + columns + "x" + rows);
+            taken[cell] = true;
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.StratifiedSampler#sample(double[], int, long)}.
+     */
+    @Test
+    void testStratified() {
+        Sampler sampler = new StratifiedSampler();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a square amount of points is a jittered grid
+        assertStratified(sample(sampler, 16, 1), 4, 4);
+        assertSeeded(sampler);
+        // =============== Boundary Values Tests ==================
+        // TC11: the points over the largest grid are in the square too
+        double[] points = sample(sampler, 5, 1);
+        assertStratified(java.util.Arrays.copyOf(points, 8), 2, 2);
+        assertTrue(points[8] >= 0 && points[8] < 1 && points[9] >= 0 && points[9] < 1, "Point out of the square");
+    }
+
+    /**
+     * Test method for {@link renderer.HaltonSampler#sample(double[], int, long)}.
+     */
+    @Test
+    void testHalton() {
+        Sampler sampler = new HaltonSampler();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the set is the start of the sequence of bases 2 and 3, rotated so its first point is not the origin
+        double[] points = sample(sampler, 4, 3);
+        double[] expected = {0, 0, 0.5, 1d / 3, 0.25, 2d / 3, 0.75, 1d / 9};
+        for (int i = 0; i < points.length; i++) {
+            double u = points[i] - points[i % 2];
+            assertEquals(expected[i], u < 0 ? u + 1 : u, 1e-12, "Wrong point of the sequence");
+        }
+        assertSeeded(sampler);
+    }
+
+    /**
+     * Test method for {@link renderer.SobolSampler#sample(double[], int, long)}.
+     */
+    @Test
+    void testSobol() {
+        Sampler sampler = new SobolSampler();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: 16 points are stratified in all the elementary intervals of 16 cells
+        double[] points = sample(sampler, 16, 5);
+        assertStratified(points, 16, 1);
+        assertStratified(points, 8, 2);
+        assertStratified(points, 4, 4);
+        assertStratified(points, 2, 8);
+        assertStratified(points, 1, 16);
+        assertSeeded(sampler);
+        // =============== Boundary Values Tests ==================
+        // TC11: the first power of two points of a set are stratified too
+        assertStratified(java.util.Arrays.copyOf(sample(sampler, 11, 5), 8), 4, 2);
+    }
+
+    /**
+     * Test method for {@link renderer.BlueNoiseSampler#sample(double[], int, long)}.
+     */
+    @Test
+    void testBlueNoise() {
+        Sampler sampler = new BlueNoiseSampler();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: no two points are much closer on the torus than the points of a regular grid of the same size
+        double[] points = sample(sampler, 64, 9);
+        for (int i = 0; i < points.length; i += 2)
+            for (int j = i + 2; j < points.length; j += 2) {
+                double dx = Math.abs(points[i] - points[j]);
+                double dy = Math.abs(points[i + 1] - points[j + 1]);
+                dx = Math.min(dx, 1 - dx);
+                dy = Math.min(dy, 1 - dy);
+                assertTrue(Math.sqrt(dx * dx + dy * dy) > 0.5 / 8, "Points too close");
+            }
+        assertSeeded(sampler);
+    }
+}
@@ -0,0 +1,91 @@
+package renderer;
+
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for renderer.TileCache class
+ */
+class TileCacheTest {
+    /**
+     * Builds a scene of a lit sphere.
+     *
+     * @param emission The emission of the sphere.
+     * @return The scene.
+     */
+    private static Scene scene(Color emission) {
+        Scene scene = new Scene("cache").setBackground(new Color(20, 20, 40));
+        scene.geometries.add(new Sphere(new Point(0, 0, -100), 40).setEmission(emission)
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)));
+        scene.lights.add(new PointLight(new Color(400, 300, 200), new Point(50, 50, 0)));
+        return scene;
+    }
+
+    /**
+     * Renders a scene with a tile cache.
+     *
+     * @param scene The scene.
+     * @param cache The tile cache.
+     * @return The image writer of the rendered image.
+     */
+    private static ImageWriter render(Scene scene, TileCache cache) {
+        ImageWriter writer = new ImageWriter("tileCache", 40, 30);
+        new Camera(new Point(0, 0, 0), new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPDistance(100)
+                .setVPSize(100, 75).setTileSize(16).setImageWriter(writer).setRayTracer(new RayTracerBasic(scene))
+                .setTileCache(cache).renderImage();
+        return writer;
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setTileCache(renderer.TileCache)}.
+     *
+     * @throws IOException If the cache directory can't be used.
+     */
+    @Test
+    void testTileCache() throws IOException {
+        Path directory = Files.createTempDirectory("tiles");
+        TileCache cache = new TileCache(directory, 1 << 20);
+        ImageWriter rendered = render(scene(new Color(30, 0, 0)), cache);
+        // 3 columns and 2 rows of tiles
+        assertEquals(6, cache.getMisses(), "Wrong amount of rendered tiles");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the same scene, built again, is loaded from the cache with the same pixels
+        ImageWriter loaded = render(scene(new Color(30, 0, 0)), cache);
+        assertEquals(6, cache.getHits(), "Tiles not loaded from the cache");
+        assertArrayEquals(rendered.getRed(), loaded.getRed(), "Wrong cached red");
+        assertArrayEquals(rendered.getBlue(), loaded.getBlue(), "Wrong cached blue");
+
+        // TC02: a changed scene is rendered again
+        render(scene(new Color(31, 0, 0)), cache);
+        assertEquals(12, cache.getMisses(), "Changed scene loaded from the cache");
+
+        // TC03: the cache of a new run has the tiles of the previous runs
+        TileCache reopened = new TileCache(directory, 1 << 20);
+        assertEquals(cache.getSize(), reopened.getSize(), "Tiles lost between runs");
+        render(scene(new Color(30, 0, 0)), reopened);
+        assertEquals(6, reopened.getHits(), "Tiles of a previous run not loaded");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a cache of about 2 tiles keeps only the most recent tiles
+        TileCache small = new TileCache(directory, 2 * (8 + 12 * 16 * 16));
+        assertTrue(small.getSize() <= 2 * (8 + 12 * 16 * 16), "Cache exceeds its size");
+        try (var files = Files.list(directory)) {
+            assertEquals(small.getSize(), files.mapToLong(file -> file.toFile().length()).sum(),
+                    "Least recently used tiles not deleted");
+        }
+        render(scene(new Color(30, 0, 0)), small);
+        assertTrue(small.getSize() <= 2 * (8 + 12 * 16 * 16), "Cache exceeds its size");
+    }
+}
@@ -0,0 +1,134 @@
+package scene;
+
+import geometries.Mesh;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.MeshLoader class
+ */
+class MeshLoaderTest {
+    /**
+     * A unit square in the plane z = 0 and a triangle above it, as an OBJ file
+     */
+    private static final String OBJ = """
+            # a square and a triangle
+            o model
+            v 0 0 0
+            v 1.0 0 0
+            v 1 1e0 0
+            vt 0.5 0.5
+            vn 0 0 1
+            v 0 1 0.0
+            f 1/1/1 2/1/1 3/1/1 4/1/1
+            v 0 0 2
+            v 1 0 2
+            v 0.5 1 2
+            f -3 -2 -1
+            """;
+
+    /**
+     * Writes a file in a temporary directory.
+     *
+     * @param suffix  The file name suffix.
+     * @param content The content of the file.
+     * @return The path of the file.
+     * @throws IOException If the file can't be written.
+     */
+    private static Path write(String suffix, byte[] content) throws IOException {
+        Path path = Files.createTempFile("mesh", suffix);
+        path.toFile().deleteOnExit();
+        return Files.write(path, content);
+    }
+
+    /**
+     * Checks that the loaded square and triangle are found by a vertical ray.
+     *
+     * @param mesh The loaded mesh.
+     */
+    private static void assertSquareAndTriangle(Mesh mesh) {
+        assertEquals(7, mesh.getVerticesCount(), "Wrong amount of vertices");
+        assertEquals(3, mesh.getTrianglesCount(), "Wrong amount of triangles");
+        List<Point> result = mesh.findIntersections(new Ray(new Point(0.4, 0.3, -1), new Vector(0, 0, 1)));
+        assertEquals(List.of(new Point(0.4, 0.3, 0), new Point(0.4, 0.3, 2)),
+                result.stream().sorted((a, b) -> Double.compare(a.getZ(), b.getZ())).toList(),
+                "Wrong intersections with the loaded mesh");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadObj(java.nio.file.Path)}.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        Path path = write(".obj", OBJ.getBytes(StandardCharsets.US_ASCII));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a quad, a triangle of relative indices and lines that are ignored
+        assertSquareAndTriangle(new MeshLoader().load(path.toString()));
+        // TC02: the same file parsed in many small chunks by several threads
+        assertSquareAndTriangle(new MeshLoader().setChunkSize(16).setThreadsCount(3).loadObj(path));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a face of a vertex that does not exist
+        Path wrong = write(".obj", "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new MeshLoader().loadObj(wrong), "Loaded a face of a missing vertex");
+    }
+
+    /**
+     * Builds the square and the triangle as a binary PLY file. The vertices have an extra property and the faces
+     * a list of their vertices of a given index type, so the reading of all the types and the skipping is checked.
+     *
+     * @param order The byte order of the file.
+     * @return The content of the file.
+     */
+    private static byte[] ply(ByteOrder order) {
+        String header = "ply\nformat " + (order == ByteOrder.LITTLE_ENDIAN ? "binary_little_endian" : "binary_big_endian")
+                + " 1.0\ncomment test\nelement vertex 7\nproperty float x\nproperty double y\nproperty uchar red\n"
+                + "property float z\nelement face 2\nproperty uchar flags\nproperty list uchar int vertex_indices\n"
+                + "element other 1\nproperty list ushort short values\nend_header\n";
+        double[][] vertices = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0}, {0, 0, 2}, {1, 0, 2}, {0.5, 1, 2}};
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(order);
+        buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+        for (double[] v : vertices)
+            buffer.putFloat((float) v[0]).putDouble(v[1]).put((byte) 200).putFloat((float) v[2]);
+        buffer.put((byte) 1).put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        buffer.put((byte) 1).put((byte) 3).putInt(4).putInt(5).putInt(6);
+        buffer.putShort((short) 2).putShort((short) 7).putShort((short) 8);
+        byte[] content = new byte[buffer.position()];
+        buffer.flip().get(content);
+        return content;
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadPly(java.nio.file.Path)}.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: little endian file
+        assertSquareAndTriangle(new MeshLoader().load(write(".ply", ply(ByteOrder.LITTLE_ENDIAN)).toString()));
+        // TC02: big endian file, the vertices decoded in several chunks
+        assertSquareAndTriangle(new MeshLoader().setChunkSize(40).setThreadsCount(2)
+                .loadPly(write(".ply", ply(ByteOrder.BIG_ENDIAN))));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an ASCII file is not supported
+        Path ascii = write(".ply", "ply\nformat ascii 1.0\nend_header\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new MeshLoader().loadPly(ascii), "Loaded an ASCII PLY file");
+    }
+}
@@ -0,0 +1,108 @@
+package scene;
+
+import geometries.Intersectable.GeoPoint;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.Camera;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.XmlFile class
+ */
+class XmlFileTest {
+    /**
+     * Makes a stream of an XML text.
+     *
+     * @param xml The XML text.
+     * @return The stream.
+     */
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test method for {@link scene.XmlFile#deserialize(java.io.InputStream)}.
+     *
+     * @throws IOException If the scene can't be read.
+     */
+    @Test
+    void testDeserialize() throws IOException {
+        XmlFile xmlFile = new XmlFile();
+        Scene scene = xmlFile.deserialize(stream("""
+                <scene background-color="75 127 90" name="test">
+                    <ambient-light color="255 191 191" ka="0.5"/>
+                    <materials>
+                        <material name="glass" kt="0.5" kd="0.2 0.3 0.4" shininess="30"/>
+                    </materials>
+                    <geometries>
+                        <sphere center="0 0 -100" radius="50" material="glass" emission="10 20 30"/>
+                        <polygon p0="100 0 -200" p1="110 0 -200" p2="110 10 -200" p3="100 10 -200">
+                            <material kr="0.7"/>
+                        </polygon>
+                        <cylinder radius="1" height="2">
+                            <ray point="20 0 0" vector="0 0 1"/>
+                        </cylinder>
+                    </geometries>
+                    <lights>
+                        <directional color="100 100 100" direction="0 0 -1"/>
+                        <spot color="200 200 200" position="0 0 0" direction="0 0 -1" kl="0.1" narrow-beam="4"/>
+                    </lights>
+                    <camera position="0 0 0" to="0 0 -1" up="0 1 0" distance="100" width="500" height="400"/>
+                </scene>
+                """));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the scene settings
+        assertEquals("test", scene.name, "Wrong scene name");
+        assertEquals(new Color(75, 127, 90).toString(), scene.background.toString(), "Wrong background");
+        assertEquals(new Color(127.5, 95.5, 95.5).toString(), scene.ambientLight.getIntensity().toString(),
+                "Wrong ambient light");
+
+        // TC02: the geometries with their materials and emission
+        GeoPoint sphere = scene.geometries.findClosestGeoIntersection(new Ray(new Point(0, 0, 0), new Vector(0, 0, -1)));
+        assertEquals(new Point(0, 0, -50), sphere.point, "Wrong sphere");
+        assertEquals(new Double3(0.5), sphere.geometry.getMaterial().kT, "Wrong named material");
+        assertEquals(new Double3(0.2, 0.3, 0.4), sphere.geometry.getMaterial().kD, "Wrong named material");
+        assertEquals(new Color(10, 20, 30).toString(), sphere.geometry.getEmission().toString(), "Wrong emission");
+        GeoPoint polygon = scene.geometries.findClosestGeoIntersection(new Ray(new Point(105, 5, 0), new Vector(0, 0, -1)));
+        assertEquals(new Point(105, 5, -200), polygon.point, "Wrong polygon");
+        assertEquals(new Double3(0.7), polygon.geometry.getMaterial().kR, "Wrong inner material");
+        assertNotNull(scene.geometries.findGeoIntersections(new Ray(new Point(20, 0, 1), new Vector(1, 0, 0))),
+                "Missing cylinder");
+
+        // TC03: the lights
+        assertEquals(2, scene.lights.size(), "Wrong amount of lights");
+        assertEquals(SpotLight.class, scene.lights.get(1).getClass(), "Wrong light type");
+        assertEquals(new Color(100, 100, 100).toString(),
+                ((PointLight) scene.lights.get(1)).getIntensity(new Point(0, 0, -10)).toString(),
+                "Wrong spot light attenuation");
+
+        // TC04: the camera
+        Camera camera = xmlFile.getCamera();
+        assertEquals(new Vector(0, 0, -1), camera.getvTo(), "Wrong camera direction");
+        assertEquals(100, camera.getDistance(), "Wrong camera distance");
+        assertEquals(400, camera.getHeight(), "Wrong camera view plane");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a scene without elements
+        Scene empty = xmlFile.deserialize(stream("<scene background-color=\"0 0 0\"/>"));
+        assertNull(empty.geometries.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0))),
+                "Empty scene has geometries");
+        assertNull(xmlFile.getCamera(), "Camera of a previous file");
+        // TC12: a wrong point
+        assertThrows(IOException.class, () -> xmlFile.deserialize(stream("""
+                <scene><geometries><sphere center="0 0" radius="1"/></geometries></scene>""")),
+                "Read a point of 2 coordinates");
+        // TC13: not well-formed XML
+        assertThrows(IOException.class, () -> xmlFile.deserialize(stream("<scene><geometries></scene>")),
+                "Read a malformed file");
+    }
+}